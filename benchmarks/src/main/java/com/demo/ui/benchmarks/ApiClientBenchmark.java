@@ -0,0 +1,94 @@
+package com.demo.ui.benchmarks;
+
+import com.demo.ui.services.ApiClient;
+import com.demo.ui.services.ProductService;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Round trips through ApiClient against an in-process HTTP server on loopback,
+// so the numbers cover the transport and parsing, not a real backend.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ApiClientBenchmark {
+
+    @Param({ "1", "1000", "100000" })
+    public int rows;
+
+    // When true the server sends an ETag and answers 304 to a matching If-None-Match
+    @Param({ "false", "true" })
+    public boolean revalidate;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private ApiClient api;
+    private ProductService products;
+
+    @Setup
+    public void setUp() throws Exception {
+        byte[] body = BenchData.json(BenchData.Entity.PRODUCT, rows);
+        String etag = "\"products-" + rows + "\"";
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverThreads = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(serverThreads);
+        server.createContext("/products", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            if (revalidate) {
+                exchange.getResponseHeaders().set("ETag", etag);
+                if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        api = new ApiClient("http://127.0.0.1:" + server.getAddress().getPort());
+        products = new ProductService(api);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Benchmark
+    public String getBlocking() throws Exception {
+        return api.get("/products");
+    }
+
+    @Benchmark
+    public String getAsync() throws Exception {
+        return ApiClient.await(api.getAsync("/products"));
+    }
+
+    // Full service path: transport + (conditional) Jackson binding
+    @Benchmark
+    public Object serviceGetAllProducts() throws Exception {
+        return products.getAllProducts();
+    }
+
+    // Streaming path: token-stream binding chunk by chunk
+    @Benchmark
+    public int serviceStreamAllProducts() throws Exception {
+        return products.streamAllProducts(500, (chunk, read, total) -> { });
+    }
+}
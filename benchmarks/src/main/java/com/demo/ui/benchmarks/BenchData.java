@@ -0,0 +1,113 @@
+package com.demo.ui.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Realistic payloads for the benchmarks, shaped like the Express responses
+// (snake_case keys, DECIMAL columns as strings, DATETIME as ISO strings) and
+// seeded from the request fixtures in node/testdata.
+public final class BenchData {
+
+    public enum Entity { ORDER, PRODUCT, CLIENT, ORDER_PRODUCT }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String TIMESTAMP = "2025-12-07T10:15:30.000Z";
+
+    private BenchData() { }
+
+    public static byte[] json(Entity entity, int rows) {
+        try {
+            return MAPPER.writeValueAsBytes(array(entity, rows));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static ArrayNode array(Entity entity, int rows) {
+        ObjectNode seed = seed(entity);
+        ArrayNode array = MAPPER.createArrayNode();
+        for (int i = 0; i < rows; i++) {
+            ObjectNode row = seed.deepCopy();
+            int id = rows - i; // newest first, like ORDER BY id DESC
+            row.put("id", id);
+            switch (entity) {
+                case ORDER -> {
+                    row.put("order_number", String.format("ORD-2025-12-07-%06d", id));
+                    row.put("client_id", 1 + id % 500);
+                    row.put("order_date", TIMESTAMP);
+                    long subtotalCents = 1999L * (1 + id % 7);
+                    long taxCents = Math.round(subtotalCents * 0.21);
+                    row.put("subtotal_amount", cents(subtotalCents));
+                    row.put("discount_amount", cents(500));
+                    row.put("tax_amount", cents(taxCents));
+                    row.put("total_amount", cents(Math.max(subtotalCents - 500 + taxCents, 0)));
+                }
+                case PRODUCT -> {
+                    row.put("name", "Product " + id);
+                    row.put("price", cents(99L + id % 10_000));
+                    row.put("stock", id % 250);
+                    row.put("provider_id", 1 + id % 20);
+                }
+                case CLIENT -> {
+                    row.put("name", "Client " + id);
+                    row.put("email", "client" + id + "@example.com");
+                }
+                case ORDER_PRODUCT -> {
+                    row.put("order_id", 1 + id / 4);
+                    row.put("product_id", 1 + id % 1000);
+                    long unit = 1999L;
+                    row.put("unit_price", cents(unit));
+                    row.put("line_total", cents(unit * row.path("quantity").asInt(1)));
+                }
+            }
+            row.put("created_at", TIMESTAMP);
+            row.put("updated_at", TIMESTAMP);
+            array.add(row);
+        }
+        return array;
+    }
+
+    private static ObjectNode seed(Entity entity) {
+        return switch (entity) {
+            case ORDER -> readFixture("order.json");
+            case CLIENT -> readFixture("client.json");
+            case ORDER_PRODUCT -> readFixture("orderProduct.json");
+            // There is no product fixture; mirror the columns of the products table
+            case PRODUCT -> {
+                ObjectNode p = MAPPER.createObjectNode();
+                p.put("description", "Stainless steel, 500 ml, dishwasher safe");
+                yield p;
+            }
+        };
+    }
+
+    private static ObjectNode readFixture(String name) {
+        try {
+            return (ObjectNode) MAPPER.readTree(testdataDir().resolve(name).toFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // -Dshop.testdata=... or the first node/testdata found walking up from the working directory
+    private static Path testdataDir() {
+        String configured = System.getProperty("shop.testdata");
+        if (configured != null) return Paths.get(configured);
+        for (Path dir = Paths.get("").toAbsolutePath(); dir != null; dir = dir.getParent()) {
+            Path candidate = dir.resolve("node").resolve("testdata");
+            if (Files.isDirectory(candidate)) return candidate;
+        }
+        throw new IllegalStateException("node/testdata not found; run from the repository or set -Dshop.testdata");
+    }
+
+    private static String cents(long cents) {
+        return (cents / 100) + "." + String.format("%02d", cents % 100);
+    }
+}
@@ -0,0 +1,65 @@
+package com.demo.ui.benchmarks;
+
+import com.demo.ui.devserver.FakeShopServer;
+import com.demo.ui.devserver.FakeShopStore;
+import com.demo.ui.devserver.FaultProfile;
+import com.demo.ui.models.Product;
+import com.demo.ui.services.BulkResult;
+import com.demo.ui.services.ProductService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// ProductService.createProducts against the fake backend with a fixed per-request latency.
+// Throughput is reported per item, i.e. in items per second.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+public class BulkWriteBenchmark {
+
+    private static final int ITEMS = 1000;
+
+    @Param({ "1", "8", "32" })
+    public int concurrency;
+
+    @Param({ "false", "true" })
+    public boolean bulkEndpoint;
+
+    @Param({ "5" })
+    public int latencyMs;
+
+    private FakeShopServer server;
+    private ProductService products;
+    private List<Product> catalogue;
+
+    @Setup
+    public void setUp() throws Exception {
+        server = FakeShopServer.start(0, FakeShopStore.seeded(0, 0, 0, 0, 0),
+            FaultProfile.NONE.withLatency(Duration.ofMillis(latencyMs), Duration.ZERO));
+        products = new ProductService(server.client());
+        products.setBulkEndpointEnabled(bulkEndpoint);
+        catalogue = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            catalogue.add(new Product(0, "Supplier item " + i, "Imported", (10 + i % 90) * 100L, i % 50, 1, null, null));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public BulkResult<Product> createCatalogue() throws Exception {
+        BulkResult<Product> result = products.createProducts(catalogue, concurrency);
+        if (!result.allSucceeded()) throw new IllegalStateException(result.toString());
+        return result;
+    }
+}
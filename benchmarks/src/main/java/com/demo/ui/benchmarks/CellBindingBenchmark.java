@@ -0,0 +1,100 @@
+package com.demo.ui.benchmarks;
+
+import com.demo.ui.cells.CellText;
+import com.demo.ui.models.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.control.TableColumn;
+import javafx.util.Callback;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// One op = one order row scrolled into view: the text of its 13 cells.
+//   valueFactories: what the orders table did per cell before RowCell - TableColumn builds a
+//                   CellDataFeatures, the factory a fresh property (+ asObject), and the default
+//                   cell shows item.toString()
+//   rowCells:       RowCell/CellText reading the primitive getters through the per-column caches
+// scrollSpan is how many rows the viewport wanders over: 1000 is scrolling around one region,
+// 100000 a first pass over every row. Run with -prof gc and compare gc.alloc.rate.norm.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CellBindingBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    @Param({ "1000", "100000" })
+    public int scrollSpan;
+
+    private Order[] orders;
+    private List<Callback<TableColumn.CellDataFeatures<Order, ?>, ObservableValue<?>>> valueFactories;
+    private List<CellText<Order>> rowCells;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        orders = new ObjectMapper().readValue(BenchData.json(BenchData.Entity.ORDER, ROWS), Order[].class);
+        valueFactories = List.of(
+            d -> new SimpleIntegerProperty(d.getValue().getId()).asObject(),
+            d -> new SimpleStringProperty(d.getValue().getOrderNumber()),
+            d -> new SimpleIntegerProperty(d.getValue().getClientId()).asObject(),
+            d -> new SimpleStringProperty(d.getValue().getOrderDate() != null ? d.getValue().getOrderDate() : ""),
+            d -> new SimpleStringProperty(d.getValue().getOrderStatus()),
+            d -> new SimpleStringProperty(d.getValue().getPaymentMethod()),
+            d -> new SimpleStringProperty(d.getValue().getCurrencyCode()),
+            d -> new SimpleDoubleProperty(d.getValue().getSubtotalCents() / 100.0).asObject(),
+            d -> new SimpleDoubleProperty(d.getValue().getDiscountCents() / 100.0).asObject(),
+            d -> new SimpleDoubleProperty(d.getValue().getTaxCents() / 100.0).asObject(),
+            d -> new SimpleDoubleProperty(d.getValue().getTotalCents() / 100.0).asObject(),
+            d -> new SimpleStringProperty(d.getValue().getCreatedAt() != null ? d.getValue().getCreatedAt() : ""),
+            d -> new SimpleStringProperty(d.getValue().getUpdatedAt() != null ? d.getValue().getUpdatedAt() : "")
+        );
+        rowCells = List.of(
+            CellText.ofInt(Order::getId),
+            CellText.ofText(Order::getOrderNumber),
+            CellText.ofInt(Order::getClientId),
+            CellText.ofText(Order::getOrderDate),
+            CellText.ofText(Order::getOrderStatus),
+            CellText.ofText(Order::getPaymentMethod),
+            CellText.ofText(Order::getCurrencyCode),
+            CellText.ofMoney(Order::getSubtotalCents),
+            CellText.ofMoney(Order::getDiscountCents),
+            CellText.ofMoney(Order::getTaxCents),
+            CellText.ofMoney(Order::getTotalCents),
+            CellText.ofText(Order::getCreatedAt),
+            CellText.ofText(Order::getUpdatedAt)
+        );
+    }
+
+    private Order nextRow() {
+        Order row = orders[next];
+        next = next + 1 == scrollSpan ? 0 : next + 1;
+        return row;
+    }
+
+    @Benchmark
+    public void valueFactories(Blackhole bh) {
+        Order row = nextRow();
+        for (int c = 0; c < valueFactories.size(); c++) {
+            Object item = valueFactories.get(c).call(new TableColumn.CellDataFeatures<>(null, null, row)).getValue();
+            bh.consume(item == null ? null : item.toString());
+        }
+    }
+
+    @Benchmark
+    public void rowCells(Blackhole bh) {
+        Order row = nextRow();
+        for (int c = 0; c < rowCells.size(); c++) {
+            bh.consume(rowCells.get(c).text(row));
+        }
+    }
+}
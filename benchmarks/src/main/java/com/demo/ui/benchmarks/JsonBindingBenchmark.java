@@ -0,0 +1,60 @@
+package com.demo.ui.benchmarks;
+
+import com.demo.ui.models.Client;
+import com.demo.ui.models.Order;
+import com.demo.ui.models.OrderProduct;
+import com.demo.ui.models.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Jackson binding of the four models exactly as the services do it today:
+// whole body as a String, bound to T[] in one go.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JsonBindingBenchmark {
+
+    @Param({ "1", "1000", "100000" })
+    public int rows;
+
+    @Param({ "ORDER", "PRODUCT", "CLIENT", "ORDER_PRODUCT" })
+    public BenchData.Entity entity;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private byte[] bytes;
+    private String text;
+    private Class<?> arrayType;
+
+    @Setup
+    public void setUp() {
+        bytes = BenchData.json(entity, rows);
+        text = new String(bytes, StandardCharsets.UTF_8);
+        arrayType = switch (entity) {
+            case ORDER -> Order[].class;
+            case PRODUCT -> Product[].class;
+            case CLIENT -> Client[].class;
+            case ORDER_PRODUCT -> OrderProduct[].class;
+        };
+    }
+
+    @Benchmark
+    public Object bindFromString() throws Exception {
+        return mapper.readValue(text, arrayType);
+    }
+
+    @Benchmark
+    public Object bindFromBytes() throws Exception {
+        return mapper.readValue(bytes, arrayType);
+    }
+
+    @Benchmark
+    public Object serialize() throws Exception {
+        return mapper.writeValueAsBytes(mapper.readValue(bytes, arrayType));
+    }
+}
@@ -0,0 +1,87 @@
+package com.demo.ui.benchmarks;
+
+import com.demo.ui.collections.SearchIndex;
+import com.demo.ui.models.Order;
+import com.demo.ui.models.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// SearchIndex.search over a fully indexed 100k-row list, indexed on the same fields as the
+// ViewModels (products: name, description; orders: number and addresses). The target is under
+// 1 ms per query. broad matches every row (the worst case for the posting merge), narrow a
+// word plus a number prefix (~100 rows), digits a number prefix alone.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SearchIndexBenchmark {
+
+    @Param({ "100000" })
+    public int rows;
+
+    @Param({ "PRODUCT", "ORDER" })
+    public BenchData.Entity entity;
+
+    @Param({ "broad", "narrow", "digits" })
+    public String query;
+
+    private SearchIndex<?> index;
+    private String text;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        byte[] json = BenchData.json(entity, rows);
+        switch (entity) {
+            case PRODUCT -> {
+                SearchIndex<Product> products = new SearchIndex<>("bench-products", Product::getId,
+                    p -> new String[] { p.getName(), p.getDescription() });
+                attach(products, FXCollections.observableArrayList(Arrays.asList(mapper.readValue(json, Product[].class))));
+                text = switch (query) {
+                    case "broad" -> "product";
+                    case "narrow" -> "product 424";
+                    default -> "4242";
+                };
+            }
+            case ORDER -> {
+                SearchIndex<Order> orders = new SearchIndex<>("bench-orders", Order::getId,
+                    o -> new String[] { o.getOrderNumber(), o.getShippingAddress(), o.getBillingAddress() });
+                attach(orders, FXCollections.observableArrayList(Arrays.asList(mapper.readValue(json, Order[].class))));
+                text = switch (query) {
+                    case "broad" -> "calle mayor";
+                    case "narrow" -> "ord 0004";
+                    default -> "000424";
+                };
+            }
+            default -> throw new IllegalArgumentException("No search index for " + entity);
+        }
+    }
+
+    // Returns once the initial rows are posted (indexing runs on the index's own thread)
+    private <T> void attach(SearchIndex<T> index, ObservableList<T> list) throws InterruptedException {
+        CountDownLatch indexed = new CountDownLatch(1);
+        index.addIndexedListener(indexed::countDown);
+        index.attach(list);
+        indexed.await();
+        this.index = index;
+    }
+
+    @TearDown
+    public void tearDown() {
+        index.close();
+    }
+
+    @Benchmark
+    public BitSet search() {
+        return index.search(text);
+    }
+}
@@ -0,0 +1,86 @@
+package com.demo.ui.benchmarks;
+
+import com.demo.ui.collections.IdIndexedList;
+import com.demo.ui.models.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// The list updates the ViewModels run after a successful update/delete:
+// products.indexOf(sel) + set, and products.remove(sel). Both are linear scans.
+// The byId variants are the same updates on IdIndexedList, which the ViewModels use now.
+// Selection sits in the middle of the table, i.e. the average case.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ViewModelUpdateBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int rows;
+
+    private ObservableList<Product> products;
+    private IdIndexedList<Product> indexed;
+    private Product selected;
+    private Product spare;
+
+    @Setup
+    public void setUp() throws Exception {
+        Product[] loaded = new ObjectMapper().readValue(
+            BenchData.json(BenchData.Entity.PRODUCT, rows), Product[].class);
+        products = FXCollections.observableArrayList(Arrays.asList(loaded));
+        indexed = new IdIndexedList<>(Product::getId);
+        indexed.setAll(Arrays.asList(loaded));
+        selected = products.get(rows / 2);
+        spare = new Product(selected.getId(), selected.getName(), selected.getDescription(),
+            selected.getPriceCents(), selected.getStock(), selected.getProviderId(), null, null);
+    }
+
+    // updateSelectedProductAsync: int idx = products.indexOf(sel); products.set(idx, updated);
+    @Benchmark
+    public int replaceSelected() {
+        int idx = products.indexOf(selected);
+        products.set(idx, spare);
+        Product t = selected;
+        selected = spare;
+        spare = t;
+        return idx;
+    }
+
+    // deleteSelectedProductAsync: products.remove(sel); re-inserted so the list stays the same size
+    @Benchmark
+    public int removeSelected() {
+        int idx = products.indexOf(selected);
+        products.remove(selected);
+        products.add(idx, selected);
+        return idx;
+    }
+
+    // replaceById: one hash lookup, then set in place
+    @Benchmark
+    public Product replaceSelectedById() {
+        Product old = indexed.replaceById(spare);
+        Product t = selected;
+        selected = spare;
+        spare = t;
+        return old;
+    }
+
+    // removeById + re-insert: the lookups are O(1), but a middle removal still shifts the backing
+    // array and leaves the positions after it to be repaired by the next lookup. Alternating the
+    // two makes every call pay one repair (re-hashing the rows below the selection), so this is
+    // the worst case; a burst of removals shares one repair.
+    @Benchmark
+    public int removeSelectedById() {
+        int idx = indexed.indexOfId(selected.getId());
+        indexed.removeById(selected.getId());
+        indexed.add(idx, selected);
+        return idx;
+    }
+}
@@ -0,0 +1,58 @@
+package com.demo.ui.benchmarks;
+
+import com.demo.ui.models.Client;
+import com.demo.ui.models.Order;
+import com.demo.ui.models.OrderProduct;
+import com.demo.ui.models.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// The same list bound from its JSON and from its CBOR encoding (what the list endpoints send
+// when the client asks for application/cbor), bytes to T[] as JsonDecoder does it.
+// CBOR carries lengths and integers in binary, so the parser skips the text scanning; the
+// money fields are still decimal strings in both.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class WireFormatBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int rows;
+
+    @Param({ "ORDER", "PRODUCT", "CLIENT", "ORDER_PRODUCT" })
+    public BenchData.Entity entity;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final CBORMapper cbor = new CBORMapper();
+    private byte[] jsonBytes;
+    private byte[] cborBytes;
+    private Class<?> arrayType;
+
+    @Setup
+    public void setUp() throws Exception {
+        jsonBytes = BenchData.json(entity, rows);
+        cborBytes = cbor.writeValueAsBytes(BenchData.array(entity, rows));
+        arrayType = switch (entity) {
+            case ORDER -> Order[].class;
+            case PRODUCT -> Product[].class;
+            case CLIENT -> Client[].class;
+            case ORDER_PRODUCT -> OrderProduct[].class;
+        };
+    }
+
+    @Benchmark
+    public Object bindJson() throws Exception {
+        return json.readValue(jsonBytes, arrayType);
+    }
+
+    @Benchmark
+    public Object bindCbor() throws Exception {
+        return cbor.readValue(cborBytes, arrayType);
+    }
+}
@@ -0,0 +1,5 @@
+-- Indexes for incremental sync (GET /<table>?since=...): the delta query is a range scan
+-- on updated_at instead of a full table scan.
+CREATE INDEX idx_products_updated_at ON products (updated_at);
+CREATE INDEX idx_clients_updated_at ON clients (updated_at);
+CREATE INDEX idx_orders_updated_at ON orders (updated_at);
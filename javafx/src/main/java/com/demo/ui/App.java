@@ -1,24 +1,51 @@
 package com.demo.ui;
 
+import com.demo.ui.devserver.FakeShopServer;
+import com.demo.ui.metrics.Metrics;
+import com.demo.ui.services.ApiClient;
+import com.demo.ui.tasks.TaskRunner;
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.SeparatorMenuItem;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 
+import java.util.List;
+
 public class App extends Application {
 
     private BorderPane root;
     private Stage stage;
+    private FakeShopServer fakeServer;
+
+    private static final String PRODUCTS_VIEW = "/com/demo/ui/ProductsView.fxml";
+    private static final String CLIENTS_VIEW = "/com/demo/ui/ClientsView.fxml";
+    private static final String ORDERS_VIEW = "/com/demo/ui/OrdersView.fxml";
+    private static final String ORDER_PRODUCTS_VIEW = "/com/demo/ui/OrderProductsView.fxml";
+    private static final String DIAGNOSTICS_VIEW = "/com/demo/ui/DiagnosticsView.fxml";
+
+    // Views stay alive across menu switches; -Dshop.ui.maxCachedViews bounds how many. The default
+    // holds every view in the View menu, so opening Diagnostics does not evict a preloaded data view.
+    private final ViewRegistry views = new ViewRegistry(
+        Integer.getInteger("shop.ui.maxCachedViews", 5), TaskRunner.shared());
 
     @Override
     public void start(Stage stage) throws Exception {
         this.stage = stage;
         root = new BorderPane();
 
+        // -Dshop.fake=true runs against the in-process fake backend instead of the Node API
+        if (Boolean.getBoolean("shop.fake")) {
+            fakeServer = FakeShopServer.startFromSystemProperties(Integer.getInteger("shop.fake.port", 0));
+            ApiClient.setShared(fakeServer.client());
+        }
+
+        // Latency histograms, also readable from jconsole/VisualVM
+        Metrics.shared().registerMBean();
+
         // Create menu bar
         MenuBar menuBar = new MenuBar();
 
@@ -32,36 +59,47 @@ public class App extends Application {
         Menu viewMenu = new Menu("View");
 
         MenuItem productsItem = new MenuItem("Products");
-        productsItem.setOnAction(e -> loadView("/com/demo/ui/ProductsView.fxml", "Products"));
+        productsItem.setOnAction(e -> loadView(PRODUCTS_VIEW, "Products"));
 
         MenuItem clientsItem = new MenuItem("Clients");
-        clientsItem.setOnAction(e -> loadView("/com/demo/ui/ClientsView.fxml", "Clients"));
+        clientsItem.setOnAction(e -> loadView(CLIENTS_VIEW, "Clients"));
 
         MenuItem ordersItem = new MenuItem("Orders");
-        ordersItem.setOnAction(e -> loadView("/com/demo/ui/OrdersView.fxml", "Orders"));
+        ordersItem.setOnAction(e -> loadView(ORDERS_VIEW, "Orders"));
 
         MenuItem orderProductsItem = new MenuItem("Order Products");
-        orderProductsItem.setOnAction(e -> loadView("/com/demo/ui/OrderProductsView.fxml", "Order Products"));
+        orderProductsItem.setOnAction(e -> loadView(ORDER_PRODUCTS_VIEW, "Order Products"));
 
-        viewMenu.getItems().addAll(productsItem, clientsItem, ordersItem, orderProductsItem);
+        MenuItem diagnosticsItem = new MenuItem("Diagnostics");
+        diagnosticsItem.setOnAction(e -> loadView(DIAGNOSTICS_VIEW, "Diagnostics"));
+
+        viewMenu.getItems().addAll(productsItem, clientsItem, ordersItem, orderProductsItem,
+            new SeparatorMenuItem(), diagnosticsItem);
 
         menuBar.getMenus().addAll(fileMenu, viewMenu);
 
         root.setTop(menuBar);
 
         // Initial view
-        loadView("/com/demo/ui/ProductsView.fxml", "Products");
+        loadView(PRODUCTS_VIEW, "Products");
 
         Scene scene = new Scene(root, 1000, 700); // slightly larger for orders UI
         stage.setScene(scene);
         stage.setTitle("Demo UI");
         stage.show();
+
+        // Parse the other views in the background so the first switch to them is instant too
+        views.preload(List.of(CLIENTS_VIEW, ORDERS_VIEW, ORDER_PRODUCTS_VIEW));
+    }
+
+    @Override
+    public void stop() {
+        if (fakeServer != null) fakeServer.close();
     }
 
     private void loadView(String fxmlPath, String title) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlPath));
-            root.setCenter(loader.load());
+            root.setCenter(views.show(fxmlPath).root());
             stage.setTitle(title);
         } catch (Exception e) {
             e.printStackTrace();
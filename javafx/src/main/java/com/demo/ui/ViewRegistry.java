@@ -0,0 +1,107 @@
+package com.demo.ui;
+
+import com.demo.ui.tasks.TaskRunner;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keeps loaded views (root node + controller, and through it the ViewModel and its rows)
+// alive across menu switches, least recently shown first out once more than maxCached are held.
+// All map access happens on the FX thread; only the FXML parsing of preloads runs off it.
+public class ViewRegistry {
+
+    public record LoadedView(String fxmlPath, Parent root, Object controller) { }
+
+    // Implemented by controllers that do more than build their nodes. start runs once on the FX
+    // thread when the view enters the registry (initialize may run on a preload thread, so it
+    // must not load or touch shared state); dispose runs when the view is evicted.
+    public interface Lifecycle {
+        default void start() { }
+        default void dispose() { }
+    }
+
+    private final int maxCached;
+    private final TaskRunner tasks;
+    private final Map<String, LoadedView> views = new LinkedHashMap<>(8, 0.75f, true);
+    private final Set<String> preloading = ConcurrentHashMap.newKeySet();
+    private String current;
+
+    private long hitCount;
+    private long missCount;
+    private long evictedCount;
+
+    public ViewRegistry(int maxCached, TaskRunner tasks) {
+        this.maxCached = Math.max(1, maxCached);
+        this.tasks = tasks;
+    }
+
+    // FX thread. Cached view if there is one, otherwise parsed now.
+    public LoadedView show(String fxmlPath) throws Exception {
+        LoadedView view = views.get(fxmlPath);
+        if (view != null) {
+            hitCount++;
+        } else {
+            missCount++;
+            view = load(fxmlPath);
+            // On screen from now on: the view it replaces is the one eviction may take
+            current = fxmlPath;
+            put(view);
+        }
+        current = fxmlPath;
+        return view;
+    }
+
+    // Parses the given views on a background thread so the first switch to them is instant too.
+    // Controls may be built off the FX thread as long as they are not in a live scene yet.
+    public void preload(List<String> fxmlPaths) {
+        for (String path : fxmlPaths) {
+            if (views.containsKey(path) || !preloading.add(path)) continue;
+            tasks.submit("preload-view",
+                () -> load(path),
+                view -> {
+                    preloading.remove(path);
+                    // Shown (and loaded on the FX thread) while we were parsing: keep that one
+                    if (!views.containsKey(path)) put(view);
+                    else if (view.controller() instanceof Lifecycle l) l.dispose();
+                },
+                e -> {
+                    preloading.remove(path);
+                    System.err.println("Preloading " + path + " failed: " + e);
+                }
+            );
+        }
+    }
+
+    public boolean isCached(String fxmlPath) { return views.containsKey(fxmlPath); }
+    public int cachedCount() { return views.size(); }
+    public long hitCount() { return hitCount; }
+    public long missCount() { return missCount; }
+    public long evictedCount() { return evictedCount; }
+
+    private LoadedView load(String fxmlPath) throws Exception {
+        FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlPath));
+        Parent root = loader.load();
+        return new LoadedView(fxmlPath, root, loader.getController());
+    }
+
+    private void put(LoadedView view) {
+        views.put(view.fxmlPath(), view);
+        if (view.controller() instanceof Lifecycle l) l.start();
+        // Evict least recently shown, never the one on screen nor the one just added
+        Iterator<Map.Entry<String, LoadedView>> it = views.entrySet().iterator();
+        while (views.size() > maxCached && it.hasNext()) {
+            Map.Entry<String, LoadedView> e = it.next();
+            if (!e.getKey().equals(current) && !e.getKey().equals(view.fxmlPath())) {
+                it.remove();
+                evictedCount++;
+                if (e.getValue().controller() instanceof Lifecycle l) l.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.demo.ui.cells;
+
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+// What a table cell shows for a row, read from the model's primitive getter. Numbers are
+// formatted through a small per-column cache, so scrolling back over rows already seen (or
+// over repeated values such as quantities) creates no new Strings. FX thread only.
+@FunctionalInterface
+public interface CellText<S> {
+
+    String text(S row);
+
+    static <S> CellText<S> ofText(Function<? super S, String> f) {
+        return f::apply;
+    }
+
+    static <S> CellText<S> ofInt(ToIntFunction<? super S> f) {
+        TextCache cache = new TextCache(TextCache.INTEGER);
+        return row -> cache.text(f.applyAsInt(row));
+    }
+
+    // Long cents as "1234.50"
+    static <S> CellText<S> ofMoney(ToLongFunction<? super S> f) {
+        TextCache cache = new TextCache(TextCache.MONEY);
+        return row -> cache.text(f.applyAsLong(row));
+    }
+}
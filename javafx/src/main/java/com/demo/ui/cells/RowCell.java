@@ -0,0 +1,30 @@
+package com.demo.ui.cells;
+
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+
+// Table cell that renders straight from its row. The column gets no cell value factory, so
+// refreshing a cell builds no property, boxed value or CellDataFeatures: TableCell compares
+// row items itself and only calls updateItem when the row at this index actually changed.
+// Text is only set when it differs from what the cell already shows.
+public final class RowCell<S, T> extends TableCell<S, T> {
+
+    private final CellText<? super S> text;
+
+    private RowCell(CellText<? super S> text) {
+        this.text = text;
+    }
+
+    public static <S, T> void install(TableColumn<S, T> column, CellText<? super S> text) {
+        column.setCellValueFactory(null);
+        column.setCellFactory(c -> new RowCell<>(text));
+    }
+
+    @Override
+    protected void updateItem(T item, boolean empty) {
+        super.updateItem(item, empty);
+        S row = empty || getTableRow() == null ? null : getTableRow().getItem();
+        String t = row == null ? null : text.text(row);
+        if (t != getText()) setText(t);
+    }
+}
@@ -0,0 +1,38 @@
+package com.demo.ui.cells;
+
+import com.demo.ui.models.Money;
+
+// Direct-mapped value -> text cache: one slot per hash, a miss formats and overwrites it
+final class TextCache {
+
+    interface Format {
+        String format(long value, char[] buf);
+    }
+
+    static final Format INTEGER = (value, buf) -> Long.toString(value);
+    static final Format MONEY = (value, buf) -> {
+        int start = Money.format(value, buf);
+        return new String(buf, start, buf.length - start);
+    };
+
+    private static final int BITS = 11;
+
+    private final Format format;
+    private final long[] values = new long[1 << BITS];
+    private final String[] texts = new String[1 << BITS];
+    private final char[] buf = new char[Money.MAX_CHARS];
+
+    TextCache(Format format) {
+        this.format = format;
+    }
+
+    String text(long value) {
+        int slot = (int) ((value * 0x9E3779B97F4A7C15L) >>> (64 - BITS));
+        String t = texts[slot];
+        if (t != null && values[slot] == value) return t;
+        t = format.format(value, buf);
+        values[slot] = value;
+        texts[slot] = t;
+        return t;
+    }
+}
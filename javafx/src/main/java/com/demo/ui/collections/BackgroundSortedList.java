@@ -0,0 +1,360 @@
+package com.demo.ui.collections;
+
+import com.demo.ui.tasks.TaskRunner;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.TransformationList;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+// Sorted and/or filtered view of a source list whose order is computed off the FX thread.
+//
+// The FX thread only keeps an int[] of source positions in step with source changes (removed
+// rows drop out, added rows are appended, replaced rows stay where they are) and takes a copy of
+// the rows to sort. The sort itself runs on the TaskRunner: the filter is applied, then one
+// stable pass per sort key, last key first, each an Arrays.parallelSort over longs packing
+// (rank of key << 32 | current position). The result lands as a single permutation event, or one
+// replace event when the filter changed which rows are visible. Newer source changes supersede
+// a sort still in flight, so a streaming load costs one sort after its last chunk, not one per chunk.
+//
+// With no sort order and no filter the view is the source, forwarded change for change.
+public class BackgroundSortedList<T> extends TransformationList<T, T> {
+
+    public record Order<T>(SortKey<T> key, boolean ascending) { }
+
+    private final TaskRunner tasks = TaskRunner.shared();
+
+    private List<Order<T>> order = List.of();
+    private Predicate<? super T> filter;
+
+    private int[] view = new int[0];  // view position -> source position, when mapped
+    private int size;
+    private boolean mapped;
+    private long stamp;
+
+    private long sortCount;
+    private long lastSortNanos;
+
+    public BackgroundSortedList(ObservableList<T> source) {
+        super(source);
+    }
+
+    // FX thread. An empty list restores source order (unless a filter is set)
+    public void setOrder(List<Order<T>> newOrder) {
+        newOrder = List.copyOf(newOrder);
+        if (newOrder.equals(order)) return;
+        order = newOrder;
+        reconfigure();
+    }
+
+    // FX thread. null shows every row
+    public void setFilter(Predicate<? super T> newFilter) {
+        if (newFilter == filter) return;
+        filter = newFilter;
+        reconfigure();
+    }
+
+    public List<Order<T>> getOrder() { return order; }
+    public long sortCount() { return sortCount; }
+    public long lastSortNanos() { return lastSortNanos; }
+
+    @Override
+    public T get(int i) {
+        if (!mapped) return getSource().get(i);
+        Objects.checkIndex(i, size);
+        return getSource().get(view[i]);
+    }
+
+    @Override
+    public int size() {
+        return mapped ? size : getSource().size();
+    }
+
+    @Override
+    public int getSourceIndex(int i) {
+        if (!mapped) return i;
+        Objects.checkIndex(i, size);
+        return view[i];
+    }
+
+    @Override
+    public int getViewIndex(int sourceIndex) {
+        if (!mapped) return sourceIndex;
+        for (int i = 0; i < size; i++) {
+            if (view[i] == sourceIndex) return i;
+        }
+        return -1;
+    }
+
+    // --- Configuration ---
+
+    private void reconfigure() {
+        boolean wantMapped = !order.isEmpty() || filter != null;
+        if (!wantMapped) {
+            tasks.cancel(this, "sort");
+            if (mapped) restoreSourceOrder();
+            return;
+        }
+        if (!mapped) {
+            // Same rows in source order until the first sort lands
+            int n = getSource().size();
+            view = new int[Math.max(16, n)];
+            for (int i = 0; i < n; i++) view[i] = i;
+            size = n;
+            mapped = true;
+        }
+        stamp++;
+        scheduleSort();
+    }
+
+    private void restoreSourceOrder() {
+        int n = getSource().size();
+        int[] old = Arrays.copyOf(view, size);
+        mapped = false;
+        view = new int[0];
+        size = 0;
+        beginChange();
+        if (old.length == n) {
+            // Nothing was filtered out: view position p simply goes back to its source position
+            nextPermutation(0, n, old);
+        } else {
+            List<T> removed = new ArrayList<>(old.length);
+            for (int s : old) removed.add(getSource().get(s));
+            nextReplace(0, n, removed);
+        }
+        endChange();
+    }
+
+    // --- Background sort ---
+
+    private void scheduleSort() {
+        final long at = stamp;
+        final List<T> rows = new ArrayList<>(getSource());
+        final List<Order<T>> keys = order;
+        final Predicate<? super T> test = filter;
+        tasks.submitLatest(this, "sort",
+            () -> {
+                long t0 = System.nanoTime();
+                int[] result = sortedPositions(rows, test, keys);
+                return new Sorted(at, result, System.nanoTime() - t0);
+            },
+            sorted -> {
+                if (sorted.stamp() != stamp || !mapped) return;
+                lastSortNanos = sorted.nanos();
+                sortCount++;
+                publish(sorted.positions());
+            },
+            e -> e.printStackTrace()
+        );
+    }
+
+    private record Sorted(long stamp, int[] positions, long nanos) { }
+
+    static <T> int[] sortedPositions(List<T> rows, Predicate<? super T> filter, List<Order<T>> keys) {
+        int n = rows.size();
+        int[] idx = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (filter == null || filter.test(rows.get(i))) idx[count++] = i;
+        }
+        idx = Arrays.copyOf(idx, count);
+        if (count < 2) return idx;
+
+        long[] packed = new long[count];
+        for (int k = keys.size() - 1; k >= 0; k--) {
+            Order<T> o = keys.get(k);
+            List<T> subset = new Positions<>(rows, idx);
+            int[] ranks = denseRanks(o.key().keys(subset));
+            int top = 0;
+            for (int r : ranks) top = Math.max(top, r);
+            for (int i = 0; i < count; i++) {
+                long rank = o.ascending() ? ranks[i] : top - ranks[i];
+                packed[i] = rank << 32 | i;
+            }
+            Arrays.parallelSort(packed);
+            int[] next = new int[count];
+            for (int i = 0; i < count; i++) next[i] = idx[(int) packed[i]];
+            idx = next;
+        }
+        return idx;
+    }
+
+    // Replace keys by their rank among the distinct keys (0..d-1) so key and position fit in one long
+    private static int[] denseRanks(long[] keys) {
+        long[] sorted = keys.clone();
+        Arrays.parallelSort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) sorted[distinct++] = sorted[i];
+        }
+        int[] ranks = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) ranks[i] = Arrays.binarySearch(sorted, 0, distinct, keys[i]);
+        return ranks;
+    }
+
+    // FX thread: swap in the new order as one change
+    private void publish(int[] positions) {
+        int n = positions.length;
+        int sourceSize = getSource().size();
+        int[] newViewOf = new int[sourceSize];
+        Arrays.fill(newViewOf, -1);
+        for (int i = 0; i < n; i++) newViewOf[positions[i]] = i;
+
+        boolean sameRows = n == size;
+        for (int p = 0; sameRows && p < size; p++) sameRows = newViewOf[view[p]] >= 0;
+
+        int[] old = Arrays.copyOf(view, size);
+        view = Arrays.copyOf(positions, Math.max(16, n));
+        size = n;
+        beginChange();
+        if (sameRows) {
+            int[] perm = new int[n];
+            boolean moved = false;
+            for (int p = 0; p < n; p++) {
+                perm[p] = newViewOf[old[p]];
+                moved |= perm[p] != p;
+            }
+            if (moved) nextPermutation(0, n, perm);
+        } else {
+            List<T> removed = new ArrayList<>(old.length);
+            for (int s : old) removed.add(getSource().get(s));
+            nextReplace(0, n, removed);
+        }
+        endChange();
+    }
+
+    // --- Source changes ---
+
+    @Override
+    protected void sourceChanged(ListChangeListener.Change<? extends T> c) {
+        if (!mapped) {
+            forward(c);
+            return;
+        }
+        beginChange();
+        while (c.next()) {
+            if (c.wasPermutated()) {
+                for (int p = 0; p < size; p++) {
+                    int s = view[p];
+                    if (s >= c.getFrom() && s < c.getTo()) view[p] = c.getPermutation(s);
+                }
+            } else if (c.wasUpdated()) {
+                for (int p = 0; p < size; p++) {
+                    if (view[p] >= c.getFrom() && view[p] < c.getTo()) nextUpdate(p);
+                }
+            } else if (c.wasReplaced() && c.getRemovedSize() == c.getAddedSize()) {
+                replaced(c);
+            } else {
+                if (c.wasRemoved()) removed(c);
+                if (c.wasAdded()) added(c);
+            }
+        }
+        endChange();
+        stamp++;
+        scheduleSort();
+    }
+
+    private void forward(ListChangeListener.Change<? extends T> c) {
+        beginChange();
+        while (c.next()) {
+            if (c.wasPermutated()) {
+                int[] perm = new int[c.getTo() - c.getFrom()];
+                for (int i = 0; i < perm.length; i++) perm[i] = c.getPermutation(c.getFrom() + i);
+                nextPermutation(c.getFrom(), c.getTo(), perm);
+            } else if (c.wasUpdated()) {
+                for (int i = c.getFrom(); i < c.getTo(); i++) nextUpdate(i);
+            } else {
+                if (c.wasRemoved()) nextRemove(c.getFrom(), new ArrayList<>(c.getRemoved()));
+                if (c.wasAdded()) nextAdd(c.getFrom(), c.getTo());
+            }
+        }
+        endChange();
+    }
+
+    // Rows left the source: drop them from the view and shift later source positions down
+    private void removed(ListChangeListener.Change<? extends T> c) {
+        int from = c.getFrom();
+        int count = c.getRemovedSize();
+        List<? extends T> gone = c.getRemoved();
+        int kept = 0;
+        for (int p = 0; p < size; p++) {
+            int s = view[p];
+            if (s >= from && s < from + count) {
+                nextRemove(kept, gone.get(s - from));
+            } else {
+                view[kept++] = s >= from + count ? s - count : s;
+            }
+        }
+        size = kept;
+    }
+
+    // New source rows: shift later positions up and append the visible ones until the sort lands
+    private void added(ListChangeListener.Change<? extends T> c) {
+        int from = c.getFrom();
+        int count = c.getTo() - from;
+        for (int p = 0; p < size; p++) {
+            if (view[p] >= from) view[p] += count;
+        }
+        int start = size;
+        for (int s = from; s < c.getTo(); s++) {
+            if (filter != null && !filter.test(getSource().get(s))) continue;
+            if (size == view.length) view = Arrays.copyOf(view, size * 2);
+            view[size++] = s;
+        }
+        if (size > start) nextAdd(start, size);
+    }
+
+    // Same-size replacement (set/replaceById): a row keeps its place if it still passes the filter
+    private void replaced(ListChangeListener.Change<? extends T> c) {
+        int from = c.getFrom();
+        int to = c.getTo();
+        List<? extends T> old = c.getRemoved();
+        int[] viewOf = new int[to - from];
+        Arrays.fill(viewOf, -1);
+        for (int p = 0; p < size; p++) {
+            if (view[p] >= from && view[p] < to) viewOf[view[p] - from] = p;
+        }
+        List<Integer> hidden = new ArrayList<>();
+        for (int s = from; s < to; s++) {
+            int p = viewOf[s - from];
+            boolean visible = filter == null || filter.test(getSource().get(s));
+            if (p >= 0 && visible) {
+                nextSet(p, old.get(s - from));
+            } else if (p >= 0) {
+                hidden.add(p);
+            } else if (visible) {
+                if (size == view.length) view = Arrays.copyOf(view, size * 2);
+                view[size] = s;
+                nextAdd(size, size + 1);
+                size++;
+            }
+        }
+        // Remove from the highest view position down so earlier positions stay valid
+        hidden.sort(null);
+        for (int i = hidden.size() - 1; i >= 0; i--) {
+            int p = hidden.get(i);
+            nextRemove(p, old.get(view[p] - from));
+            System.arraycopy(view, p + 1, view, p, size - p - 1);
+            size--;
+        }
+    }
+
+    // Read-only List over rows picked by position, so keys are extracted without copying rows
+    private static final class Positions<T> extends AbstractList<T> {
+        private final List<T> rows;
+        private final int[] idx;
+
+        Positions(List<T> rows, int[] idx) {
+            this.rows = rows;
+            this.idx = idx;
+        }
+
+        @Override public T get(int i) { return rows.get(idx[i]); }
+        @Override public int size() { return idx.length; }
+    }
+}
@@ -0,0 +1,335 @@
+package com.demo.ui.collections;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+// ObservableList of entities with unique int ids plus an id -> position index, so replacing,
+// removing or finding a row by id costs a hash lookup instead of an indexOf scan.
+//
+// The index stores head + position. Rows added or removed at either end leave every other
+// entry valid (adding on top just moves head), which covers what the ViewModels do: creates and
+// incremental inserts go on top, streaming chunks are appended. An edit in the middle only marks
+// the entries from that position on as stale; they are rewritten in one pass by the next lookup
+// that needs them, so a burst of middle removals costs one repair, not one per removal.
+//
+// Sorting and filtering for display go through SortedList/FilteredList views (TableView wraps
+// its items that way), which never reorder this list. Sorting it directly (sort(), or the
+// TableView policy's FXCollections.sort -> setAll) rebuilds the index in the same call.
+//
+// Ids must be unique: adding a row whose id is already present throws IllegalArgumentException
+// and leaves the list unchanged. FX thread only, like any list bound to a control.
+public class IdIndexedList<T> extends ObservableListBase<T> {
+
+    private static final int MISSING = Integer.MIN_VALUE;
+
+    private final ToIntFunction<? super T> idOf;
+    private ArrayList<T> rows = new ArrayList<>();
+    private IntIntMap index = new IntIntMap(16);
+    private int head;
+    private int cleanUpTo;    // index entries for positions below this are exact
+    private long repairCount;
+
+    public IdIndexedList(ToIntFunction<? super T> idOf) {
+        this.idOf = idOf;
+    }
+
+    // --- Id access ---
+
+    public int indexOfId(int id) {
+        int key = index.get(id, MISSING);
+        if (key == MISSING) return -1;
+        int pos = key - head;
+        if (pos >= 0 && pos < cleanUpTo && idOf.applyAsInt(rows.get(pos)) == id) return pos;
+        repair();
+        return index.get(id, MISSING) - head;
+    }
+
+    public boolean containsId(int id) {
+        return index.containsKey(id);
+    }
+
+    public T getById(int id) {
+        int pos = indexOfId(id);
+        return pos < 0 ? null : rows.get(pos);
+    }
+
+    // Puts row where the row with the same id is; returns the row it replaced, or null if absent
+    public T replaceById(T row) {
+        int pos = indexOfId(idOf.applyAsInt(row));
+        if (pos < 0) return null;
+        T old = rows.get(pos);
+        if (old != row) set(pos, row);
+        return old;
+    }
+
+    public T removeById(int id) {
+        int pos = indexOfId(id);
+        return pos < 0 ? null : remove(pos);
+    }
+
+    public long repairCount() { return repairCount; }
+
+    // --- List ---
+
+    @Override
+    public T get(int i) {
+        return rows.get(i);
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        int pos = o == null ? -1 : indexOfId(idOfUnchecked(o));
+        return pos >= 0 && Objects.equals(rows.get(pos), o) ? pos : -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public boolean add(T row) {
+        add(rows.size(), row);
+        return true;
+    }
+
+    @Override
+    public void add(int i, T row) {
+        insert(i, List.of(row));
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends T> c) {
+        return insert(rows.size(), c);
+    }
+
+    @Override
+    public boolean addAll(int i, Collection<? extends T> c) {
+        return insert(i, c);
+    }
+
+    @Override
+    public T set(int i, T row) {
+        T old = rows.get(i);
+        int oldId = idOf.applyAsInt(old);
+        int newId = idOf.applyAsInt(row);
+        if (newId != oldId) {
+            if (index.containsKey(newId)) throw duplicate(newId);
+            index.remove(oldId);
+            index.put(newId, head + i);
+        }
+        rows.set(i, row);
+        beginChange();
+        nextSet(i, old);
+        endChange();
+        return old;
+    }
+
+    @Override
+    public T remove(int i) {
+        T old = rows.get(i);
+        removeRange(i, i + 1);
+        return old;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int pos = indexOf(o);
+        if (pos < 0) return false;
+        remove(pos);
+        return true;
+    }
+
+    @Override
+    public void remove(int from, int to) {
+        removeRange(from, to);
+    }
+
+    @Override
+    protected void removeRange(int from, int to) {
+        Objects.checkFromToIndex(from, to, rows.size());
+        if (from == to) return;
+        List<T> block = rows.subList(from, to);
+        List<T> removed = new ArrayList<>(block);
+        for (T row : removed) index.remove(idOf.applyAsInt(row));
+        block.clear();
+        if (from == 0) {
+            head += removed.size();
+            cleanUpTo = Math.max(0, cleanUpTo - removed.size());
+        } else {
+            cleanUpTo = Math.min(cleanUpTo, from);
+        }
+        modCount++;
+        beginChange();
+        nextRemove(from, removed);
+        endChange();
+    }
+
+    @Override
+    public void clear() {
+        removeRange(0, rows.size());
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        return removeMatching(c::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        return removeMatching(row -> !c.contains(row));
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super T> filter) {
+        return removeMatching(filter);
+    }
+
+    @Override
+    public boolean setAll(Collection<? extends T> c) {
+        IntIntMap fresh = new IntIntMap(c.size());
+        int pos = 0;
+        for (T row : c) {
+            int id = idOf.applyAsInt(row);
+            if (!fresh.putIfAbsent(id, pos++)) throw duplicate(id);
+        }
+        if (rows.isEmpty() && c.isEmpty()) return false;
+        List<T> removed = rows;
+        rows = new ArrayList<>(c);
+        index = fresh;
+        head = 0;
+        cleanUpTo = rows.size();
+        modCount++;
+        beginChange();
+        nextReplace(0, rows.size(), removed);
+        endChange();
+        return true;
+    }
+
+    // Stable sort of the list itself, reported as one permutation
+    @Override
+    public void sort(Comparator<? super T> comparator) {
+        int n = rows.size();
+        if (n < 2) return;
+        @SuppressWarnings("unchecked")
+        Comparator<? super T> order = comparator != null ? comparator
+            : (a, b) -> ((Comparable<? super T>) a).compareTo(b);
+        List<Slot<T>> slots = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) slots.add(new Slot<>(rows.get(i), i));
+        slots.sort((a, b) -> order.compare(a.row(), b.row()));
+        int[] perm = new int[n];
+        for (int i = 0; i < n; i++) {
+            Slot<T> s = slots.get(i);
+            perm[s.from()] = i;
+            rows.set(i, s.row());
+        }
+        head = 0;
+        cleanUpTo = 0;
+        repair();
+        modCount++;
+        beginChange();
+        nextPermutation(0, n, perm);
+        endChange();
+    }
+
+    // --- Internals ---
+
+    private boolean insert(int i, Collection<? extends T> c) {
+        Objects.checkIndex(i, rows.size() + 1);
+        if (c.isEmpty()) return false;
+        List<T> block = new ArrayList<>(c);
+        // Claim every id first so a duplicate rejects the whole call before anything moves
+        for (int k = 0; k < block.size(); k++) {
+            int id = idOf.applyAsInt(block.get(k));
+            if (!index.putIfAbsent(id, 0)) {
+                for (int u = 0; u < k; u++) index.remove(idOf.applyAsInt(block.get(u)));
+                throw duplicate(id);
+            }
+        }
+        int n = rows.size();
+        int k = block.size();
+        if (i == 0 && n > 0) {
+            head -= k;
+            rows.addAll(0, block);
+            cleanUpTo += k;
+        } else if (i == n) {
+            rows.addAll(block);
+            if (cleanUpTo == n) cleanUpTo = n + k;
+        } else {
+            rows.addAll(i, block);
+            cleanUpTo = Math.min(cleanUpTo, i + k);
+        }
+        for (int u = 0; u < k; u++) index.put(idOf.applyAsInt(block.get(u)), head + i + u);
+        modCount++;
+        beginChange();
+        nextAdd(i, i + k);
+        endChange();
+        return true;
+    }
+
+    // One change event for any number of removed rows, however scattered. The filter runs
+    // before anything is touched, so a throwing filter leaves the list as it was.
+    private boolean removeMatching(Predicate<? super T> filter) {
+        int n = rows.size();
+        BitSet gone = new BitSet(n);
+        for (int i = 0; i < n; i++) {
+            if (filter.test(rows.get(i))) gone.set(i);
+        }
+        int first = gone.nextSetBit(0);
+        if (first < 0) return false;
+
+        ArrayList<T> kept = new ArrayList<>(n - gone.cardinality());
+        kept.addAll(rows.subList(0, first));
+        beginChange();
+        int i = first;
+        while (i >= 0) {
+            int end = gone.nextClearBit(i);
+            List<T> run = new ArrayList<>(rows.subList(i, end));
+            for (T row : run) index.remove(idOf.applyAsInt(row));
+            nextRemove(kept.size(), run);
+            int next = gone.nextSetBit(end);
+            kept.addAll(rows.subList(end, next < 0 ? n : next));
+            i = next;
+        }
+        rows = kept;
+        cleanUpTo = Math.min(cleanUpTo, first);
+        modCount++;
+        endChange();
+        return true;
+    }
+
+    private void repair() {
+        int n = rows.size();
+        for (int i = cleanUpTo; i < n; i++) index.put(idOf.applyAsInt(rows.get(i)), head + i);
+        if (cleanUpTo < n) repairCount++;
+        cleanUpTo = n;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int idOfUnchecked(Object o) {
+        try {
+            return idOf.applyAsInt((T) o);
+        } catch (ClassCastException e) {
+            return MISSING;
+        }
+    }
+
+    private static IllegalArgumentException duplicate(int id) {
+        return new IllegalArgumentException("Duplicate id " + id);
+    }
+
+    private record Slot<T>(T row, int from) { }
+}
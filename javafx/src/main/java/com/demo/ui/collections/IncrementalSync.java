@@ -0,0 +1,98 @@
+package com.demo.ui.collections;
+
+import com.demo.ui.services.Delta;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.ToIntFunction;
+
+// Keeps an already loaded list (newest id first, as the API returns it) in step with the
+// backend by merging "changed since" deltas in place instead of replacing every row.
+//
+// The high-water mark is the largest updated_at seen. Timestamps are ISO-8601 UTC with a fixed
+// width, so string order is time order and nothing needs parsing. Deleted rows cannot show up
+// in a delta; they are found by comparing the server's row count with ours and, only when the
+// counts disagree, diffing against the server's id set. Rows edited locally but not saved yet
+// are left out of that comparison (unsent, keep).
+public class IncrementalSync<T> {
+
+    private final ToIntFunction<T> idOf;
+    private final Function<T, String> updatedAtOf;
+
+    private String highWaterMark;
+    private long mergedCount;
+
+    public IncrementalSync(ToIntFunction<T> idOf, Function<T, String> updatedAtOf) {
+        this.idOf = idOf;
+        this.updatedAtOf = updatedAtOf;
+    }
+
+    // A full load is starting: forget the mark until its rows have been observed
+    public synchronized void reset() {
+        highWaterMark = null;
+    }
+
+    // Advance the mark past these rows; safe to call from the loading thread
+    public synchronized void observe(Collection<? extends T> rows) {
+        for (T row : rows) {
+            String stamp = updatedAtOf.apply(row);
+            if (stamp != null && (highWaterMark == null || stamp.compareTo(highWaterMark) > 0)) {
+                highWaterMark = stamp;
+            }
+        }
+    }
+
+    public synchronized String highWaterMark() { return highWaterMark; }
+    public synchronized boolean isPrimed() { return highWaterMark != null; }
+
+    // FX thread. Upserts the changed rows; returns true when the list size no longer matches
+    // the server's count, i.e. rows were deleted and removeMissing should follow.
+    public boolean merge(IdIndexedList<T> list, Delta<T> delta) {
+        upsert(list, delta);
+        return countsDiffer(list, delta, 0);
+    }
+
+    // FX thread. The changed rows go in where their id is, new ones on top
+    public void upsert(IdIndexedList<T> list, Delta<T> delta) {
+        observe(delta.changed());
+
+        List<T> inserts = new ArrayList<>();
+        for (T row : delta.changed()) {
+            if (list.replaceById(row) == null) inserts.add(row);
+        }
+        if (!inserts.isEmpty()) {
+            inserts.sort(Comparator.comparingInt(idOf).reversed());
+            list.addAll(0, inserts);
+        }
+        mergedCount += delta.changed().size();
+    }
+
+    // FX thread. True when the list, less the rows it shows that the server cannot count yet
+    // (unsent: unsaved creates minus unsaved deletes), holds a different number of rows than the server
+    public boolean countsDiffer(IdIndexedList<T> list, Delta<T> delta, int unsent) {
+        return delta.totalCount() >= 0 && list.size() - unsent != delta.totalCount();
+    }
+
+    // FX thread. Removes every row whose id the server no longer has, in one list change
+    public int removeMissing(IdIndexedList<T> list, int[] serverIds) {
+        return removeMissing(list, serverIds, id -> false);
+    }
+
+    // Same, but rows whose id passes keep stay (unsaved local rows the server has not seen)
+    public int removeMissing(IdIndexedList<T> list, int[] serverIds, IntPredicate keep) {
+        IntIntMap alive = new IntIntMap(serverIds.length);
+        for (int id : serverIds) alive.put(id, 0);
+        int before = list.size();
+        list.removeIf(row -> {
+            int id = idOf.applyAsInt(row);
+            return !alive.containsKey(id) && !keep.test(id);
+        });
+        return before - list.size();
+    }
+
+    public long mergedCount() { return mergedCount; }
+}
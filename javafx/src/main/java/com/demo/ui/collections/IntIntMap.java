@@ -0,0 +1,150 @@
+package com.demo.ui.collections;
+
+import java.util.Arrays;
+
+// Open-addressing int -> int hash map (linear probing, backward-shift deletion) so id lookups
+// neither box nor allocate. Not thread-safe.
+final class IntIntMap {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    IntIntMap(int expected) {
+        allocate(capacityFor(expected));
+    }
+
+    int size() { return size; }
+
+    int get(int key, int missing) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) return values[i];
+            i = (i + 1) & mask;
+        }
+        return missing;
+    }
+
+    boolean containsKey(int key) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    // Returns false (and leaves the map unchanged) when the key is already present
+    boolean putIfAbsent(int key, int value) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) return false;
+            i = (i + 1) & mask;
+        }
+        insertAt(i, key, value);
+        return true;
+    }
+
+    void put(int key, int value) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        insertAt(i, key, value);
+    }
+
+    boolean remove(int key) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) {
+                shiftBack(i);
+                size--;
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    // Drop to a table sized for the expected count instead of keeping a large one around
+    void clear(int expected) {
+        int capacity = capacityFor(expected);
+        if (capacity == keys.length) clear();
+        else allocate(capacity);
+    }
+
+    private void insertAt(int i, int key, int value) {
+        keys[i] = key;
+        values[i] = value;
+        used[i] = true;
+        if (++size > resizeAt) rehash(keys.length * 2);
+    }
+
+    // Close the gap left at i by moving back any later entry of the same probe run that
+    // may no longer be reachable, so lookups never need tombstones
+    private void shiftBack(int i) {
+        int gap = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (!used[j]) break;
+            int home = slot(keys[j]);
+            boolean reachable = gap <= j ? (home > gap && home <= j) : (home > gap || home <= j);
+            if (!reachable) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        used[gap] = false;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (!oldUsed[i]) continue;
+            int j = slot(oldKeys[i]);
+            while (used[j]) j = (j + 1) & mask;
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+            used[j] = true;
+            size++;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+        size = 0;
+    }
+
+    private int slot(int key) {
+        // Fibonacci hashing spreads sequential ids across the table
+        return (key * 0x9E3779B9 >>> 16 ^ key * 0x9E3779B9) & mask;
+    }
+
+    private static int capacityFor(int expected) {
+        int needed = (int) Math.ceil(Math.max(expected, 4) / LOAD_FACTOR) + 1;
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+}
@@ -0,0 +1,308 @@
+package com.demo.ui.collections;
+
+import com.demo.ui.tasks.TaskRunner;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+// Read-mostly ObservableList filled one keyset page at a time.
+// A TableView only calls get() for the rows it is about to show, so:
+//  - touching a row within prefetchDistance of the end fetches the next page,
+//  - at most maxResidentPages pages keep their rows; the least recently used page is dropped and
+//    reads as placeholders until it is shown again and re-fetched by its stored cursor.
+// All state is confined to the FX thread; fetches run on the TaskRunner.
+public class PagedList<T> extends ObservableListBase<T> {
+
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        // afterKey == null asks for the first page
+        List<T> load(Integer afterKey, int limit) throws Exception;
+    }
+
+    private static final class Page<T> {
+        final Integer afterKey;   // cursor that produced this page
+        int firstKey;             // key of its first row; firstKey..lastKey is the page's key range
+        int lastKey;              // cursor for the page after this one
+        int size;
+        List<T> rows;             // null while evicted
+        boolean loading;
+        long lastUsed;
+
+        Page(Integer afterKey) { this.afterKey = afterKey; }
+    }
+
+    private final PageLoader<T> loader;
+    private final ToIntFunction<T> keyOf;
+    private final T placeholder;
+    private final int pageSize;
+    private final int maxResidentPages;
+    private final int prefetchDistance;
+    private final TaskRunner tasks = TaskRunner.shared();
+
+    private final List<Page<T>> pages = new ArrayList<>();
+    private int[] starts = new int[0];
+    private int size;
+    private boolean exhausted;
+    private boolean loadingNext;
+    private int generation;
+    private long tick;
+    private Consumer<Exception> onError = e -> { };
+
+    public PagedList(PageLoader<T> loader, ToIntFunction<T> keyOf, T placeholder,
+                     int pageSize, int maxResidentPages) {
+        this.loader = loader;
+        this.keyOf = keyOf;
+        this.placeholder = placeholder;
+        this.pageSize = pageSize;
+        this.maxResidentPages = Math.max(2, maxResidentPages);
+        this.prefetchDistance = Math.max(1, pageSize / 4);
+    }
+
+    public void setOnError(Consumer<Exception> onError) { this.onError = onError; }
+
+    public boolean isPlaceholder(T item) { return item == placeholder; }
+    public boolean isExhausted() { return exhausted; }
+
+    public int residentPageCount() {
+        int n = 0;
+        for (Page<T> p : pages) if (p.rows != null) n++;
+        return n;
+    }
+
+    // Drop everything and start again from the first page
+    public void reset() {
+        generation++;
+        int oldSize = size;
+        List<T> removed = snapshotForRemoval();
+        pages.clear();
+        starts = new int[0];
+        size = 0;
+        exhausted = false;
+        loadingNext = false;
+        if (oldSize > 0) {
+            beginChange();
+            nextRemove(0, removed);
+            endChange();
+        }
+        loadNextPage();
+    }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        if (!exhausted && index >= size - prefetchDistance) loadNextPage();
+        int p = pageOf(index);
+        Page<T> page = pages.get(p);
+        if (page.rows == null) {
+            reload(page);
+            return placeholder;
+        }
+        page.lastUsed = ++tick;
+        return page.rows.get(index - starts[p]);
+    }
+
+    // --- Local edits on resident rows (identity match, bounded by the resident window) ---
+
+    // The resident row with this key, or null (not loaded, evicted, or not in the list)
+    public T residentRow(int key) {
+        for (Page<T> page : pages) {
+            if (page.rows == null || key < Math.min(page.firstKey, page.lastKey)
+                    || key > Math.max(page.firstKey, page.lastKey)) continue;
+            for (T row : page.rows) {
+                if (row != placeholder && keyOf.applyAsInt(row) == key) return row;
+            }
+        }
+        return null;
+    }
+
+    public boolean replaceRow(T old, T updated) {
+        for (int p = 0; p < pages.size(); p++) {
+            Page<T> page = pages.get(p);
+            if (page.rows == null) continue;
+            int i = indexOfIdentity(page.rows, old);
+            if (i >= 0) {
+                page.rows.set(i, updated);
+                beginChange();
+                nextSet(starts[p] + i, old);
+                endChange();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean removeRow(T row) {
+        for (int p = 0; p < pages.size(); p++) {
+            Page<T> page = pages.get(p);
+            if (page.rows == null) continue;
+            int i = indexOfIdentity(page.rows, row);
+            if (i >= 0) {
+                page.rows.remove(i);
+                page.size--;
+                int at = starts[p] + i;
+                recomputeStarts();
+                beginChange();
+                nextRemove(at, row);
+                endChange();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void insertFirst(T row) {
+        if (pages.isEmpty() || pages.get(0).rows == null) {
+            reset();
+            return;
+        }
+        Page<T> first = pages.get(0);
+        first.rows.add(0, row);
+        first.firstKey = keyOf.applyAsInt(row);
+        first.size++;
+        recomputeStarts();
+        beginChange();
+        nextAdd(0, 1);
+        endChange();
+    }
+
+    // --- Loading ---
+
+    private void loadNextPage() {
+        if (loadingNext || exhausted) return;
+        loadingNext = true;
+        int gen = generation;
+        Integer afterKey = pages.isEmpty() ? null : pages.get(pages.size() - 1).lastKey;
+        tasks.submit("load-page",
+            () -> loader.load(afterKey, pageSize),
+            rows -> {
+                if (gen != generation) return;
+                loadingNext = false;
+                appendPage(afterKey, rows);
+            },
+            e -> {
+                if (gen != generation) return;
+                loadingNext = false;
+                onError.accept(e);
+            }
+        );
+    }
+
+    private void appendPage(Integer afterKey, List<T> rows) {
+        if (rows.size() < pageSize) exhausted = true;
+        if (rows.isEmpty()) return;
+        Page<T> page = new Page<>(afterKey);
+        page.rows = new ArrayList<>(rows);
+        page.size = rows.size();
+        page.firstKey = keyOf.applyAsInt(rows.get(0));
+        page.lastKey = keyOf.applyAsInt(rows.get(rows.size() - 1));
+        page.lastUsed = ++tick;
+        int from = size;
+        pages.add(page);
+        recomputeStarts();
+        beginChange();
+        nextAdd(from, size);
+        endChange();
+        evictIfNeeded(page);
+    }
+
+    private void reload(Page<T> page) {
+        if (page.loading) return;
+        page.loading = true;
+        int gen = generation;
+        int expected = page.size;
+        tasks.submit("reload-page",
+            () -> loader.load(page.afterKey, expected),
+            rows -> {
+                page.loading = false;
+                if (gen != generation || page.rows != null) return;
+                // Rows may have been deleted server-side since the page was first seen. The cursor
+                // then reads on into the next page's rows, which are not this page's to show: keep
+                // only keys within the page's range, and pad to the old size so row positions do
+                // not shift under the table.
+                int lo = Math.min(page.firstKey, page.lastKey);
+                int hi = Math.max(page.firstKey, page.lastKey);
+                List<T> restored = new ArrayList<>(expected);
+                for (T row : rows) {
+                    int key = keyOf.applyAsInt(row);
+                    if (key >= lo && key <= hi && restored.size() < expected) restored.add(row);
+                }
+                while (restored.size() < expected) restored.add(placeholder);
+                page.rows = restored;
+                page.lastUsed = ++tick;
+                int from = starts[pages.indexOf(page)];
+                beginChange();
+                nextReplace(from, from + expected, Collections.nCopies(expected, placeholder));
+                endChange();
+                evictIfNeeded(page);
+            },
+            e -> {
+                page.loading = false;
+                if (gen == generation) onError.accept(e);
+            }
+        );
+    }
+
+    private void evictIfNeeded(Page<T> keep) {
+        while (residentPageCount() > maxResidentPages) {
+            int victim = -1;
+            for (int p = 0; p < pages.size(); p++) {
+                Page<T> page = pages.get(p);
+                if (page.rows == null || page == keep) continue;
+                if (victim < 0 || page.lastUsed < pages.get(victim).lastUsed) victim = p;
+            }
+            if (victim < 0) return;
+            Page<T> page = pages.get(victim);
+            List<T> dropped = page.rows;
+            page.rows = null;
+            beginChange();
+            nextReplace(starts[victim], starts[victim] + page.size, dropped);
+            endChange();
+        }
+    }
+
+    // --- Helpers ---
+
+    private int pageOf(int index) {
+        int lo = 0, hi = starts.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (starts[mid] <= index) lo = mid;
+            else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    private void recomputeStarts() {
+        starts = new int[pages.size()];
+        int s = 0;
+        for (int p = 0; p < pages.size(); p++) {
+            starts[p] = s;
+            s += pages.get(p).size;
+        }
+        size = s;
+    }
+
+    private List<T> snapshotForRemoval() {
+        List<T> removed = new ArrayList<>(size);
+        for (Page<T> page : pages) {
+            if (page.rows != null) removed.addAll(page.rows);
+            else removed.addAll(Collections.nCopies(page.size, placeholder));
+        }
+        return removed;
+    }
+
+    private static <T> int indexOfIdentity(List<T> rows, T item) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i) == item) return i;
+        }
+        return -1;
+    }
+}
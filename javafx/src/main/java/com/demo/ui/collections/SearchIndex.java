@@ -0,0 +1,245 @@
+package com.demo.ui.collections;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+// In-memory inverted index over a few text fields of a loaded list: token -> ids, kept in a
+// sorted map so a query word matches every token it is a prefix of with one range scan.
+//
+// Fed by the list's own change events. The FX thread only copies what changed; tokenizing and
+// posting run on one background thread per index, in change order, a chunk at a time so a query
+// never waits behind a whole 100k-row reload. Queries answer from the postings alone (no row is
+// rescanned) and return the matching ids as a BitSet, every query word required.
+public class SearchIndex<T> {
+
+    private static final int CHUNK = 1000;
+    private static final char DIGIT_RUN = '#';
+    private static final int MIN_DIGIT_RUN_QUERY = 4;
+
+    private final ToIntFunction<? super T> idOf;
+    private final Function<? super T, String[]> fieldsOf;
+    private final ExecutorService indexer;
+
+    private final TreeMap<String, Posting> postings = new TreeMap<>();
+    // Whole-field digit runs ("5551234567") live apart: a short prefix such as "555" would
+    // otherwise scan one entry per phone number
+    private final TreeMap<String, Posting> digitRuns = new TreeMap<>();
+    private final Map<Integer, String[]> tokensOf = new HashMap<>();
+    private final List<Runnable> onIndexed = new CopyOnWriteArrayList<>();
+    private ObservableList<T> attached;
+    private ListChangeListener<T> listener;
+
+    private long queryCount;
+    private long lastQueryNanos;
+
+    public SearchIndex(String name, ToIntFunction<? super T> idOf, Function<? super T, String[]> fieldsOf) {
+        this.idOf = idOf;
+        this.fieldsOf = fieldsOf;
+        this.indexer = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("search-" + name).factory());
+    }
+
+    // FX thread. Indexes the current rows and follows every later change of the list
+    public void attach(ObservableList<T> list) {
+        submit(true, new int[0], new ArrayList<>(list));
+        attached = list;
+        listener = c -> {
+            List<Integer> removed = new ArrayList<>();
+            List<T> added = new ArrayList<>();
+            while (c.next()) {
+                if (c.wasPermutated()) continue;
+                if (c.wasUpdated()) {
+                    added.addAll(c.getList().subList(c.getFrom(), c.getTo()));
+                    continue;
+                }
+                for (T row : c.getRemoved()) removed.add(idOf.applyAsInt(row));
+                added.addAll(c.getAddedSubList());
+            }
+            // Every old row went and every current row is new (setAll): start over instead of
+            // unposting row by row
+            boolean reset = !removed.isEmpty() && added.size() == list.size();
+            int[] ids = reset ? new int[0] : removed.stream().mapToInt(Integer::intValue).toArray();
+            if (reset || ids.length > 0 || !added.isEmpty()) submit(reset, ids, added);
+        };
+        list.addListener(listener);
+    }
+
+    // FX thread. The list is going away: stop following it and stop the indexing thread (queued
+    // batches are dropped). The list may still change afterwards (late save callbacks).
+    public void close() {
+        if (attached != null) attached.removeListener(listener);
+        attached = null;
+        indexer.shutdownNow();
+    }
+
+    // Called on the indexing thread after each change has been applied
+    public void addIndexedListener(Runnable r) { onIndexed.add(r); }
+
+    // Ids of rows matching every word of the query, or null for a blank query (no filtering)
+    public BitSet search(String query) {
+        List<String> words = tokens(query == null ? "" : query, false);
+        if (words.isEmpty()) return null;
+        long t0 = System.nanoTime();
+        BitSet result = null;
+        synchronized (this) {
+            for (String word : words) {
+                BitSet hits = new BitSet();
+                collect(postings, word, hits);
+                if (word.length() >= MIN_DIGIT_RUN_QUERY && isDigits(word)) collect(digitRuns, word, hits);
+                if (result == null) result = hits;
+                else result.and(hits);
+                if (result.isEmpty()) break;
+            }
+            queryCount++;
+            lastQueryNanos = System.nanoTime() - t0;
+        }
+        return result;
+    }
+
+    public synchronized int size() { return tokensOf.size(); }
+    public synchronized int tokenCount() { return postings.size() + digitRuns.size(); }
+    public synchronized long queryCount() { return queryCount; }
+    public synchronized long lastQueryNanos() { return lastQueryNanos; }
+
+    // --- Indexing thread ---
+
+    private void submit(boolean reset, int[] removedIds, List<T> rows) {
+        if (indexer.isShutdown()) return;
+        indexer.execute(() -> {
+            if (reset) {
+                synchronized (this) {
+                    postings.clear();
+                    digitRuns.clear();
+                    tokensOf.clear();
+                }
+            } else if (removedIds.length > 0) {
+                synchronized (this) {
+                    for (int id : removedIds) unpost(id);
+                }
+            }
+            for (int from = 0; from < rows.size(); from += CHUNK) {
+                List<T> chunk = rows.subList(from, Math.min(rows.size(), from + CHUNK));
+                // Tokenize outside the lock; only the postings update holds it
+                List<String[]> tokens = new ArrayList<>(chunk.size());
+                for (T row : chunk) tokens.add(tokensOf(row));
+                synchronized (this) {
+                    for (int i = 0; i < chunk.size(); i++) post(idOf.applyAsInt(chunk.get(i)), tokens.get(i));
+                }
+            }
+            for (Runnable r : onIndexed) r.run();
+        });
+    }
+
+    private String[] tokensOf(T row) {
+        Set<String> all = new LinkedHashSet<>();
+        for (String field : fieldsOf.apply(row)) {
+            if (field != null) all.addAll(tokens(field, true));
+        }
+        return all.toArray(new String[0]);
+    }
+
+    private void post(int id, String[] tokens) {
+        if (id < 0) return;
+        unpost(id);
+        tokensOf.put(id, tokens);
+        for (String t : tokens) {
+            if (t.charAt(0) == DIGIT_RUN) digitRuns.computeIfAbsent(t.substring(1), k -> new Posting()).add(id);
+            else postings.computeIfAbsent(t, k -> new Posting()).add(id);
+        }
+    }
+
+    private void unpost(int id) {
+        String[] tokens = tokensOf.remove(id);
+        if (tokens == null) return;
+        for (String t : tokens) {
+            TreeMap<String, Posting> map = postings;
+            if (t.charAt(0) == DIGIT_RUN) {
+                map = digitRuns;
+                t = t.substring(1);
+            }
+            Posting p = map.get(t);
+            if (p != null && p.remove(id) && p.size == 0) map.remove(t);
+        }
+    }
+
+    private static void collect(TreeMap<String, Posting> map, String prefix, BitSet hits) {
+        NavigableMap<String, Posting> range = map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        for (Posting p : range.values()) {
+            for (int i = 0; i < p.size; i++) hits.set(p.ids[i]);
+        }
+    }
+
+    // Lower-cased, accent-free runs of letters and digits. For indexed values the digits of the
+    // whole field are added as one more token (marked with DIGIT_RUN), so "5551234" finds "(555) 123-4".
+    static List<String> tokens(String text, boolean withDigitRun) {
+        String s = text.toLowerCase(Locale.ROOT);
+        if (!isAscii(s)) s = Normalizer.normalize(s, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        List<String> out = new ArrayList<>();
+        StringBuilder digits = new StringBuilder();
+        int start = -1;
+        int groups = 0;
+        for (int i = 0; i <= s.length(); i++) {
+            boolean word = i < s.length() && Character.isLetterOrDigit(s.charAt(i));
+            if (word && start < 0) start = i;
+            if (!word && start >= 0) {
+                String token = s.substring(start, i);
+                out.add(token);
+                if (isDigits(token)) {
+                    digits.append(token);
+                    groups++;
+                }
+                start = -1;
+            }
+        }
+        if (withDigitRun && groups > 1) out.add(DIGIT_RUN + digits.toString());
+        return out;
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) if (s.charAt(i) > 0x7f) return false;
+        return true;
+    }
+
+    private static boolean isDigits(String s) {
+        for (int i = 0; i < s.length(); i++) if (!Character.isDigit(s.charAt(i))) return false;
+        return true;
+    }
+
+    // Unordered id list; removal swaps in the last id
+    private static final class Posting {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        boolean remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
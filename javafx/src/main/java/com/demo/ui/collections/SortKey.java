@@ -0,0 +1,86 @@
+package com.demo.ui.collections;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+// Turns a column into one primitive long per row, computed once per sort instead of a getter
+// (and a boxed cell value) per comparison. Runs off the FX thread, so extractors may only read
+// the rows they are given.
+@FunctionalInterface
+public interface SortKey<T> {
+
+    // Missing values (null text/timestamps) sort first, as TableView's default comparator does
+    long MISSING = Long.MIN_VALUE;
+
+    long[] keys(List<? extends T> rows);
+
+    static <T> SortKey<T> ofInt(ToIntFunction<? super T> f) {
+        return rows -> {
+            long[] k = new long[rows.size()];
+            for (int i = 0; i < k.length; i++) k[i] = f.applyAsInt(rows.get(i));
+            return k;
+        };
+    }
+
+    static <T> SortKey<T> ofLong(ToLongFunction<? super T> f) {
+        return rows -> {
+            long[] k = new long[rows.size()];
+            for (int i = 0; i < k.length; i++) k[i] = f.applyAsLong(rows.get(i));
+            return k;
+        };
+    }
+
+    // ISO-8601 instants ("2024-05-01T10:00:00.000Z") or plain dates, as epoch millis
+    static <T> SortKey<T> ofTimestamp(Function<? super T, String> f) {
+        return rows -> {
+            long[] k = new long[rows.size()];
+            for (int i = 0; i < k.length; i++) k[i] = epochMillis(f.apply(rows.get(i)));
+            return k;
+        };
+    }
+
+    // Text has no fixed-width numeric form, so each value is replaced by its rank among the
+    // distinct values of this batch (natural String order, like the default cell comparator)
+    static <T> SortKey<T> ofText(Function<? super T, String> f) {
+        return rows -> {
+            int n = rows.size();
+            String[] values = new String[n];
+            int present = 0;
+            for (int i = 0; i < n; i++) {
+                String v = f.apply(rows.get(i));
+                values[i] = v;
+                if (v != null) present++;
+            }
+            String[] sorted = new String[present];
+            int j = 0;
+            for (String v : values) if (v != null) sorted[j++] = v;
+            Arrays.parallelSort(sorted);
+            long[] k = new long[n];
+            for (int i = 0; i < n; i++) {
+                k[i] = values[i] == null ? MISSING : Arrays.binarySearch(sorted, values[i]);
+            }
+            return k;
+        };
+    }
+
+    static long epochMillis(String text) {
+        if (text == null || text.isEmpty()) return MISSING;
+        try {
+            return Instant.parse(text).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDate.parse(text.length() > 10 ? text.substring(0, 10) : text)
+                    .atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+            } catch (DateTimeParseException e2) {
+                return MISSING;
+            }
+        }
+    }
+}
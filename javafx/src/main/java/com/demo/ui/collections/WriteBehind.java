@@ -0,0 +1,409 @@
+package com.demo.ui.collections;
+
+import com.demo.ui.services.ApiException;
+import com.demo.ui.services.BulkResult;
+import com.demo.ui.tasks.TaskRunner;
+import com.demo.ui.tasks.UiUpdateScheduler;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableMap;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+// Optimistic, write-behind editing of an IdIndexedList.
+//
+// An edit shows in the list at once and is queued; the queue is flushed in the background in
+// batches of up to maxBatch, `delay` after the first edit that found it idle, one batch at a time.
+// The row an edit carries is the whole row as the user now sees it (the shown row plus the form),
+// so the last edit wins per field, and edits to a row that has not been sent yet collapse into one:
+//   create + update  -> create with the updated row
+//   create + delete  -> nothing is sent
+//   update + update  -> one update, checked against what the first one was based on
+//   update + delete  -> delete
+//
+// Updates carry the updated_at of the server copy they were made against. The backend refuses an
+// update whose row has changed since with 409 and its current copy: that copy replaces the
+// optimistic row and the refused local version is kept in conflicts() for the user to re-apply
+// (keepMine) or drop. Other refusals (400, 404) roll the row back to its last server copy.
+// Transient failures (no response, 5xx, open circuit) keep the edits queued and retry with
+// backoff. A create is re-sent under the same temporary id, which the writer passes on as its
+// idempotency key, so one whose response was lost is not applied twice; if the row was deleted
+// meanwhile the create still goes out and the row it yields is then deleted. Deletes are not checked.
+//
+// New rows get temporary negative ids until the server assigns one. FX thread only; only the
+// writers run in the background.
+public class WriteBehind<T> {
+
+    public static final Duration DEFAULT_DELAY = Duration.ofMillis(500);
+    public static final int DEFAULT_MAX_BATCH = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    public enum Op { CREATE, UPDATE, DELETE }
+
+    // row: the whole row as shown (null for deletes). basis: updated_at of the server copy the
+    // edit was made against, null for rows the server has not seen yet.
+    public record Edit<T>(Op op, int id, T row, String basis) { }
+
+    // Sends one batch and reports one item per edit, in order. A refused update's item holds the
+    // server's current copy when it sent one (BulkResult).
+    @FunctionalInterface
+    public interface Writer<T, R> {
+        BulkResult<? extends R> write(List<Edit<T>> edits) throws Exception;
+    }
+
+    // What one flush did. error: the last failure seen, if any.
+    public record Report(int saved, int conflicts, int rejected, int retrying, Exception error) { }
+
+    private record Flushed<T>(BulkResult<? extends T> saved, Exception saveError, BulkResult<?> deleted, Exception deleteError) { }
+
+    private final String name;
+    private final IdIndexedList<T> list;
+    private final ToIntFunction<T> idOf;
+    private final Function<T, String> updatedAtOf;
+    private final BiFunction<T, Integer, T> withId;
+    private final Writer<T, T> save;
+    private final Writer<T, ?> delete;
+    private final TaskRunner tasks;
+    private final Executor ui;
+    private final long delayMillis;
+    private final int maxBatch;
+
+    // By id (the temporary one for unsent creates), oldest first
+    private final Map<Integer, Edit<T>> pending = new LinkedHashMap<>();
+    private final Map<Integer, Edit<T>> inFlight = new LinkedHashMap<>();
+    // Last server copy of each row with edits outstanding: the basis of its edits, and what a
+    // refused edit rolls back to
+    private final Map<Integer, T> confirmed = new HashMap<>();
+    private final ObservableMap<Integer, T> conflicts = FXCollections.observableHashMap();
+    // Temporary ids of retried creates deleted meanwhile: their server row is deleted once known
+    private final Set<Integer> deleteWhenCreated = new HashSet<>();
+
+    private Consumer<Report> onFlushed = report -> { };
+    private int nextTempId = -1;
+    private boolean scheduled;
+    private int failedFlushes;
+    private long editCount;
+    private long sentCount;
+    private long batchCount;
+
+    public WriteBehind(String name, IdIndexedList<T> list, ToIntFunction<T> idOf, Function<T, String> updatedAtOf,
+                       BiFunction<T, Integer, T> withId, Writer<T, T> save, Writer<T, ?> delete) {
+        this(name, list, idOf, updatedAtOf, withId, save, delete,
+            TaskRunner.shared(), UiUpdateScheduler.shared(), DEFAULT_DELAY, DEFAULT_MAX_BATCH);
+    }
+
+    // ui must be the executor tasks posts its callbacks to (the FX thread)
+    public WriteBehind(String name, IdIndexedList<T> list, ToIntFunction<T> idOf, Function<T, String> updatedAtOf,
+                       BiFunction<T, Integer, T> withId, Writer<T, T> save, Writer<T, ?> delete,
+                       TaskRunner tasks, Executor ui, Duration delay, int maxBatch) {
+        this.name = name;
+        this.list = list;
+        this.idOf = idOf;
+        this.updatedAtOf = updatedAtOf;
+        this.withId = withId;
+        this.save = save;
+        this.delete = delete;
+        this.tasks = tasks;
+        this.ui = ui;
+        this.delayMillis = delay.toMillis();
+        this.maxBatch = Math.max(1, maxBatch);
+    }
+
+    // --- Edits ---
+
+    // Shows a new row on top under a temporary id and returns it as shown
+    public T create(T row) {
+        int id = nextTempId--;
+        T shown = withId.apply(row, id);
+        list.add(0, shown);
+        enqueue(new Edit<>(Op.CREATE, id, shown, null));
+        return shown;
+    }
+
+    // Shows row in place of the row with its id; false if there is none
+    public boolean update(T row) {
+        int id = idOf.applyAsInt(row);
+        T current = list.getById(id);
+        if (current == null) return false;
+        track(id, current);
+        list.replaceById(row);
+        enqueue(new Edit<>(Op.UPDATE, id, row, basis(id)));
+        return true;
+    }
+
+    public boolean delete(int id) {
+        T current = list.getById(id);
+        if (current == null) return false;
+        track(id, current);
+        list.removeById(id);
+        enqueue(new Edit<>(Op.DELETE, id, null, basis(id)));
+        return true;
+    }
+
+    // Re-applies the refused local version of a conflicted row on top of the server's copy
+    public boolean keepMine(int id) {
+        T mine = conflicts.remove(id);
+        return mine != null && update(mine);
+    }
+
+    // Drops the refused local version; the server's copy stays
+    public void keepTheirs(int id) {
+        conflicts.remove(id);
+    }
+
+    // A load or sync put server copies in the list: show the outstanding edits on top again
+    public void reapply() {
+        for (Map<Integer, Edit<T>> edits : List.of(inFlight, pending)) {
+            for (Edit<T> e : edits.values()) {
+                switch (e.op()) {
+                    case CREATE -> {
+                        if (deleteWhenCreated.contains(e.id())) continue;
+                        if (list.replaceById(e.row()) == null) list.add(0, e.row());
+                    }
+                    case UPDATE -> list.replaceById(e.row());
+                    case DELETE -> list.removeById(e.id());
+                }
+            }
+        }
+    }
+
+    // --- State ---
+
+    public boolean isPending(int id) { return pending.containsKey(id) || inFlight.containsKey(id); }
+    public boolean isConflicted(int id) { return conflicts.containsKey(id); }
+    public ObservableMap<Integer, T> conflicts() { return conflicts; }
+    public int outstandingCount() { return pending.size() + inFlight.size(); }
+
+    // After reapply(): rows shown that the server does not have yet (creates) less rows it still
+    // has that are no longer shown (deletes), i.e. how far the list's size is off the server's count
+    public int unsentRowCount() {
+        int n = 0;
+        for (Map<Integer, Edit<T>> edits : List.of(inFlight, pending)) {
+            for (Edit<T> e : edits.values()) {
+                if (e.op() == Op.CREATE && !deleteWhenCreated.contains(e.id())) n++;
+                else if (e.op() == Op.DELETE) n--;
+            }
+        }
+        return n;
+    }
+    public void setOnFlushed(Consumer<Report> onFlushed) { this.onFlushed = onFlushed; }
+
+    // Edits made, edits actually sent (after merging) and batches
+    public long editCount() { return editCount; }
+    public long sentCount() { return sentCount; }
+    public long batchCount() { return batchCount; }
+
+    // --- Queue ---
+
+    // First edit of a server row since it was last confirmed: remember that copy. Editing a
+    // conflicted row resolves the conflict.
+    private void track(int id, T current) {
+        if (id > 0 && !isPending(id)) confirmed.put(id, current);
+        conflicts.remove(id);
+    }
+
+    private String basis(int id) {
+        T copy = confirmed.get(id);
+        return copy == null ? null : updatedAtOf.apply(copy);
+    }
+
+    private void enqueue(Edit<T> edit) {
+        editCount++;
+        Edit<T> earlier = pending.remove(edit.id());
+        Edit<T> merged = earlier == null ? edit : merge(earlier, edit);
+        if (merged != null) pending.put(edit.id(), merged);
+        else if (!inFlight.containsKey(edit.id())) confirmed.remove(edit.id());
+        schedule(pending.size() >= maxBatch ? 0 : delayMillis);
+    }
+
+    // One edit with the effect of earlier followed by later; null when they cancel out
+    private static <T> Edit<T> merge(Edit<T> earlier, Edit<T> later) {
+        return switch (earlier.op()) {
+            case CREATE -> later.op() == Op.DELETE ? null : new Edit<>(Op.CREATE, earlier.id(), later.row(), null);
+            case UPDATE -> new Edit<>(later.op(), earlier.id(), later.row(), earlier.basis());
+            // Nothing follows a delete: the row is no longer in the list to be edited
+            case DELETE -> earlier;
+        };
+    }
+
+    private void schedule(long delay) {
+        if (scheduled || !inFlight.isEmpty() || pending.isEmpty()) return;
+        scheduled = true;
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, ui).execute(this::flush);
+    }
+
+    // Sends the oldest pending edits now, unless a batch is already on its way
+    public void flush() {
+        scheduled = false;
+        if (!inFlight.isEmpty() || pending.isEmpty()) return;
+        List<Edit<T>> saves = new ArrayList<>();
+        List<Edit<T>> deletes = new ArrayList<>();
+        Iterator<Edit<T>> it = pending.values().iterator();
+        while (it.hasNext() && saves.size() + deletes.size() < maxBatch) {
+            Edit<T> e = it.next();
+            it.remove();
+            inFlight.put(e.id(), e);
+            (e.op() == Op.DELETE ? deletes : saves).add(e);
+        }
+        sentCount += saves.size() + deletes.size();
+        batchCount++;
+        tasks.submit("flush-" + name,
+            () -> {
+                // Each half reports on its own: a failed delete call must not resend the saves
+                BulkResult<? extends T> saved = null;
+                BulkResult<?> deleted = null;
+                Exception saveError = null, deleteError = null;
+                try {
+                    if (!saves.isEmpty()) saved = save.write(saves);
+                } catch (Exception e) {
+                    saveError = e;
+                }
+                try {
+                    if (!deletes.isEmpty()) deleted = delete.write(deletes);
+                } catch (Exception e) {
+                    deleteError = e;
+                }
+                return new Flushed<T>(saved, saveError, deleted, deleteError);
+            },
+            flushed -> settle(saves, deletes, flushed),
+            error -> settle(saves, deletes, new Flushed<>(null, error, null, error)));
+    }
+
+    // --- Outcomes ---
+
+    private void settle(List<Edit<T>> saves, List<Edit<T>> deletes, Flushed<T> flushed) {
+        int[] counts = new int[4]; // saved, conflicts, rejected, retrying
+        Exception[] last = { null };
+        for (int i = 0; i < saves.size(); i++) {
+            BulkResult.Item<? extends T> item = flushed.saved() != null ? flushed.saved().items().get(i) : null;
+            settle(saves.get(i), item != null ? item.value() : null,
+                item != null ? item.error() : flushed.saveError(), counts, last);
+        }
+        for (int i = 0; i < deletes.size(); i++) {
+            BulkResult.Item<?> item = flushed.deleted() != null ? flushed.deleted().items().get(i) : null;
+            settle(deletes.get(i), null, item != null ? item.error() : flushed.deleteError(), counts, last);
+        }
+        if (counts[3] > 0) {
+            failedFlushes++;
+            schedule(Math.min(MAX_BACKOFF_MILLIS, delayMillis << Math.min(failedFlushes, 16)));
+        } else {
+            failedFlushes = 0;
+            schedule(pending.size() >= maxBatch ? 0 : delayMillis);
+        }
+        onFlushed.accept(new Report(counts[0], counts[1], counts[2], counts[3], last[0]));
+    }
+
+    private void settle(Edit<T> e, T value, Exception error, int[] counts, Exception[] last) {
+        inFlight.remove(e.id());
+        int status = error instanceof ApiException api ? api.status() : -1;
+        if (error == null || e.op() == Op.DELETE && status == 404) {
+            saved(e, value);
+            counts[0]++;
+            return;
+        }
+        last[0] = error;
+        if (status == 409 && e.op() == Op.UPDATE) {
+            conflicted(e, value);
+            counts[1]++;
+        } else if (error instanceof IOException || error instanceof InterruptedException
+                   || error instanceof ApiException api && (api.isTransient() || api.status() == 0)) {
+            retry(e);
+            counts[3]++;
+        } else {
+            rejected(e, status);
+            counts[2]++;
+        }
+    }
+
+    private void saved(Edit<T> e, T copy) {
+        Edit<T> next = pending.remove(e.id());
+        if (e.op() == Op.DELETE || copy == null) {
+            if (next == null) confirmed.remove(e.id());
+            else pending.put(e.id(), next);
+            return;
+        }
+        int id = idOf.applyAsInt(copy);
+        confirmed.remove(e.id());
+        if (deleteWhenCreated.remove(e.id())) {
+            // A sync may have brought the server's row in already
+            list.removeById(id);
+            pending.put(id, new Edit<>(Op.DELETE, id, null, null));
+            return;
+        }
+        if (next == null) {
+            show(e.id(), copy);
+            return;
+        }
+        // Edited again meanwhile: those edits now apply on top of this server copy
+        confirmed.put(id, copy);
+        T row = next.row() == null || id == e.id() ? next.row() : withId.apply(next.row(), id);
+        if (row != null) show(e.id(), row);
+        pending.put(id, new Edit<>(next.op(), id, row, updatedAtOf.apply(copy)));
+    }
+
+    // Refused because the row changed on the server: show theirs, keep mine aside. Edits made
+    // on top of the refused one are part of "mine".
+    private void conflicted(Edit<T> e, T current) {
+        Edit<T> next = pending.remove(e.id());
+        T mine = next != null && next.row() != null ? next.row() : e.row();
+        T server = confirmed.remove(e.id());
+        if (current != null) server = current;
+        conflicts.put(e.id(), mine);
+        restore(e.id(), server);
+    }
+
+    private void rejected(Edit<T> e, int status) {
+        pending.remove(e.id());
+        deleteWhenCreated.remove(e.id());
+        T server = confirmed.remove(e.id());
+        if (e.op() == Op.CREATE || status == 404) list.removeById(e.id());
+        else restore(e.id(), server);
+    }
+
+    private void retry(Edit<T> e) {
+        Edit<T> next = pending.remove(e.id());
+        Edit<T> merged = next == null ? e : merge(e, next);
+        if (merged != null) {
+            pending.put(e.id(), merged);
+        } else if (e.op() == Op.CREATE) {
+            // Deleted while its create was out: the create may have landed, so it is sent again
+            pending.put(e.id(), e);
+            deleteWhenCreated.add(e.id());
+        } else {
+            confirmed.remove(e.id());
+        }
+    }
+
+    // Puts row where the row shown under shownId is (a create's row changes id here)
+    private void show(int shownId, T row) {
+        int id = idOf.applyAsInt(row);
+        if (id != shownId && list.containsId(id)) {
+            // A sync already brought the server's row in
+            list.removeById(shownId);
+            list.replaceById(row);
+            return;
+        }
+        int pos = list.indexOfId(shownId);
+        if (pos >= 0) list.set(pos, row);
+    }
+
+    private void restore(int id, T server) {
+        if (server == null) return;
+        if (list.replaceById(server) == null) list.add(0, server);
+    }
+}
@@ -1,15 +1,21 @@
 package com.demo.ui.controllers;
 
+import com.demo.ui.ViewRegistry;
+import com.demo.ui.cells.CellText;
+import com.demo.ui.cells.RowCell;
+import com.demo.ui.collections.BackgroundSortedList;
+import com.demo.ui.collections.SortKey;
 import com.demo.ui.models.Client;
 import com.demo.ui.viewmodels.ClientsViewModel;
-import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.property.SimpleStringProperty;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 
-public class ClientsController {
+import java.util.Map;
+
+public class ClientsController implements ViewRegistry.Lifecycle {
 
     @FXML private TableView<Client> clientsTable;
+    @FXML private TextField searchField;
     @FXML private TableColumn<Client, Integer> idCol;
     @FXML private TableColumn<Client, String> nameCol;
     @FXML private TableColumn<Client, String> emailCol;
@@ -30,38 +36,34 @@ public class ClientsController {
     @FXML private Button updateBtn;
     @FXML private Button deleteBtn;
     @FXML private Label statusLabel;
+    @FXML private CheckBox streamingCheck;
+    @FXML private CheckBox incrementalCheck;
+    @FXML private ProgressBar loadProgressBar;
 
     private final ClientsViewModel vm = new ClientsViewModel();
 
     @FXML
     public void initialize() {
-        // Table columns -> model getters
-        idCol.setCellValueFactory(data ->
-            new SimpleIntegerProperty(data.getValue().getId()).asObject()
-        );
-        nameCol.setCellValueFactory(data ->
-            new SimpleStringProperty(data.getValue().getName())
-        );
-        emailCol.setCellValueFactory(data ->
-            new SimpleStringProperty(data.getValue().getEmail())
-        );
-        phoneCol.setCellValueFactory(data ->
-            new SimpleStringProperty(data.getValue().getPhone())
-        );
-        addressCol.setCellValueFactory(data ->
-            new SimpleStringProperty(data.getValue().getAddress())
-        );
-        createdAtCol.setCellValueFactory(data -> {
-            String ca = data.getValue().getCreatedAt();
-            return new SimpleStringProperty(ca != null ? ca : "");
-        });
-        updatedAtCol.setCellValueFactory(data -> {
-            String ua = data.getValue().getUpdatedAt();
-            return new SimpleStringProperty(ua != null ? ua : "");
-        });
-
-        // Table items
-        clientsTable.setItems(vm.getClients());
+        // Table columns -> cells rendering from the row's getters
+        RowCell.install(idCol, CellText.ofInt(Client::getId));
+        RowCell.install(nameCol, CellText.ofText(Client::getName));
+        RowCell.install(emailCol, CellText.ofText(Client::getEmail));
+        RowCell.install(phoneCol, CellText.ofText(Client::getPhone));
+        RowCell.install(addressCol, CellText.ofText(Client::getAddress));
+        RowCell.install(createdAtCol, CellText.ofText(Client::getCreatedAt));
+        RowCell.install(updatedAtCol, CellText.ofText(Client::getUpdatedAt));
+
+        // Table items, sorted off the FX thread by primitive column keys
+        BackgroundSortedList<Client> sorted = TableSorting.install(clientsTable, vm.getClients(), Map.of(
+            idCol, SortKey.ofInt(Client::getId),
+            nameCol, SortKey.ofText(Client::getName),
+            emailCol, SortKey.ofText(Client::getEmail),
+            phoneCol, SortKey.ofText(Client::getPhone),
+            addressCol, SortKey.ofText(Client::getAddress),
+            createdAtCol, SortKey.ofTimestamp(Client::getCreatedAt),
+            updatedAtCol, SortKey.ofTimestamp(Client::getUpdatedAt)
+        ));
+        TableSearch.install(searchField, vm.getSearchIndex(), sorted, Client::getId);
 
         // Selection -> ViewModel selectedClient
         clientsTable.getSelectionModel().selectedItemProperty().addListener((obs, old, sel) -> {
@@ -78,15 +80,26 @@ public class ClientsController {
 
         // Status
         statusLabel.textProperty().bind(vm.statusProperty());
+        streamingCheck.selectedProperty().bindBidirectional(vm.streamingLoadProperty());
+        incrementalCheck.selectedProperty().bindBidirectional(vm.incrementalLoadProperty());
+        loadProgressBar.progressProperty().bind(vm.loadProgressProperty());
 
         // Button states
         updateBtn.disableProperty().bind(vm.hasSelectionProperty().not());
         deleteBtn.disableProperty().bind(vm.hasSelectionProperty().not());
+    }
 
-        // Initial load
+    // Initial load
+    @Override
+    public void start() {
         vm.loadClientsAsync();
     }
 
+    @Override
+    public void dispose() {
+        vm.dispose();
+    }
+
     @FXML
     private void onLoad() {
         vm.loadClientsAsync();
@@ -0,0 +1,74 @@
+package com.demo.ui.controllers;
+
+import com.demo.ui.cells.CellText;
+import com.demo.ui.cells.RowCell;
+import com.demo.ui.metrics.Histogram;
+import com.demo.ui.viewmodels.DiagnosticsViewModel;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.fxml.FXML;
+import javafx.scene.control.*;
+import javafx.util.Duration;
+
+import java.util.Locale;
+import java.util.function.ToLongFunction;
+
+public class DiagnosticsController {
+
+    @FXML private TableView<Histogram.Snapshot> metricsTable;
+    @FXML private TableColumn<Histogram.Snapshot, String> nameCol;
+    @FXML private TableColumn<Histogram.Snapshot, Long> countCol;
+    @FXML private TableColumn<Histogram.Snapshot, String> p50Col;
+    @FXML private TableColumn<Histogram.Snapshot, String> p90Col;
+    @FXML private TableColumn<Histogram.Snapshot, String> p99Col;
+    @FXML private TableColumn<Histogram.Snapshot, String> maxCol;
+    @FXML private TableColumn<Histogram.Snapshot, String> meanCol;
+    @FXML private Label statusLabel;
+
+    private final DiagnosticsViewModel vm = new DiagnosticsViewModel();
+
+    @FXML
+    public void initialize() {
+        RowCell.install(nameCol, CellText.ofText(Histogram.Snapshot::name));
+        RowCell.install(countCol, CellText.ofText(s -> Long.toString(s.count())));
+        RowCell.install(p50Col, valueText(Histogram.Snapshot::p50));
+        RowCell.install(p90Col, valueText(Histogram.Snapshot::p90));
+        RowCell.install(p99Col, valueText(Histogram.Snapshot::p99));
+        RowCell.install(maxCol, valueText(Histogram.Snapshot::max));
+        RowCell.install(meanCol, valueText(s -> Math.round(s.mean())));
+        metricsTable.setItems(vm.getHistograms());
+
+        statusLabel.textProperty().bind(vm.statusProperty());
+
+        // Refresh once a second while the view is on screen
+        Timeline ticker = new Timeline(new KeyFrame(Duration.seconds(1), e -> vm.refresh()));
+        ticker.setCycleCount(Animation.INDEFINITE);
+        metricsTable.sceneProperty().addListener((obs, old, scene) -> {
+            if (scene != null) {
+                vm.refresh();
+                ticker.play();
+            } else {
+                ticker.stop();
+            }
+        });
+        vm.refresh();
+    }
+
+    // Latencies in milliseconds, sizes in KB
+    private static CellText<Histogram.Snapshot> valueText(ToLongFunction<Histogram.Snapshot> value) {
+        return s -> s.count() == 0 ? "" : s.unit() == Histogram.Unit.NANOS
+            ? String.format(Locale.ROOT, "%.3f ms", value.applyAsLong(s) / 1e6)
+            : String.format(Locale.ROOT, "%.1f KB", value.applyAsLong(s) / 1024.0);
+    }
+
+    @FXML
+    private void onRefresh() {
+        vm.refresh();
+    }
+
+    @FXML
+    private void onReset() {
+        vm.reset();
+    }
+}
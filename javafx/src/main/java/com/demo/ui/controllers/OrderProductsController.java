@@ -1,61 +1,80 @@
 package com.demo.ui.controllers;
 
+import com.demo.ui.ViewRegistry;
+import com.demo.ui.cells.CellText;
+import com.demo.ui.cells.RowCell;
+import com.demo.ui.collections.SortKey;
+import com.demo.ui.models.Money;
 import com.demo.ui.models.OrderProduct;
+import com.demo.ui.models.Product;
+import com.demo.ui.services.OrderTotals;
 import com.demo.ui.viewmodels.OrderProductsViewModel;
-import javafx.beans.property.SimpleDoubleProperty;
-import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.binding.Bindings;
+import javafx.collections.MapChangeListener;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.util.StringConverter;
 import javafx.util.converter.NumberStringConverter;
 
-public class OrderProductsController {
+import java.util.Map;
+
+public class OrderProductsController implements ViewRegistry.Lifecycle {
 
     @FXML private TableView<OrderProduct> orderProductsTable;
     @FXML private TableColumn<OrderProduct, Integer> idCol;
     @FXML private TableColumn<OrderProduct, Integer> orderIdCol;
     @FXML private TableColumn<OrderProduct, Integer> productIdCol;
+    @FXML private TableColumn<OrderProduct, String> productNameCol;
     @FXML private TableColumn<OrderProduct, Integer> quantityCol;
-    @FXML private TableColumn<OrderProduct, Double> unitPriceCol;
-    @FXML private TableColumn<OrderProduct, Double> lineTotalCol;
+    @FXML private TableColumn<OrderProduct, Long> unitPriceCol;
+    @FXML private TableColumn<OrderProduct, Long> lineTotalCol;
 
     @FXML private TextField orderIdField;
     @FXML private TextField productIdField;
     @FXML private TextField quantityField;
     @FXML private TextField unitPriceField;
     @FXML private Label lineTotalLabel;
+    @FXML private Label orderTotalsLabel;
 
     @FXML private Button loadBtn;
     @FXML private Button addBtn;
     @FXML private Button updateBtn;
     @FXML private Button removeBtn;
     @FXML private Label statusLabel;
+    @FXML private CheckBox streamingCheck;
+    @FXML private ProgressBar loadProgressBar;
 
     private final OrderProductsViewModel vm = new OrderProductsViewModel();
 
     @FXML
     public void initialize() {
-        // Table columns -> model getters
-        idCol.setCellValueFactory(data ->
-            new SimpleIntegerProperty(data.getValue().getId()).asObject()
-        );
-        orderIdCol.setCellValueFactory(data ->
-            new SimpleIntegerProperty(data.getValue().getOrderId()).asObject()
-        );
-        productIdCol.setCellValueFactory(data ->
-            new SimpleIntegerProperty(data.getValue().getProductId()).asObject()
-        );
-        quantityCol.setCellValueFactory(data ->
-            new SimpleIntegerProperty(data.getValue().getQuantity()).asObject()
-        );
-        unitPriceCol.setCellValueFactory(data ->
-            new SimpleDoubleProperty(data.getValue().getUnitPrice()).asObject()
-        );
-        lineTotalCol.setCellValueFactory(data ->
-            new SimpleDoubleProperty(data.getValue().getLineTotal()).asObject()
-        );
-
-        // Table items
-        orderProductsTable.setItems(vm.getOrderProducts());
+        // Table columns -> cells rendering from the row's getters
+        RowCell.install(idCol, CellText.ofInt(OrderProduct::getId));
+        RowCell.install(orderIdCol, CellText.ofInt(OrderProduct::getOrderId));
+        RowCell.install(productIdCol, CellText.ofInt(OrderProduct::getProductId));
+        RowCell.install(productNameCol, CellText.ofText(op -> vm.productName(op.getProductId())));
+        RowCell.install(quantityCol, CellText.ofInt(OrderProduct::getQuantity));
+        RowCell.install(unitPriceCol, CellText.ofMoney(OrderProduct::getUnitPriceCents));
+        RowCell.install(lineTotalCol, CellText.ofMoney(OrderProduct::getLineTotalCents));
+
+        // Table items, sorted off the FX thread by primitive column keys (product names live in the
+        // ViewModel, not on the rows, so that column does not sort)
+        TableSorting.install(orderProductsTable, vm.getOrderProducts(), Map.of(
+            idCol, SortKey.ofInt(OrderProduct::getId),
+            orderIdCol, SortKey.ofInt(OrderProduct::getOrderId),
+            productIdCol, SortKey.ofInt(OrderProduct::getProductId),
+            quantityCol, SortKey.ofInt(OrderProduct::getQuantity),
+            unitPriceCol, SortKey.ofLong(OrderProduct::getUnitPriceCents),
+            lineTotalCol, SortKey.ofLong(OrderProduct::getLineTotalCents)
+        ));
+
+        // Product names arrive after the lines
+        vm.getProducts().addListener((MapChangeListener<Integer, Product>) c -> orderProductsTable.refresh());
+
+        // Shown -> follow the order selected in the Orders view
+        orderProductsTable.sceneProperty().addListener((obs, old, scene) -> {
+            if (scene != null) vm.followSelectedOrder();
+        });
 
         // Selection -> ViewModel selectedItem
         orderProductsTable.getSelectionModel().selectedItemProperty().addListener((obs, old, sel) -> {
@@ -66,17 +85,37 @@ public class OrderProductsController {
         orderIdField.textProperty().bindBidirectional(vm.orderIdProperty(), new NumberStringConverter());
         productIdField.textProperty().bindBidirectional(vm.productIdProperty(), new NumberStringConverter());
         quantityField.textProperty().bindBidirectional(vm.quantityProperty(), new NumberStringConverter());
-        unitPriceField.textProperty().bindBidirectional(vm.unitPriceProperty(), new NumberStringConverter());
-        lineTotalLabel.textProperty().bind(vm.lineTotalProperty().asString());
+        unitPriceField.textProperty().bindBidirectional(vm.unitPriceCentsProperty(), new StringConverter<Number>() {
+            @Override public String toString(Number cents) { return cents == null ? "" : Money.format(cents.longValue()); }
+            @Override public Number fromString(String text) { return text == null || text.isBlank() ? 0L : Money.parse(text.trim()); }
+        });
+        lineTotalLabel.textProperty().bind(Bindings.createStringBinding(
+            () -> Money.format(vm.lineTotalCentsProperty().get()), vm.lineTotalCentsProperty()));
+        orderTotalsLabel.textProperty().bind(Bindings.createStringBinding(() -> {
+            OrderTotals.Totals t = vm.orderTotalsProperty().get();
+            if (t == null) return "";
+            StringBuilder sb = new StringBuilder("Subtotal ");
+            Money.append(sb, t.subtotalCents()).append("  Discount ");
+            Money.append(sb, t.discountCents()).append("  Tax ");
+            Money.append(sb, t.taxCents()).append("  Total ");
+            return Money.append(sb, t.totalCents()).toString();
+        }, vm.orderTotalsProperty()));
 
         // Status
         statusLabel.textProperty().bind(vm.statusProperty());
+        streamingCheck.selectedProperty().bindBidirectional(vm.streamingLoadProperty());
+        loadProgressBar.progressProperty().bind(vm.loadProgressProperty());
 
         // Button states
         updateBtn.disableProperty().bind(vm.hasSelectionProperty().not());
         removeBtn.disableProperty().bind(vm.hasSelectionProperty().not());
     }
 
+    @Override
+    public void dispose() {
+        vm.dispose();
+    }
+
     @FXML
     private void onLoad() {
         int oid = vm.orderIdProperty().get();
@@ -1,16 +1,31 @@
 package com.demo.ui.controllers;
 
+import com.demo.ui.ViewRegistry;
+import com.demo.ui.cells.CellText;
+import com.demo.ui.cells.RowCell;
+import com.demo.ui.collections.BackgroundSortedList;
+import com.demo.ui.collections.SortKey;
 import com.demo.ui.models.Order;
 import com.demo.ui.viewmodels.OrdersViewModel;
-import javafx.beans.property.SimpleDoubleProperty;
-import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.property.SimpleStringProperty;
+import javafx.animation.PauseTransition;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.util.Duration;
 
-public class OrdersController {
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class OrdersController implements ViewRegistry.Lifecycle {
+
+    // Rows either side of the selection worth prefetching, and how long the pointer has to rest
+    // on a row before it is
+    private static final int PREFETCH_NEIGHBOURS = 2;
+    private static final Duration HOVER_DWELL = Duration.millis(150);
 
     @FXML private TableView<Order> ordersTable;
+    @FXML private TextField searchField;
     @FXML private TableColumn<Order, Integer> idCol;
     @FXML private TableColumn<Order, String> orderNumberCol;
     @FXML private TableColumn<Order, Integer> clientIdCol;
@@ -18,15 +33,16 @@ public class OrdersController {
     @FXML private TableColumn<Order, String> statusCol;
     @FXML private TableColumn<Order, String> paymentCol;
     @FXML private TableColumn<Order, String> currencyCol;
-    @FXML private TableColumn<Order, Double> subtotalCol;
-    @FXML private TableColumn<Order, Double> discountCol;
-    @FXML private TableColumn<Order, Double> taxCol;
-    @FXML private TableColumn<Order, Double> totalCol;
+    @FXML private TableColumn<Order, Long> subtotalCol;
+    @FXML private TableColumn<Order, Long> discountCol;
+    @FXML private TableColumn<Order, Long> taxCol;
+    @FXML private TableColumn<Order, Long> totalCol;
     @FXML private TableColumn<Order, String> createdAtCol;
     @FXML private TableColumn<Order, String> updatedAtCol;
 
     @FXML private TextField orderNumberField;
     @FXML private TextField clientIdField;
+    @FXML private Label clientLabel;
     @FXML private TextField statusField;
     @FXML private TextField paymentField;
     @FXML private TextField currencyField;
@@ -41,58 +57,76 @@ public class OrdersController {
     @FXML private Button updateBtn;
     @FXML private Button deleteBtn;
     @FXML private Label statusLabel;
+    @FXML private CheckBox streamingCheck;
+    @FXML private CheckBox incrementalCheck;
+    @FXML private CheckBox pagedCheck;
+    @FXML private ProgressBar loadProgressBar;
 
     private final OrdersViewModel vm = new OrdersViewModel();
+    private BackgroundSortedList<Order> sortedOrders;
 
     @FXML
     public void initialize() {
-        // Table columns -> model getters
-        idCol.setCellValueFactory(data ->
-            new SimpleIntegerProperty(data.getValue().getId()).asObject()
-        );
-        orderNumberCol.setCellValueFactory(data ->
-            new SimpleStringProperty(data.getValue().getOrderNumber())
-        );
-        clientIdCol.setCellValueFactory(data ->
-            new SimpleIntegerProperty(data.getValue().getClientId()).asObject()
-        );
-        orderDateCol.setCellValueFactory(data ->
-            new SimpleStringProperty(data.getValue().getOrderDate() != null ? data.getValue().getOrderDate() : "")
-        );
-        statusCol.setCellValueFactory(data ->
-            new SimpleStringProperty(data.getValue().getOrderStatus())
-        );
-        paymentCol.setCellValueFactory(data ->
-            new SimpleStringProperty(data.getValue().getPaymentMethod())
-        );
-        currencyCol.setCellValueFactory(data ->
-            new SimpleStringProperty(data.getValue().getCurrencyCode())
-        );
-        subtotalCol.setCellValueFactory(data ->
-            new SimpleDoubleProperty(data.getValue().getSubtotalAmount()).asObject()
-        );
-        discountCol.setCellValueFactory(data ->
-            new SimpleDoubleProperty(data.getValue().getDiscountAmount()).asObject()
-        );
-        taxCol.setCellValueFactory(data ->
-            new SimpleDoubleProperty(data.getValue().getTaxAmount()).asObject()
-        );
-        totalCol.setCellValueFactory(data ->
-            new SimpleDoubleProperty(data.getValue().getTotalAmount()).asObject()
-        );
-        createdAtCol.setCellValueFactory(data ->
-            new SimpleStringProperty(data.getValue().getCreatedAt() != null ? data.getValue().getCreatedAt() : "")
-        );
-        updatedAtCol.setCellValueFactory(data ->
-            new SimpleStringProperty(data.getValue().getUpdatedAt() != null ? data.getValue().getUpdatedAt() : "")
-        );
-
-        // Table items
-        ordersTable.setItems(vm.getOrders());
-
-        // Selection -> ViewModel selectedOrder
+        // Table columns -> cells rendering from the row's getters
+        RowCell.install(idCol, CellText.ofInt(Order::getId));
+        RowCell.install(orderNumberCol, CellText.ofText(Order::getOrderNumber));
+        RowCell.install(clientIdCol, CellText.ofInt(Order::getClientId));
+        RowCell.install(orderDateCol, CellText.ofText(Order::getOrderDate));
+        RowCell.install(statusCol, CellText.ofText(Order::getOrderStatus));
+        RowCell.install(paymentCol, CellText.ofText(Order::getPaymentMethod));
+        RowCell.install(currencyCol, CellText.ofText(Order::getCurrencyCode));
+        RowCell.install(subtotalCol, CellText.ofMoney(Order::getSubtotalCents));
+        RowCell.install(discountCol, CellText.ofMoney(Order::getDiscountCents));
+        RowCell.install(taxCol, CellText.ofMoney(Order::getTaxCents));
+        RowCell.install(totalCol, CellText.ofMoney(Order::getTotalCents));
+        RowCell.install(createdAtCol, CellText.ofText(Order::getCreatedAt));
+        RowCell.install(updatedAtCol, CellText.ofText(Order::getUpdatedAt));
+
+        // Table items, sorted off the FX thread by primitive column keys
+        Map<TableColumn<Order, ?>, SortKey<Order>> keys = new HashMap<>();
+        keys.put(idCol, SortKey.ofInt(Order::getId));
+        keys.put(orderNumberCol, SortKey.ofText(Order::getOrderNumber));
+        keys.put(clientIdCol, SortKey.ofInt(Order::getClientId));
+        keys.put(orderDateCol, SortKey.ofTimestamp(Order::getOrderDate));
+        keys.put(statusCol, SortKey.ofText(Order::getOrderStatus));
+        keys.put(paymentCol, SortKey.ofText(Order::getPaymentMethod));
+        keys.put(currencyCol, SortKey.ofText(Order::getCurrencyCode));
+        keys.put(subtotalCol, SortKey.ofLong(Order::getSubtotalCents));
+        keys.put(discountCol, SortKey.ofLong(Order::getDiscountCents));
+        keys.put(taxCol, SortKey.ofLong(Order::getTaxCents));
+        keys.put(totalCol, SortKey.ofLong(Order::getTotalCents));
+        keys.put(createdAtCol, SortKey.ofTimestamp(Order::getCreatedAt));
+        keys.put(updatedAtCol, SortKey.ofTimestamp(Order::getUpdatedAt));
+        sortedOrders = TableSorting.install(ordersTable, vm.getOrders(), keys);
+        TableSearch.install(searchField, vm.getSearchIndex(), sortedOrders, Order::getId);
+        searchField.disableProperty().bind(vm.pagedModeProperty());
+
+        // Selection -> ViewModel selectedOrder, and its details prefetched
         ordersTable.getSelectionModel().selectedItemProperty().addListener((obs, old, sel) -> {
-            vm.setSelectedOrder(sel);
+            vm.setSelectedOrder(sel != null && vm.isPlaceholder(sel) ? null : sel);
+            vm.prefetchAround(sel, neighbours(ordersTable.getSelectionModel().getSelectedIndex()));
+        });
+
+        // Hover -> speculative prefetch once the pointer rests on a row
+        PauseTransition dwell = new PauseTransition(HOVER_DWELL);
+        ordersTable.setRowFactory(table -> {
+            TableRow<Order> row = new TableRow<>();
+            row.setOnMouseEntered(e -> {
+                if (row.isEmpty()) return;
+                Order hovered = row.getItem();
+                dwell.setOnFinished(done -> vm.prefetchHovered(hovered));
+                dwell.playFromStart();
+            });
+            row.setOnMouseExited(e -> dwell.stop());
+            return row;
+        });
+
+        // Paged mode swaps the table onto the lazily filled list
+        pagedCheck.selectedProperty().bindBidirectional(vm.pagedModeProperty());
+        vm.pagedModeProperty().addListener((obs, was, paged) -> {
+            ordersTable.getSortOrder().clear();
+            ordersTable.setItems(paged ? vm.getPagedOrders() : sortedOrders);
+            vm.loadOrdersAsync();
         });
 
         // Form bindings (bidirectional)
@@ -106,18 +140,42 @@ public class OrdersController {
         notesArea.textProperty().bindBidirectional(vm.notesProperty());
         createdAtLabel.textProperty().bind(vm.createdAtProperty());
         updatedAtLabel.textProperty().bind(vm.updatedAtProperty());
+        clientLabel.textProperty().bind(vm.clientSummaryProperty());
 
         // Status
         statusLabel.textProperty().bind(vm.statusProperty());
+        streamingCheck.selectedProperty().bindBidirectional(vm.streamingLoadProperty());
+        incrementalCheck.selectedProperty().bindBidirectional(vm.incrementalLoadProperty());
+        loadProgressBar.progressProperty().bind(vm.loadProgressProperty());
 
         // Button states
         updateBtn.disableProperty().bind(vm.hasSelectionProperty().not());
         deleteBtn.disableProperty().bind(vm.hasSelectionProperty().not());
+    }
 
-        // Initial load
+    // Initial load
+    @Override
+    public void start() {
         vm.loadOrdersAsync();
     }
 
+    @Override
+    public void dispose() {
+        vm.dispose();
+    }
+
+    // Nearest first, alternating below and above
+    private List<Order> neighbours(int index) {
+        List<Order> items = ordersTable.getItems();
+        List<Order> out = new ArrayList<>(2 * PREFETCH_NEIGHBOURS);
+        if (index < 0) return out;
+        for (int d = 1; d <= PREFETCH_NEIGHBOURS; d++) {
+            if (index + d < items.size()) out.add(items.get(index + d));
+            if (index - d >= 0) out.add(items.get(index - d));
+        }
+        return out;
+    }
+
     @FXML
     private void onLoad() {
         vm.loadOrdersAsync();
@@ -1,20 +1,26 @@
 package com.demo.ui.controllers;
 
+import com.demo.ui.ViewRegistry;
+import com.demo.ui.cells.CellText;
+import com.demo.ui.cells.RowCell;
+import com.demo.ui.collections.BackgroundSortedList;
+import com.demo.ui.collections.SortKey;
 import com.demo.ui.models.Product;
 import com.demo.ui.viewmodels.ProductsViewModel;
-import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.property.SimpleStringProperty;
-import javafx.beans.property.SimpleDoubleProperty;
+import javafx.collections.MapChangeListener;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 
-public class ProductsController {
+import java.util.Map;
+
+public class ProductsController implements ViewRegistry.Lifecycle {
 
     @FXML private TableView<Product> productsTable;
+    @FXML private TextField searchField;
     @FXML private TableColumn<Product, Integer> idCol;
     @FXML private TableColumn<Product, String> nameCol;
     @FXML private TableColumn<Product, String> descriptionCol;
-    @FXML private TableColumn<Product, Double> priceCol;
+    @FXML private TableColumn<Product, Long> priceCol;
     @FXML private TableColumn<Product, Integer> stockCol;//
     @FXML private TableColumn<Product, Integer> providerIdCol;//
     @FXML private TableColumn<Product, String> createdAtCol;//
@@ -32,43 +38,52 @@ public class ProductsController {
     @FXML private Button addBtn;
     @FXML private Button updateBtn;
     @FXML private Button deleteBtn;
+    @FXML private Button keepMineBtn;
     @FXML private Label statusLabel;
+    @FXML private CheckBox streamingCheck;
+    @FXML private CheckBox incrementalCheck;
+    @FXML private ProgressBar loadProgressBar;
 
     private final ProductsViewModel vm = new ProductsViewModel();
 
+    private static final String PENDING_STYLE = "-fx-font-style: italic;";
+    private static final String CONFLICT_STYLE = "-fx-background-color: #f8d7da;";
+
     @FXML
     public void initialize() {
-        // Table columns -> model getters
-        idCol.setCellValueFactory(data ->
-            new SimpleIntegerProperty(data.getValue().getId()).asObject()
-        );
-        nameCol.setCellValueFactory(data ->
-            new SimpleStringProperty(data.getValue().getName())
-        );
-        descriptionCol.setCellValueFactory(data ->
-            new SimpleStringProperty(data.getValue().getDescription())
-        );
-        priceCol.setCellValueFactory(data ->
-            new SimpleDoubleProperty(data.getValue().getPrice()).asObject()
-        );
-        stockCol.setCellValueFactory(data ->//
-            new SimpleIntegerProperty(data.getValue().getStock()).asObject()
-        );
-        providerIdCol.setCellValueFactory(data -> {
-        Integer pid = data.getValue().getProviderId();
-        return new SimpleIntegerProperty(pid != null ? pid : 0).asObject();
-         });
-        createdAtCol.setCellValueFactory(data -> {
-            String ca = data.getValue().getCreatedAt();
-            return new SimpleStringProperty(ca != null ? ca : "");
-        });
-        updatedAtCol.setCellValueFactory(data -> {
-            String ua = data.getValue().getUpdatedAt();
-            return new SimpleStringProperty(ua != null ? ua : "");
-        });
+        // Table columns -> cells rendering from the row's getters
+        RowCell.install(idCol, CellText.ofInt(Product::getId));
+        RowCell.install(nameCol, CellText.ofText(Product::getName));
+        RowCell.install(descriptionCol, CellText.ofText(Product::getDescription));
+        RowCell.install(priceCol, CellText.ofMoney(Product::getPriceCents));
+        RowCell.install(stockCol, CellText.ofInt(Product::getStock));
+        RowCell.install(providerIdCol, CellText.ofInt(p -> p.getProviderId() != null ? p.getProviderId() : 0));
+        RowCell.install(createdAtCol, CellText.ofText(Product::getCreatedAt));
+        RowCell.install(updatedAtCol, CellText.ofText(Product::getUpdatedAt));
         
-        // Table items
-        productsTable.setItems(vm.getProducts());
+        // Table items, sorted off the FX thread by primitive column keys
+        BackgroundSortedList<Product> sorted = TableSorting.install(productsTable, vm.getProducts(), Map.of(
+            idCol, SortKey.ofInt(Product::getId),
+            nameCol, SortKey.ofText(Product::getName),
+            descriptionCol, SortKey.ofText(Product::getDescription),
+            priceCol, SortKey.ofLong(Product::getPriceCents),
+            stockCol, SortKey.ofInt(Product::getStock),
+            providerIdCol, SortKey.ofInt(p -> p.getProviderId() != null ? p.getProviderId() : 0),
+            createdAtCol, SortKey.ofTimestamp(Product::getCreatedAt),
+            updatedAtCol, SortKey.ofTimestamp(Product::getUpdatedAt)
+        ));
+        TableSearch.install(searchField, vm.getSearchIndex(), sorted, Product::getId);
+
+        // Unsaved rows in italics, rows whose save was refused (changed by someone else) tinted.
+        // Saving replaces the row, which refreshes it; a dropped conflict does not, hence refresh().
+        productsTable.setRowFactory(t -> new TableRow<>() {
+            @Override
+            protected void updateItem(Product p, boolean empty) {
+                super.updateItem(p, empty);
+                setStyle(empty || p == null ? "" : vm.isConflicted(p) ? CONFLICT_STYLE : vm.isPending(p) ? PENDING_STYLE : "");
+            }
+        });
+        vm.conflicts().addListener((MapChangeListener<Integer, Product>) change -> productsTable.refresh());
 
         // Selection -> ViewModel selectedProduct
         productsTable.getSelectionModel().selectedItemProperty().addListener((obs, old, sel) -> {
@@ -86,15 +101,27 @@ public class ProductsController {
 
         // Status
         statusLabel.textProperty().bind(vm.statusProperty());
+        streamingCheck.selectedProperty().bindBidirectional(vm.streamingLoadProperty());
+        incrementalCheck.selectedProperty().bindBidirectional(vm.incrementalLoadProperty());
+        loadProgressBar.progressProperty().bind(vm.loadProgressProperty());
 
         // Button states
         updateBtn.disableProperty().bind(vm.hasSelectionProperty().not());
         deleteBtn.disableProperty().bind(vm.hasSelectionProperty().not());
+        keepMineBtn.disableProperty().bind(vm.selectionConflictedProperty().not());
+    }
 
-        // Initial load
+    // Initial load
+    @Override
+    public void start() {
         vm.loadProductsAsync();
     }
 
+    @Override
+    public void dispose() {
+        vm.dispose();
+    }
+
     @FXML
     private void onLoad() {
         vm.loadProductsAsync();
@@ -110,6 +137,11 @@ public class ProductsController {
         vm.updateSelectedProductAsync();
     }
 
+    @FXML
+    private void onKeepMine() {
+        vm.keepMyVersionOfSelected();
+    }
+
     @FXML
     private void onDelete() {
         // Optional confirm dialog
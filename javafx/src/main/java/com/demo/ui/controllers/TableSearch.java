@@ -0,0 +1,41 @@
+package com.demo.ui.controllers;
+
+import com.demo.ui.collections.BackgroundSortedList;
+import com.demo.ui.collections.SearchIndex;
+import com.demo.ui.tasks.UiUpdateScheduler;
+import javafx.scene.control.TextField;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToIntFunction;
+
+// Search box -> index lookup -> row filter. The query runs on the FX thread against the index
+// only; the resulting id set becomes the BackgroundSortedList filter, applied off the FX thread.
+// The query is re-run when the index catches up with new or edited rows.
+final class TableSearch {
+
+    private TableSearch() { }
+
+    static <T> void install(TextField field, SearchIndex<T> index, BackgroundSortedList<T> rows,
+                            ToIntFunction<? super T> idOf) {
+        Runnable apply = () -> {
+            BitSet hits = index.search(field.getText());
+            rows.setFilter(hits == null ? null : row -> {
+                int id = idOf.applyAsInt(row);
+                return id >= 0 && hits.get(id);
+            });
+        };
+        field.textProperty().addListener((obs, old, text) -> apply.run());
+
+        AtomicBoolean queued = new AtomicBoolean();
+        index.addIndexedListener(() -> {
+            // One re-query per pulse however many batches were indexed meanwhile
+            if (queued.compareAndSet(false, true)) {
+                UiUpdateScheduler.shared().execute(() -> {
+                    queued.set(false);
+                    if (!field.getText().isBlank()) apply.run();
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,42 @@
+package com.demo.ui.controllers;
+
+import com.demo.ui.collections.BackgroundSortedList;
+import com.demo.ui.collections.SortKey;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Routes header clicks to a BackgroundSortedList: the table's sort order becomes a list of
+// primitive keys sorted off the FX thread, instead of TableView comparing boxed cell values
+// on the FX thread. Columns without a key are not sortable.
+final class TableSorting {
+
+    private TableSorting() { }
+
+    static <T> BackgroundSortedList<T> install(TableView<T> table, ObservableList<T> rows,
+                                               Map<TableColumn<T, ?>, SortKey<T>> keys) {
+        BackgroundSortedList<T> sorted = new BackgroundSortedList<>(rows);
+        for (TableColumn<T, ?> col : table.getColumns()) {
+            col.setSortable(keys.containsKey(col));
+        }
+        table.setSortPolicy(t -> {
+            // Other item lists (e.g. the paged orders list) are not sortable
+            if (t.getItems() != sorted) return false;
+            List<BackgroundSortedList.Order<T>> order = new ArrayList<>();
+            for (TableColumn<T, ?> col : t.getSortOrder()) {
+                SortKey<T> key = keys.get(col);
+                if (key != null) {
+                    order.add(new BackgroundSortedList.Order<>(key, col.getSortType() == TableColumn.SortType.ASCENDING));
+                }
+            }
+            sorted.setOrder(order);
+            return true;
+        });
+        table.setItems(sorted);
+        return sorted;
+    }
+}
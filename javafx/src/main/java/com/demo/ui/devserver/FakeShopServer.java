@@ -0,0 +1,778 @@
+package com.demo.ui.devserver;
+
+import com.demo.ui.devserver.FakeShopStore.ConstraintViolation;
+import com.demo.ui.devserver.FakeShopStore.StaleRow;
+import com.demo.ui.devserver.FakeShopStore.Table;
+import com.demo.ui.services.ApiClient;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Java stand-in for the Node API (node/src/routes/*.routes.js) backed by FakeShopStore,
+// with injectable latency, tail latency and failures. Status codes, error bodies, ETags
+// Last-Modified, CBOR negotiation and response compression follow the Express app so the client cannot tell the
+// difference.
+//
+// Embedded:   try (FakeShopServer fake = FakeShopServer.start(0, store, faults)) { new ProductService(fake.client()) ... }
+// In the app: -Dshop.fake=true (App starts one and points ApiClient.shared() at it)
+// Standalone: java ... com.demo.ui.devserver.FakeShopServer, then -Dshop.api.baseUrl=http://localhost:3100
+public class FakeShopServer implements AutoCloseable {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_BULK_ITEMS = 1000;
+    // Same bound as IDEMPOTENCY_KEYS in node/src/controllers/products.controller.js
+    private static final int MAX_IDEMPOTENCY_KEYS = 10_000;
+    // Same threshold as node/src/middleware/compress.js
+    private static final int COMPRESS_MIN_BYTES = 1024;
+    private static final Set<String> STATUSES = Set.of("pending", "paid", "shipped", "completed", "cancelled");
+    private static final Set<String> PAYMENT_METHODS = Set.of("credit_card", "paypal", "bank_transfer", "cash");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final FakeShopStore store;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper cbor = new CBORMapper();
+    private volatile FaultProfile faults;
+
+    // idempotency_key of a product create -> id of the row it created, most recent last
+    private final Map<String, Integer> createdByKey = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > MAX_IDEMPOTENCY_KEYS;
+        }
+    };
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong injectedErrorCount = new AtomicLong();
+
+    private FakeShopServer(HttpServer server, FakeShopStore store, FaultProfile faults) {
+        this.server = server;
+        this.store = store;
+        this.faults = faults;
+        // Injected latency is a sleep, so every request gets its own cheap thread
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    // port 0 picks a free port
+    public static FakeShopServer start(int port, FakeShopStore store, FaultProfile faults) throws IOException {
+        // Without TCP_NODELAY the JDK server's separate header/body writes hit Nagle + delayed ACK
+        // and every response picks up ~40 ms that the real backend does not have.
+        // Read once when the JDK server classes initialise, so it only helps if set before the first start.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        HttpServer http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        FakeShopServer fake = new FakeShopServer(http, store, faults);
+        http.start();
+        return fake;
+    }
+
+    // Store size and faults from -Dshop.fake.* properties
+    public static FakeShopServer startFromSystemProperties(int port) throws IOException {
+        FakeShopStore store = FakeShopStore.seeded(
+            Integer.getInteger("shop.fake.products", 500),
+            Integer.getInteger("shop.fake.clients", 200),
+            Integer.getInteger("shop.fake.orders", 2_000),
+            Integer.getInteger("shop.fake.linesPerOrder", 3),
+            Integer.getInteger("shop.fake.padding", 0)
+        );
+        return start(port, store, FaultProfile.fromSystemProperties());
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public ApiClient client() {
+        return new ApiClient(baseUrl());
+    }
+
+    public FakeShopStore store() { return store; }
+
+    public FaultProfile getFaults() { return faults; }
+    public void setFaults(FaultProfile faults) { this.faults = faults; }
+
+    public long requestCount() { return requestCount.get(); }
+    public long injectedErrorCount() { return injectedErrorCount.get(); }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // --- Dispatch ---
+
+    private record Reply(int status, JsonNode body, Map<String, String> headers) {
+        Reply(int status, JsonNode body) {
+            this(status, body, Map.of());
+        }
+    }
+
+    private static class HttpError extends RuntimeException {
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        try (exchange) {
+            byte[] requestBody = exchange.getRequestBody().readAllBytes();
+            FaultProfile f = faults;
+            long delay = f.nextDelayMillis();
+            if (delay > 0) Thread.sleep(delay);
+            if (f.nextFails()) {
+                injectedErrorCount.incrementAndGet();
+                send(exchange, new Reply(500, error("Internal server error")));
+                return;
+            }
+
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            Reply reply;
+            try {
+                reply = route(method, path, query(exchange.getRequestURI().getRawQuery()), requestBody);
+            } catch (HttpError e) {
+                reply = new Reply(e.status, error(e.getMessage()));
+            } catch (StaleRow e) {
+                ObjectNode conflict = (ObjectNode) error(e.getMessage());
+                conflict.set("product", e.current());
+                reply = new Reply(409, conflict);
+            } catch (ConstraintViolation e) {
+                reply = e.isDuplicate()
+                    ? new Reply(409, error("Email already exists"))
+                    : new Reply(500, error("Internal server error"));
+            }
+            if (reply == null) {
+                sendText(exchange, 404, "Cannot " + method + " " + path);
+            } else {
+                send(exchange, reply);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // null = no such route (Express' default 404)
+    private Reply route(String method, String path, Map<String, String> query, byte[] body) throws IOException {
+        String[] p = path.replaceAll("/+$", "").split("/");
+        if (p.length < 2) return null;
+        String resource = p[1];
+        String id = p.length > 2 ? p[2] : null;
+
+        if (resource.equals("health") && p.length == 2 && method.equals("GET")) {
+            ObjectNode ok = mapper.createObjectNode();
+            ok.put("status", "ok");
+            return new Reply(200, ok);
+        }
+        if (resource.equals("orders") && p.length >= 4 && p[3].equals("products")) {
+            return orderProducts(method, id, p.length == 5 ? p[4] : null, p.length, body);
+        }
+        if (p.length > 3) return null;
+        if (resource.equals("products") && "bulk".equals(id) && method.equals("POST")) {
+            return bulkProducts(json(body));
+        }
+
+        Table table = switch (resource) {
+            case "products" -> Table.PRODUCTS;
+            case "clients" -> Table.CLIENTS;
+            case "orders" -> Table.ORDERS;
+            default -> null;
+        };
+        if (table == null) return null;
+
+        return switch (method) {
+            case "GET" -> id == null ? list(table, query) : id.equals("ids") ? ids(table) : getOne(table, id);
+            case "POST" -> id == null ? create(table, json(body)) : null;
+            case "PUT" -> id != null ? update(table, id, json(body)) : null;
+            case "DELETE" -> id != null ? delete(table, id) : null;
+            default -> null;
+        };
+    }
+
+    private Reply list(Table table, Map<String, String> query) {
+        if (query.containsKey("since")) {
+            Instant since;
+            try {
+                since = Instant.parse(query.get("since"));
+            } catch (RuntimeException e) {
+                throw new HttpError(400, "Invalid since");
+            }
+            List<ObjectNode> rows = store.changedSince(table, since);
+            return new Reply(200, mapper.valueToTree(rows),
+                Map.of("X-Total-Count", String.valueOf(store.count(table))));
+        }
+        if (table != Table.ORDERS || (!query.containsKey("limit") && !query.containsKey("afterId"))) {
+            return new Reply(200, mapper.valueToTree(store.list(table)));
+        }
+        double limit = query.containsKey("limit") ? jsNumber(query.get("limit")) : MAX_PAGE_SIZE;
+        double afterId = query.containsKey("afterId") ? jsNumber(query.get("afterId")) : Double.NaN;
+        if (!isInteger(limit) || limit < 1 || limit > MAX_PAGE_SIZE) throw new HttpError(400, "Invalid limit");
+        if (query.containsKey("afterId") && !isInteger(afterId)) throw new HttpError(400, "Invalid afterId");
+        Integer cursor = query.containsKey("afterId") ? (int) afterId : null;
+        return new Reply(200, mapper.valueToTree(store.page(table, cursor, (int) limit)));
+    }
+
+    private Reply ids(Table table) {
+        ArrayNode ids = mapper.createArrayNode();
+        for (ObjectNode row : store.list(table)) ids.add(row.get("id").asInt());
+        return new Reply(200, ids);
+    }
+
+    private Reply getOne(Table table, String rawId) {
+        ObjectNode row = store.get(table, id(rawId, "Invalid id"));
+        if (row == null) throw new HttpError(404, "Not found");
+        return new Reply(200, row);
+    }
+
+    private Reply delete(Table table, String rawId) {
+        if (!store.delete(table, id(rawId, "Invalid id"))) throw new HttpError(404, "Not found");
+        return new Reply(204, null);
+    }
+
+    private Reply create(Table table, JsonNode body) {
+        ObjectNode row = switch (table) {
+            case PRODUCTS -> {
+                validateProduct(body, true);
+                yield insertProduct(body);
+            }
+            case CLIENTS -> {
+                validateClient(body, true);
+                yield store.insert(table, r -> {
+                    r.put("name", body.get("name").asText().trim());
+                    r.put("email", body.get("email").asText().trim());
+                    r.put("phone", truthy(body.get("phone")) ? body.get("phone").asText().trim() : null);
+                    r.put("address", truthy(body.get("address")) ? body.get("address").asText().trim() : null);
+                });
+            }
+            case ORDERS -> {
+                if (!isInteger(body.get("client_id"))) throw new HttpError(400, "Invalid client_id");
+                validateOrder(body, true);
+                yield store.insert(table, r -> {
+                    r.put("client_id", body.get("client_id").asInt());
+                    r.put("order_status", text(body, "order_status", "pending"));
+                    r.put("payment_method", text(body, "payment_method", "credit_card"));
+                    r.put("currency_code", text(body, "currency_code", "EUR"));
+                    r.put("discount_amount", body.has("discount_amount") ? money(body.get("discount_amount")) : "0.00");
+                    r.put("shipping_address", truthy(body.get("shipping_address")) ? body.get("shipping_address").asText() : null);
+                    r.put("billing_address", truthy(body.get("billing_address")) ? body.get("billing_address").asText() : null);
+                    r.put("notes", truthy(body.get("notes")) ? body.get("notes").asText() : null);
+                });
+            }
+        };
+        return new Reply(201, row);
+    }
+
+    private Reply update(Table table, String rawId, JsonNode body) {
+        int id = id(rawId, "Invalid id");
+        ObjectNode row = switch (table) {
+            case PRODUCTS -> {
+                validateProduct(body, false);
+                yield store.update(table, id, version(body), r -> {
+                    if (body.has("name")) r.put("name", body.get("name").asText().trim());
+                    if (body.has("description")) r.set("description", body.get("description"));
+                    if (body.has("price")) r.put("price", FakeShopStore.decimal(BigDecimal.valueOf(jsNumber(body.get("price")))));
+                    if (body.has("stock")) r.put("stock", (int) jsNumber(body.get("stock")));
+                    if (body.has("provider_id")) r.put("provider_id", (int) jsNumber(body.get("provider_id")));
+                });
+            }
+            case CLIENTS -> {
+                validateClient(body, false);
+                yield store.update(table, id, r -> {
+                    if (body.has("name")) r.put("name", body.get("name").asText().trim());
+                    if (body.has("email")) r.put("email", body.get("email").asText().trim());
+                    if (body.has("phone")) r.put("phone", truthy(body.get("phone")) ? body.get("phone").asText().trim() : null);
+                    if (body.has("address")) r.put("address", truthy(body.get("address")) ? body.get("address").asText().trim() : null);
+                });
+            }
+            case ORDERS -> {
+                validateOrder(body, false);
+                yield store.update(table, id, r -> {
+                    for (String column : List.of("order_status", "payment_method", "currency_code",
+                                                 "shipping_address", "billing_address", "notes")) {
+                        if (body.has(column)) r.set(column, body.get(column));
+                    }
+                    if (body.has("discount_amount")) r.put("discount_amount", money(body.get("discount_amount")));
+                });
+            }
+        };
+        if (row == null) throw new HttpError(404, "Not found");
+        return new Reply(200, row);
+    }
+
+    // INSERT, unless a create with the same idempotency_key already made the row: that row then
+    // takes the values sent (a retry may carry later edits) and comes back as if just created
+    private ObjectNode insertProduct(JsonNode body) {
+        JsonNode key = body.get("idempotency_key");
+        if (key == null || !key.isTextual() || key.asText().isEmpty()) {
+            return store.insert(Table.PRODUCTS, r -> putProduct(r, body));
+        }
+        synchronized (createdByKey) {
+            Integer id = createdByKey.get(key.asText());
+            if (id != null) {
+                ObjectNode row = store.update(Table.PRODUCTS, id, r -> putProduct(r, body));
+                if (row == null) throw new HttpError(404, "Not found");
+                return row;
+            }
+            ObjectNode row = store.insert(Table.PRODUCTS, r -> putProduct(r, body));
+            createdByKey.put(key.asText(), row.get("id").asInt());
+            return row;
+        }
+    }
+
+    private static void putProduct(ObjectNode row, JsonNode body) {
+        row.put("name", body.get("name").asText().trim());
+        row.put("description", truthy(body.get("description")) ? body.get("description").asText() : null);
+        row.put("price", FakeShopStore.decimal(BigDecimal.valueOf(jsNumber(body.get("price")))));
+        row.put("stock", (int) jsNumber(body.get("stock")));
+        if (body.has("provider_id")) row.put("provider_id", (int) jsNumber(body.get("provider_id")));
+        else row.putNull("provider_id");
+    }
+
+    // POST /products/bulk: positive id = replace (guarded by updated_at when given), otherwise
+    // create (deduplicated by idempotency_key); one result per item
+    private Reply bulkProducts(JsonNode items) {
+        if (!items.isArray() || items.isEmpty() || items.size() > MAX_BULK_ITEMS) {
+            throw new HttpError(400, "Expected an array of 1.." + MAX_BULK_ITEMS + " products");
+        }
+        ArrayNode results = mapper.createArrayNode();
+        for (JsonNode item : items) {
+            ObjectNode result = results.addObject();
+            try {
+                validateProduct(item, true);
+                double id = jsNumber(item.get("id"));
+                boolean replace = isInteger(id) && id > 0;
+                ObjectNode row = replace
+                    ? store.update(Table.PRODUCTS, (int) id, version(item), r -> putProduct(r, item))
+                    : insertProduct(item);
+                if (row == null) throw new HttpError(404, "Not found");
+                result.put("status", replace ? 200 : 201);
+                result.set("product", row);
+            } catch (StaleRow e) {
+                result.put("status", 409);
+                result.put("error", e.getMessage());
+                result.set("product", e.current());
+            } catch (HttpError e) {
+                result.put("status", e.status);
+                result.put("error", e.getMessage());
+            } catch (ConstraintViolation e) {
+                result.put("status", 500);
+                result.put("error", "Internal server error");
+            }
+        }
+        return new Reply(200, results);
+    }
+
+    // /orders/:id/products[/:itemId]
+    private Reply orderProducts(String method, String rawOrderId, String rawItemId, int segments, byte[] body) throws IOException {
+        if (segments == 4 && method.equals("GET")) {
+            return new Reply(200, mapper.valueToTree(store.lines(id(rawOrderId, "Invalid order id"))));
+        }
+        if (segments == 4 && method.equals("POST")) {
+            int orderId = id(rawOrderId, "Invalid order id");
+            JsonNode line = json(body);
+            if (!isInteger(line.get("product_id"))) throw new HttpError(400, "Invalid product_id");
+            if (!isInteger(line.get("quantity")) || line.get("quantity").asInt() <= 0) throw new HttpError(400, "Invalid quantity");
+            JsonNode price = line.get("unit_price");
+            if (price == null || !price.isNumber() || price.asDouble() < 0) throw new HttpError(400, "Invalid unit_price");
+            return new Reply(201, store.addLine(orderId, line.get("product_id").asInt(),
+                line.get("quantity").asInt(), price.decimalValue()));
+        }
+        if (segments == 5 && method.equals("DELETE")) {
+            double orderId = jsNumber(rawOrderId);
+            double itemId = jsNumber(rawItemId);
+            if (!isInteger(orderId) || !isInteger(itemId)) throw new HttpError(400, "Invalid id");
+            if (!store.deleteLine((int) orderId, (int) itemId)) throw new HttpError(404, "Not found");
+            return new Reply(204, null);
+        }
+        return null;
+    }
+
+    // --- Validation (mirrors node/src/middleware/validation.js and the controllers) ---
+
+    private void validateProduct(JsonNode b, boolean create) {
+        if (create ? !isNonEmptyString(b.get("name"), 100)
+                   : truthy(b.get("name")) && !isNonEmptyString(b.get("name"), 100)) {
+            throw new HttpError(400, "Invalid name");
+        }
+        if (truthy(b.get("description")) && !b.get("description").isTextual()) {
+            throw new HttpError(400, "Invalid description");
+        }
+        if ((create || b.has("price")) && !isPrice(jsNumber(b.get("price")))) {
+            throw new HttpError(400, "Invalid price");
+        }
+        if ((create || b.has("stock")) && !(isInteger(jsNumber(b.get("stock"))) && jsNumber(b.get("stock")) >= 0)) {
+            throw new HttpError(400, "Invalid stock");
+        }
+        // Like the Node API, an explicit null provider_id is Number(null) = 0 and rejected
+        if (b.has("provider_id")) {
+            double provider = jsNumber(b.get("provider_id"));
+            if (!(isInteger(provider) && provider >= 1)) throw new HttpError(400, "Invalid provider_id");
+        }
+    }
+
+    private void validateClient(JsonNode b, boolean create) {
+        if ((create || b.has("name")) && !isNonEmptyString(b.get("name"), 100)) throw new HttpError(400, "Invalid name");
+        if (create || b.has("email")) {
+            JsonNode email = b.get("email");
+            String v = email != null && email.isTextual() ? email.asText().trim() : null;
+            if (v == null || v.length() > 150 || !v.matches("^[^\\s@]+@[^\\s@]+\\.[^\\s@]+$")) {
+                throw new HttpError(400, "Invalid email");
+            }
+        }
+        if (!optionalString(b.get("phone"), 30)) throw new HttpError(400, "Invalid phone");
+        if (!optionalString(b.get("address"), 255)) throw new HttpError(400, "Invalid address");
+    }
+
+    private void validateOrder(JsonNode b, boolean create) {
+        if (b.has("order_status") && !oneOf(STATUSES, b.get("order_status"))) {
+            throw new HttpError(400, "Invalid order_status");
+        }
+        if (b.has("payment_method") && !oneOf(PAYMENT_METHODS, b.get("payment_method"))) {
+            throw new HttpError(400, "Invalid payment_method");
+        }
+        if (b.has("currency_code")) {
+            String currency = textOrNull(b.get("currency_code"));
+            if (currency == null || !currency.trim().toUpperCase().matches("[A-Z]{3}")) {
+                throw new HttpError(400, "Invalid currency_code");
+            }
+        }
+        for (String column : List.of("shipping_address", "billing_address")) {
+            if (!optionalString(b.get(column), 255)) {
+                throw new HttpError(400, create ? "Invalid address" : "Invalid " + column);
+            }
+        }
+    }
+
+    private static boolean isNonEmptyString(JsonNode n, int max) {
+        return n != null && n.isTextual() && !n.asText().trim().isEmpty() && n.asText().length() <= max;
+    }
+
+    private static boolean optionalString(JsonNode n, int max) {
+        return n == null || n.isNull() || (n.isTextual() && n.asText().trim().length() <= max);
+    }
+
+    private static boolean oneOf(Set<String> allowed, JsonNode n) {
+        return n != null && n.isTextual() && allowed.contains(n.asText());
+    }
+
+    private static boolean isPrice(double p) {
+        return !Double.isNaN(p) && p >= 0 && p <= 999999.99;
+    }
+
+    // Number.isInteger on a JSON value: only real numbers count, "5" does not
+    private static boolean isInteger(JsonNode n) {
+        return n != null && n.isNumber() && isInteger(n.asDouble());
+    }
+
+    private static boolean isInteger(double d) {
+        return !Double.isNaN(d) && !Double.isInfinite(d) && d == Math.rint(d);
+    }
+
+    // JavaScript truthiness of a body field
+    // The updated_at an update is based on, null when the client sent none
+    private static Instant version(JsonNode body) {
+        JsonNode v = body.get("updated_at");
+        if (v == null || v.isNull()) return null;
+        try {
+            return Instant.parse(v.asText());
+        } catch (RuntimeException e) {
+            throw new HttpError(400, "Invalid updated_at");
+        }
+    }
+
+    private static boolean truthy(JsonNode n) {
+        if (n == null || n.isNull() || n.isMissingNode()) return false;
+        if (n.isTextual()) return !n.asText().isEmpty();
+        if (n.isNumber()) return n.asDouble() != 0;
+        if (n.isBoolean()) return n.asBoolean();
+        return true;
+    }
+
+    // JavaScript Number(value), which is how the controllers coerce body fields
+    private static double jsNumber(JsonNode n) {
+        if (n == null || n.isMissingNode()) return Double.NaN;
+        if (n.isNull()) return 0;
+        if (n.isNumber()) return n.asDouble();
+        if (n.isBoolean()) return n.asBoolean() ? 1 : 0;
+        if (n.isTextual()) return jsNumber(n.asText());
+        return Double.NaN;
+    }
+
+    private static double jsNumber(String s) {
+        String t = s.trim();
+        if (t.isEmpty()) return 0;
+        try {
+            return Double.parseDouble(t);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static int id(String raw, String message) {
+        double id = jsNumber(raw);
+        if (!isInteger(id)) throw new HttpError(400, message);
+        return (int) id;
+    }
+
+    // MySQL coerces the value into DECIMAL(12,2); garbage is a server error there too
+    private static String money(JsonNode n) {
+        double v = jsNumber(n);
+        if (Double.isNaN(v)) throw new ConstraintViolation("Incorrect decimal value", false);
+        return FakeShopStore.decimal(BigDecimal.valueOf(v));
+    }
+
+    private static String text(JsonNode body, String field, String fallback) {
+        JsonNode n = body.get(field);
+        return n == null ? fallback : n.asText();
+    }
+
+    private static String textOrNull(JsonNode n) {
+        return n != null && n.isTextual() ? n.asText() : null;
+    }
+
+    // --- Wire ---
+
+    private JsonNode json(byte[] body) throws IOException {
+        if (body.length == 0) return mapper.createObjectNode();
+        try {
+            JsonNode node = mapper.readTree(body);
+            return node == null || node.isMissingNode() ? mapper.createObjectNode() : node;
+        } catch (IOException e) {
+            throw new HttpError(400, "Invalid JSON");
+        }
+    }
+
+    private JsonNode error(String message) {
+        ObjectNode err = mapper.createObjectNode();
+        err.put("error", message);
+        return err;
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.putIfAbsent(key, value);
+        }
+        return params;
+    }
+
+    private void send(HttpExchange exchange, Reply reply) throws IOException {
+        if (reply.status() == 204) {
+            exchange.sendResponseHeaders(204, -1);
+            return;
+        }
+        var headers = exchange.getResponseHeaders();
+        byte[] bytes;
+        // Like node/src/middleware/cbor.js: successful bodies only, errors stay JSON
+        if (reply.status() < 300 && prefersCbor(exchange)) {
+            bytes = cbor.writeValueAsBytes(reply.body());
+            headers.set("Content-Type", "application/cbor");
+        } else {
+            bytes = mapper.writeValueAsBytes(reply.body());
+            headers.set("Content-Type", "application/json; charset=utf-8");
+        }
+        reply.headers().forEach(headers::set);
+        headers.set("Vary", "Accept, Accept-Encoding");
+        String encoding = bytes.length >= COMPRESS_MIN_BYTES ? encoding(exchange) : null;
+        if (encoding != null) {
+            // Before the ETag, which Express also computes over the encoded body
+            bytes = encode(bytes, encoding);
+            headers.set("Content-Encoding", encoding);
+        }
+
+        if (reply.status() == 200 && exchange.getRequestMethod().equals("GET")) {
+            String etag = etag(bytes);
+            headers.set("ETag", etag);
+            Instant modified = lastModified(reply.body());
+            if (modified != null) {
+                headers.set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(modified.atOffset(ZoneOffset.UTC)));
+            }
+            if (notModified(exchange, etag, modified)) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+        }
+        exchange.sendResponseHeaders(reply.status(), bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            write(out, bytes, faults.bytesPerSecond());
+        }
+    }
+
+    // Accept ranks application/cbor above application/json (a tie, e.g. */*, goes to JSON)
+    private static boolean prefersCbor(HttpExchange exchange) {
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        if (accept == null) return false;
+        double cborQ = quality(accept, "application/cbor");
+        return cborQ > 0 && cborQ > quality(accept, "application/json");
+    }
+
+    // q of the most specific Accept entry matching the type
+    private static double quality(String accept, String type) {
+        double exact = -1, range = -1, any = -1;
+        String subRange = type.substring(0, type.indexOf('/')) + "/*";
+        for (String part : accept.split(",")) {
+            String[] p = part.trim().split(";");
+            String name = p[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < p.length; i++) {
+                String param = p[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (name.equals(type)) exact = q;
+            else if (name.equals(subRange)) range = q;
+            else if (name.equals("*/*")) any = q;
+        }
+        return exact >= 0 ? exact : range >= 0 ? range : Math.max(any, 0);
+    }
+
+    // gzip or deflate if Accept-Encoding offers them (gzip first, q=0 means refused), else null
+    private static String encoding(HttpExchange exchange) {
+        String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (accept == null) return null;
+        boolean deflate = false;
+        for (String part : accept.split(",")) {
+            String[] p = part.trim().split(";");
+            String name = p[0].trim().toLowerCase(Locale.ROOT);
+            boolean refused = p.length > 1 && p[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            if (refused) continue;
+            if (name.equals("gzip")) return "gzip";
+            if (name.equals("deflate")) deflate = true;
+        }
+        return deflate ? "deflate" : null;
+    }
+
+    private static byte[] encode(byte[] body, String encoding) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(body.length / 4);
+        try (OutputStream out = encoding.equals("gzip") ? new GZIPOutputStream(buf) : new DeflaterOutputStream(buf)) {
+            out.write(body);
+        }
+        return buf.toByteArray();
+    }
+
+    // Paced in 50 ms slices when a bandwidth limit is set
+    private static void write(OutputStream out, byte[] bytes, long bytesPerSecond) throws IOException {
+        if (bytesPerSecond <= 0) {
+            out.write(bytes);
+            return;
+        }
+        int slice = (int) Math.max(512, bytesPerSecond / 20);
+        try {
+            for (int off = 0; off < bytes.length; off += slice) {
+                int n = Math.min(slice, bytes.length - off);
+                out.write(bytes, off, n);
+                out.flush();
+                Thread.sleep(n * 1000L / bytesPerSecond);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Same shape as Express' strong ETag: "<length hex>-<sha1 base64>"
+    private static String etag(byte[] body) {
+        try {
+            byte[] sha1 = MessageDigest.getInstance("SHA-1").digest(body);
+            String hash = Base64.getEncoder().withoutPadding().encodeToString(sha1);
+            return "\"" + Integer.toHexString(body.length) + "-" + hash + "\"";
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Single rows only, like node/src/middleware/conditional.js
+    private static Instant lastModified(JsonNode body) {
+        if (body == null || !body.isObject()) return null;
+        JsonNode stamp = body.hasNonNull("updated_at") ? body.get("updated_at") : body.get("created_at");
+        if (stamp == null || !stamp.isTextual()) return null;
+        try {
+            return Instant.parse(stamp.asText());
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean notModified(HttpExchange exchange, String etag, Instant modified) {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String c = candidate.trim();
+                if (c.equals("*") || c.equals(etag) || c.equals("W/" + etag)) return true;
+            }
+            return false;
+        }
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        if (ifModifiedSince != null && modified != null) {
+            try {
+                Instant since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                return !modified.isAfter(since);
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = Integer.getInteger("shop.fake.port", 3100);
+        FakeShopServer fake = startFromSystemProperties(port);
+        System.out.println("Fake shop API listening at " + fake.baseUrl() + " (" + fake.getFaults() + ")");
+    }
+}
@@ -0,0 +1,325 @@
+package com.demo.ui.devserver;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// In-memory stand-in for shopdb. Rows are JSON objects shaped exactly like the mysql2
+// rows the Node API returns (snake_case columns in table order, DECIMAL as strings,
+// TIMESTAMP as ISO-8601 UTC). Rows are never mutated once stored, only replaced,
+// so the lists handed out can be serialized outside the lock.
+public class FakeShopStore {
+
+    public enum Table { PRODUCTS, CLIENTS, ORDERS }
+
+    // A write MySQL would reject: duplicate unique key or a broken foreign key
+    public static class ConstraintViolation extends RuntimeException {
+        private final boolean duplicate;
+
+        ConstraintViolation(String message, boolean duplicate) {
+            super(message);
+            this.duplicate = duplicate;
+        }
+
+        public boolean isDuplicate() { return duplicate; }
+    }
+
+    // An update guarded by updated_at found the row changed since; carries the row as it is now
+    public static class StaleRow extends RuntimeException {
+        private final ObjectNode current;
+
+        StaleRow(ObjectNode current) {
+            super("Modified since updated_at");
+            this.current = current;
+        }
+
+        public ObjectNode current() { return current; }
+    }
+
+    private static final BigDecimal TAX_RATE = new BigDecimal("0.21");
+    private static final DateTimeFormatter TIMESTAMP =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    private final JsonNodeFactory json = JsonNodeFactory.instance;
+    private final Map<Table, NavigableMap<Integer, ObjectNode>> tables = Map.of(
+        Table.PRODUCTS, new TreeMap<>(),
+        Table.CLIENTS, new TreeMap<>(),
+        Table.ORDERS, new TreeMap<>()
+    );
+    private final Map<Table, int[]> autoIncrement = Map.of(
+        Table.PRODUCTS, new int[] { 1 },
+        Table.CLIENTS, new int[] { 1 },
+        Table.ORDERS, new int[] { 1 }
+    );
+    // order_products grouped by order_id, ids are global like the real AUTO_INCREMENT
+    private final Map<Integer, NavigableMap<Integer, ObjectNode>> lines = new TreeMap<>();
+    private int nextLineId = 1;
+
+    // Deterministic synthetic data; padding adds that many characters to every
+    // description/notes column to make payloads heavier.
+    public static FakeShopStore seeded(int products, int clients, int orders, int linesPerOrder, int padding) {
+        FakeShopStore store = new FakeShopStore();
+        Random rnd = new Random(42);
+        String pad = "x".repeat(Math.max(0, padding));
+        String[] statuses = { "pending", "paid", "shipped", "completed", "cancelled" };
+        String[] methods = { "credit_card", "paypal", "bank_transfer", "cash" };
+
+        for (int i = 1; i <= products; i++) {
+            int n = i;
+            store.insert(Table.PRODUCTS, row -> {
+                row.put("name", "Product " + n);
+                row.put("description", "Synthetic product " + n + pad);
+                row.put("price", decimal(BigDecimal.valueOf(100 + rnd.nextInt(99_900), 2)));
+                row.put("stock", rnd.nextInt(500));
+                row.put("provider_id", 1 + rnd.nextInt(3));
+            });
+        }
+        for (int i = 1; i <= clients; i++) {
+            int n = i;
+            store.insert(Table.CLIENTS, row -> {
+                row.put("name", "Client " + n);
+                row.put("email", "client" + n + "@example.com");
+                row.put("phone", "555-" + String.format("%04d", n % 10_000));
+                row.put("address", n + " Main Street");
+            });
+        }
+        for (int i = 1; clients > 0 && i <= orders; i++) {
+            int n = i;
+            ObjectNode order = store.insert(Table.ORDERS, row -> {
+                row.put("order_number", "ORD-" + (100_000 + n));
+                row.put("client_id", 1 + rnd.nextInt(clients));
+                row.put("order_status", statuses[rnd.nextInt(statuses.length)]);
+                row.put("payment_method", methods[rnd.nextInt(methods.length)]);
+                row.put("discount_amount", decimal(BigDecimal.valueOf(rnd.nextInt(2_000), 2)));
+                row.put("shipping_address", "Calle Mayor " + n);
+                row.put("billing_address", "Calle Mayor " + n);
+                row.put("notes", pad.isEmpty() ? null : pad);
+            });
+            for (int l = 0; products > 0 && l < linesPerOrder; l++) {
+                store.addLine(order.get("id").asInt(), 1 + rnd.nextInt(products),
+                    1 + rnd.nextInt(5), BigDecimal.valueOf(100 + rnd.nextInt(20_000), 2));
+            }
+        }
+        return store;
+    }
+
+    // --- products / clients / orders ---
+
+    // SELECT * ... ORDER BY id DESC
+    public synchronized List<ObjectNode> list(Table table) {
+        return new ArrayList<>(tables.get(table).descendingMap().values());
+    }
+
+    // SELECT * ... WHERE id < afterId ORDER BY id DESC LIMIT limit
+    public synchronized List<ObjectNode> page(Table table, Integer afterId, int limit) {
+        NavigableMap<Integer, ObjectNode> rows = tables.get(table);
+        if (afterId != null) rows = rows.headMap(afterId, false);
+        List<ObjectNode> page = new ArrayList<>(Math.min(limit, rows.size()));
+        for (ObjectNode row : rows.descendingMap().values()) {
+            if (page.size() == limit) break;
+            page.add(row);
+        }
+        return page;
+    }
+
+    // SELECT * ... WHERE updated_at >= since ORDER BY id DESC
+    public synchronized List<ObjectNode> changedSince(Table table, Instant since) {
+        List<ObjectNode> rows = new ArrayList<>();
+        for (ObjectNode row : tables.get(table).descendingMap().values()) {
+            if (!Instant.parse(row.get("updated_at").asText()).isBefore(since)) rows.add(row);
+        }
+        return rows;
+    }
+
+    public synchronized int count(Table table) {
+        return tables.get(table).size();
+    }
+
+    public synchronized ObjectNode get(Table table, int id) {
+        return tables.get(table).get(id);
+    }
+
+    // INSERT with column defaults; fill sets the provided columns
+    public synchronized ObjectNode insert(Table table, Consumer<ObjectNode> fill) {
+        int id = autoIncrement.get(table)[0];
+        String now = now();
+        ObjectNode row = defaults(table, id, now);
+        fill.accept(row);
+        check(table, id, row);
+        autoIncrement.get(table)[0]++;
+        tables.get(table).put(id, row);
+        return row;
+    }
+
+    // UPDATE ... WHERE id = ?; null when the row does not exist.
+    // updated_at only moves when a column actually changed (ON UPDATE CURRENT_TIMESTAMP).
+    public synchronized ObjectNode update(Table table, int id, Consumer<ObjectNode> patch) {
+        ObjectNode existing = tables.get(table).get(id);
+        if (existing == null) return null;
+        ObjectNode row = existing.deepCopy();
+        patch.accept(row);
+        if (row.equals(existing)) return existing;
+        check(table, id, row);
+        row.put("updated_at", now());
+        tables.get(table).put(id, row);
+        return row;
+    }
+
+    // UPDATE ... WHERE id = ? AND updated_at = ?, with no check when version is null.
+    // Throws StaleRow when the row exists but has a different updated_at.
+    public synchronized ObjectNode update(Table table, int id, Instant version, Consumer<ObjectNode> patch) {
+        ObjectNode existing = tables.get(table).get(id);
+        if (existing != null && version != null
+                && !Instant.parse(existing.get("updated_at").asText()).equals(version)) {
+            throw new StaleRow(existing);
+        }
+        return update(table, id, patch);
+    }
+
+    public synchronized boolean delete(Table table, int id) {
+        if (!tables.get(table).containsKey(id)) return false;
+        if (table == Table.CLIENTS && referenced(Table.ORDERS, "client_id", id)) {
+            throw new ConstraintViolation("orders_ibfk_1", false);
+        }
+        if (table == Table.ORDERS && !lines.getOrDefault(id, Collections.emptyNavigableMap()).isEmpty()) {
+            throw new ConstraintViolation("order_products_ibfk_1", false);
+        }
+        if (table == Table.PRODUCTS && lines.values().stream()
+                .anyMatch(ls -> ls.values().stream().anyMatch(l -> l.get("product_id").asInt() == id))) {
+            throw new ConstraintViolation("order_products_ibfk_2", false);
+        }
+        tables.get(table).remove(id);
+        return true;
+    }
+
+    // --- order_products (+ the totals triggers) ---
+
+    public synchronized List<ObjectNode> lines(int orderId) {
+        return new ArrayList<>(lines.getOrDefault(orderId, Collections.emptyNavigableMap()).values());
+    }
+
+    public synchronized ObjectNode addLine(int orderId, int productId, int quantity, BigDecimal unitPrice) {
+        if (!tables.get(Table.ORDERS).containsKey(orderId)) throw new ConstraintViolation("order_products_ibfk_1", false);
+        if (!tables.get(Table.PRODUCTS).containsKey(productId)) throw new ConstraintViolation("order_products_ibfk_2", false);
+        ObjectNode row = json.objectNode();
+        row.put("id", nextLineId);
+        row.put("order_id", orderId);
+        row.put("product_id", productId);
+        row.put("quantity", quantity);
+        BigDecimal price = unitPrice.setScale(2, RoundingMode.HALF_UP);
+        row.put("unit_price", decimal(price));
+        row.put("line_total", decimal(price.multiply(BigDecimal.valueOf(quantity))));
+        lines.computeIfAbsent(orderId, k -> new TreeMap<>()).put(nextLineId++, row);
+        recalculateTotals(orderId);
+        return row;
+    }
+
+    public synchronized boolean deleteLine(int orderId, int lineId) {
+        NavigableMap<Integer, ObjectNode> orderLines = lines.get(orderId);
+        if (orderLines == null || orderLines.remove(lineId) == null) return false;
+        recalculateTotals(orderId);
+        return true;
+    }
+
+    // trg_order_products_after_insert/update/delete: subtotal = SUM(line_total),
+    // tax = subtotal * 0.21, total = GREATEST(subtotal - discount + tax, 0)
+    private void recalculateTotals(int orderId) {
+        update(Table.ORDERS, orderId, order -> {
+            BigDecimal subtotal = BigDecimal.ZERO;
+            for (ObjectNode line : lines.getOrDefault(orderId, Collections.emptyNavigableMap()).values()) {
+                subtotal = subtotal.add(new BigDecimal(line.get("line_total").asText()));
+            }
+            subtotal = subtotal.setScale(2, RoundingMode.HALF_UP);
+            BigDecimal discount = new BigDecimal(order.get("discount_amount").asText());
+            BigDecimal tax = subtotal.multiply(TAX_RATE).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal total = subtotal.subtract(discount).add(tax).max(BigDecimal.ZERO);
+            order.put("subtotal_amount", decimal(subtotal));
+            order.put("tax_amount", decimal(tax));
+            order.put("total_amount", decimal(total));
+        });
+    }
+
+    // --- helpers ---
+
+    private ObjectNode defaults(Table table, int id, String now) {
+        ObjectNode row = json.objectNode();
+        row.put("id", id);
+        switch (table) {
+            case PRODUCTS -> {
+                row.putNull("name");
+                row.putNull("description");
+                row.put("price", "0.00");
+                row.put("stock", 0);
+                row.putNull("provider_id");
+            }
+            case CLIENTS -> {
+                row.putNull("name");
+                row.putNull("email");
+                row.putNull("phone");
+                row.putNull("address");
+            }
+            case ORDERS -> {
+                row.put("order_number", UUID.randomUUID().toString());
+                row.putNull("client_id");
+                row.put("order_date", now);
+                row.put("order_status", "pending");
+                row.put("payment_method", "credit_card");
+                row.put("currency_code", "EUR");
+                row.put("subtotal_amount", "0.00");
+                row.put("discount_amount", "0.00");
+                row.put("tax_amount", "0.00");
+                row.put("total_amount", "0.00");
+                row.putNull("shipping_address");
+                row.putNull("billing_address");
+                row.putNull("notes");
+            }
+        }
+        row.put("created_at", now);
+        row.put("updated_at", now);
+        return row;
+    }
+
+    private void check(Table table, int id, ObjectNode row) {
+        if (table == Table.CLIENTS) {
+            String email = row.get("email").asText();
+            for (ObjectNode other : tables.get(Table.CLIENTS).values()) {
+                if (other.get("id").asInt() != id && other.get("email").asText().equalsIgnoreCase(email)) {
+                    throw new ConstraintViolation("Duplicate entry '" + email + "' for key 'email'", true);
+                }
+            }
+        }
+        if (table == Table.ORDERS && !tables.get(Table.CLIENTS).containsKey(row.get("client_id").asInt())) {
+            throw new ConstraintViolation("orders_ibfk_1", false);
+        }
+    }
+
+    private boolean referenced(Table table, String column, int id) {
+        for (ObjectNode row : tables.get(table).values()) {
+            if (row.get(column).asInt() == id) return true;
+        }
+        return false;
+    }
+
+    static String decimal(BigDecimal value) {
+        return value.setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static String now() {
+        return TIMESTAMP.format(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+}
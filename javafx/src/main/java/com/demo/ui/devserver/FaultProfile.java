@@ -0,0 +1,63 @@
+package com.demo.ui.devserver;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+// How badly the fake backend should behave. Every request waits latency + U(0, jitter);
+// a slowRate fraction additionally waits slowLatency (the tail), and an errorRate
+// fraction is answered with the backend's generic 500. Response bodies are sent at no more
+// than bytesPerSecond (0 = unlimited), like a slow Wi-Fi link.
+public record FaultProfile(Duration latency, Duration jitter,
+                           double slowRate, Duration slowLatency,
+                           double errorRate, long bytesPerSecond) {
+
+    public static final FaultProfile NONE =
+        new FaultProfile(Duration.ZERO, Duration.ZERO, 0, Duration.ZERO, 0, 0);
+
+    public FaultProfile {
+        if (slowRate < 0 || slowRate > 1 || errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("Rates must be between 0 and 1");
+        }
+    }
+
+    // -Dshop.fake.latencyMs=..., -Dshop.fake.jitterMs=..., -Dshop.fake.slowRate=...,
+    // -Dshop.fake.slowMs=..., -Dshop.fake.errorRate=..., -Dshop.fake.bandwidthKBps=...
+    public static FaultProfile fromSystemProperties() {
+        return new FaultProfile(
+            Duration.ofMillis(Long.getLong("shop.fake.latencyMs", 0)),
+            Duration.ofMillis(Long.getLong("shop.fake.jitterMs", 0)),
+            Double.parseDouble(System.getProperty("shop.fake.slowRate", "0")),
+            Duration.ofMillis(Long.getLong("shop.fake.slowMs", 0)),
+            Double.parseDouble(System.getProperty("shop.fake.errorRate", "0")),
+            Long.getLong("shop.fake.bandwidthKBps", 0) * 1024
+        );
+    }
+
+    public FaultProfile withLatency(Duration latency, Duration jitter) {
+        return new FaultProfile(latency, jitter, slowRate, slowLatency, errorRate, bytesPerSecond);
+    }
+
+    public FaultProfile withTail(double slowRate, Duration slowLatency) {
+        return new FaultProfile(latency, jitter, slowRate, slowLatency, errorRate, bytesPerSecond);
+    }
+
+    public FaultProfile withErrorRate(double errorRate) {
+        return new FaultProfile(latency, jitter, slowRate, slowLatency, errorRate, bytesPerSecond);
+    }
+
+    public FaultProfile withBandwidth(long bytesPerSecond) {
+        return new FaultProfile(latency, jitter, slowRate, slowLatency, errorRate, bytesPerSecond);
+    }
+
+    long nextDelayMillis() {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        long delay = latency.toMillis();
+        if (!jitter.isZero()) delay += rnd.nextLong(jitter.toMillis() + 1);
+        if (slowRate > 0 && rnd.nextDouble() < slowRate) delay += slowLatency.toMillis();
+        return delay;
+    }
+
+    boolean nextFails() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+}
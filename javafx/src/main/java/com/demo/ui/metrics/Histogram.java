@@ -0,0 +1,114 @@
+package com.demo.ui.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free log-linear histogram of non-negative longs (nanoseconds or bytes).
+// Values below 16 get their own bucket; above that every power of two is split into 16 buckets,
+// so a reported percentile is at most 1/16 (6.25%) above the true value. Recording is one
+// bucket increment, one striped add and, only for a new maximum, a CAS.
+public final class Histogram {
+
+    public enum Unit { NANOS, BYTES }
+
+    public record Snapshot(String name, Unit unit, long count, long sum,
+                           long p50, long p90, long p99, long max) {
+        public double mean() { return count == 0 ? 0 : (double) sum / count; }
+    }
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final String name;
+    private final Unit unit;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram(String name, Unit unit) {
+        this.name = name;
+        this.unit = unit;
+    }
+
+    public String name() { return name; }
+    public Unit unit() { return unit; }
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        buckets.incrementAndGet(bucketOf(value));
+        sum.add(value);
+        long m;
+        while (value > (m = max.get()) && !max.compareAndSet(m, value)) { }
+    }
+
+    // For timers: record(System.nanoTime() - startNanos)
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        long top = max.get();
+        return new Snapshot(name, unit, count, sum.sum(),
+            percentile(counts, count, 0.50, top), percentile(counts, count, 0.90, top),
+            percentile(counts, count, 0.99, top), top);
+    }
+
+    // One percentile of everything recorded so far, without a full snapshot
+    public long percentile(double p) {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        return percentile(counts, count, p, max.get());
+    }
+
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) count += buckets.get(i);
+        return count;
+    }
+
+    // Not atomic with respect to concurrent records; good enough to start a fresh measurement
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+        sum.reset();
+        max.set(0);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_COUNT) return (int) value;
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exp - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    // Largest value that falls into the bucket
+    static long upperBound(int bucket) {
+        if (bucket < SUB_COUNT) return bucket;
+        int exp = bucket / SUB_COUNT + SUB_BITS - 1;
+        long sub = bucket % SUB_COUNT;
+        int shift = exp - SUB_BITS;
+        return ((SUB_COUNT + sub) << shift) + (1L << shift) - 1;
+    }
+
+    private static long percentile(long[] counts, long count, double p, long top) {
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(p * count);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(upperBound(i), top);
+        }
+        return top;
+    }
+}
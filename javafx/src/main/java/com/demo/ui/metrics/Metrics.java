@@ -0,0 +1,86 @@
+package com.demo.ui.metrics;
+
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Process-wide registry of named histograms, created on first use:
+//   http <METHOD> <path>   latency of each attempt per endpoint, ids in the path folded into {id};
+//                          "... retry" the backoff before each retry, "... hedge" the delay after
+//                          which a hedged copy was sent, "... rejected" the remaining open time of
+//                          calls refused by the circuit breaker, "... wire" body bytes as received
+//                          (compressed or not)
+//   json <entity>          Jackson decode time per service, "json <entity> bytes" the body sizes
+//   ui <ViewModel>         delay from a background task posting its result to the FX thread applying it
+//   ui queue wait / ui batch   UiUpdateScheduler: oldest queued update to batch start, batch apply time
+//   prefetch order details     OrderPrefetcher: start of a prefetch to the order, lines, products
+//                              and client all being in hand
+// Callers on hot paths look their histogram up once and keep it. Shown in the Diagnostics
+// view and over JMX as com.demo.ui:type=Metrics.
+public final class Metrics {
+
+    public static final String MBEAN_NAME = "com.demo.ui:type=Metrics";
+
+    private static final Metrics SHARED = new Metrics();
+
+    private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private boolean registered;
+
+    public static Metrics shared() { return SHARED; }
+
+    public Histogram latency(String name) {
+        return histogram(name, Histogram.Unit.NANOS);
+    }
+
+    public Histogram bytes(String name) {
+        return histogram(name, Histogram.Unit.BYTES);
+    }
+
+    private Histogram histogram(String name, Histogram.Unit unit) {
+        Histogram h = histograms.get(name);
+        return h != null ? h : histograms.computeIfAbsent(name, n -> new Histogram(n, unit));
+    }
+
+    public List<Histogram.Snapshot> snapshot() {
+        List<Histogram.Snapshot> all = new ArrayList<>(histograms.size());
+        for (Histogram h : histograms.values()) all.add(h.snapshot());
+        all.sort(Comparator.comparing(Histogram.Snapshot::name));
+        return all;
+    }
+
+    public void reset() {
+        for (Histogram h : histograms.values()) h.reset();
+    }
+
+    // "GET", "/orders/42/products" -> "GET /orders/{id}/products"
+    public static String endpoint(String method, String path) {
+        StringBuilder sb = new StringBuilder(method.length() + path.length() + 4).append(method).append(' ');
+        int i = 0;
+        while (i < path.length()) {
+            int end = path.indexOf('/', i + 1);
+            if (end < 0) end = path.length();
+            boolean digits = end - i > 1;
+            for (int j = i + 1; j < end && digits; j++) digits = Character.isDigit(path.charAt(j));
+            if (digits) sb.append("/{id}");
+            else sb.append(path, i, end);
+            i = end;
+        }
+        return sb.toString();
+    }
+
+    // Once per process; a second call is a no-op
+    public synchronized void registerMBean() {
+        if (registered) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                new StandardMBean(new MetricsJmx(this), MetricsMBean.class), new ObjectName(MBEAN_NAME));
+            registered = true;
+        } catch (Exception e) {
+            throw new RuntimeException("Could not register " + MBEAN_NAME, e);
+        }
+    }
+}
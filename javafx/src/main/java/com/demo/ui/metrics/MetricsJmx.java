@@ -0,0 +1,47 @@
+package com.demo.ui.metrics;
+
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+// Histogram snapshots as open data, so any JMX console can show them without our classes
+final class MetricsJmx implements MetricsMBean {
+
+    private static final String[] ITEMS = { "name", "unit", "count", "mean", "p50", "p90", "p99", "max" };
+
+    private final Metrics metrics;
+    private final CompositeType rowType;
+    private final TabularType tableType;
+
+    MetricsJmx(Metrics metrics) throws OpenDataException {
+        this.metrics = metrics;
+        this.rowType = new CompositeType("Histogram", "Histogram snapshot", ITEMS, ITEMS,
+            new OpenType<?>[] { SimpleType.STRING, SimpleType.STRING, SimpleType.LONG, SimpleType.DOUBLE,
+                SimpleType.LONG, SimpleType.LONG, SimpleType.LONG, SimpleType.LONG });
+        this.tableType = new TabularType("Histograms", "Histogram snapshots", rowType, new String[] { "name" });
+    }
+
+    @Override
+    public TabularData getHistograms() {
+        TabularDataSupport table = new TabularDataSupport(tableType);
+        for (Histogram.Snapshot s : metrics.snapshot()) {
+            try {
+                table.put(new CompositeDataSupport(rowType, ITEMS, new Object[] {
+                    s.name(), s.unit().name(), s.count(), s.mean(), s.p50(), s.p90(), s.p99(), s.max() }));
+            } catch (OpenDataException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return table;
+    }
+
+    @Override
+    public void reset() {
+        metrics.reset();
+    }
+}
@@ -0,0 +1,13 @@
+package com.demo.ui.metrics;
+
+import javax.management.openmbean.TabularData;
+
+// JMX view of the metrics registry (jconsole / VisualVM: com.demo.ui > Metrics). A standard
+// MBean rather than an MXBean: the MXBean mapping would turn TabularData into a bean of its getters
+public interface MetricsMBean {
+
+    // One row per histogram: name, unit, count, mean, p50, p90, p99, max
+    TabularData getHistograms();
+
+    void reset();
+}
@@ -0,0 +1,177 @@
+package com.demo.ui.models;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.CharBuffer;
+
+// Amounts as a long count of cents, matching the DECIMAL(12,2) columns they come from.
+// Arithmetic is plain long arithmetic (overflow throws), rounding is half away from zero like
+// MySQL's, and conversion to and from text never goes through a double.
+//
+// JSON: read from strings ("19.99", how mysql2 returns DECIMAL) or numbers, written as exact
+// decimal numbers (19.99) so the backend's numeric validation still accepts them.
+public final class Money {
+
+    // Longest formatted amount: sign, 17 digits, '.', 2 digits
+    public static final int MAX_CHARS = 21;
+
+    private Money() { }
+
+    // --- Arithmetic ---
+
+    public static long times(long cents, int quantity) {
+        return Math.multiplyExact(cents, quantity);
+    }
+
+    // percent% of an amount, rounded half away from zero to cents
+    public static long percentOf(long cents, int percent) {
+        return divideHalfUp(Math.multiplyExact(cents, percent), 100);
+    }
+
+    static long divideHalfUp(long value, long divisor) {
+        long half = divisor / 2;
+        return value >= 0 ? (value + half) / divisor : -((-value + half) / divisor);
+    }
+
+    // --- Conversion ---
+
+    // For values that only exist as doubles (user input bound to a number field). Goes through
+    // the shortest decimal form of the double, so 19.99 is 1999 and not 1998.9999...
+    public static long ofDouble(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    // "12", "-3.5", "19.99", "+0.125" (rounded half-up to 0.13). Anything else, including
+    // exponents, goes through BigDecimal. Throws NumberFormatException for non-numbers.
+    public static long parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    public static long parse(CharSequence s, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (s.charAt(i) == '-' || s.charAt(i) == '+')) negative = s.charAt(i++) == '-';
+        long units = 0;
+        int digits = 0;
+        // Up to 16 integer digits cannot overflow once scaled to cents
+        while (i < to && isDigit(s.charAt(i))) {
+            if (++digits > 16) return parseSlow(s, from, to);
+            units = units * 10 + (s.charAt(i++) - '0');
+        }
+        long fraction = 0;
+        int fractionDigits = 0;
+        boolean roundUp = false;
+        if (i < to && s.charAt(i) == '.') {
+            i++;
+            while (i < to && isDigit(s.charAt(i))) {
+                int d = s.charAt(i++) - '0';
+                if (fractionDigits < 2) fraction = fraction * 10 + d;
+                else if (fractionDigits == 2) roundUp = d >= 5;
+                fractionDigits++;
+                digits++;
+            }
+        }
+        if (i != to) return parseSlow(s, from, to);
+        if (digits == 0) throw new NumberFormatException("Not an amount: " + s.subSequence(from, to));
+        if (fractionDigits == 1) fraction *= 10;
+        long cents = units * 100 + fraction + (roundUp ? 1 : 0);
+        return negative ? -cents : cents;
+    }
+
+    private static long parseSlow(CharSequence s, int from, int to) {
+        try {
+            return new BigDecimal(s.subSequence(from, to).toString()).setScale(2, RoundingMode.HALF_UP)
+                .unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + s.subSequence(from, to));
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // --- Formatting ---
+
+    public static String format(long cents) {
+        char[] buf = new char[MAX_CHARS];
+        int start = format(cents, buf);
+        return new String(buf, start, buf.length - start);
+    }
+
+    public static StringBuilder append(StringBuilder sb, long cents) {
+        char[] buf = new char[MAX_CHARS];
+        int start = format(cents, buf);
+        return sb.append(buf, start, buf.length - start);
+    }
+
+    // Writes "-1234.50" right-aligned at the end of buf (at least MAX_CHARS long) and returns
+    // the index of its first char; nothing is allocated
+    public static int format(long cents, char[] buf) {
+        int i = buf.length;
+        // Work on the negative value so Long.MIN_VALUE needs no special case
+        long v = cents < 0 ? cents : -cents;
+        for (int d = 0; d < 2; d++) {
+            buf[--i] = (char) ('0' - v % 10);
+            v /= 10;
+        }
+        buf[--i] = '.';
+        do {
+            buf[--i] = (char) ('0' - v % 10);
+            v /= 10;
+        } while (v != 0);
+        if (cents < 0) buf[--i] = '-';
+        return i;
+    }
+
+    // --- Jackson binding for long cents fields ---
+
+    public static final class Serializer extends JsonSerializer<Long> {
+        @Override
+        public void serialize(Long cents, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            char[] buf = new char[MAX_CHARS];
+            int start = format(cents, buf);
+            gen.writeNumber(buf, start, buf.length - start);
+        }
+    }
+
+    public static final class Deserializer extends JsonDeserializer<Long> {
+        @Override
+        public Long deserialize(JsonParser p, DeserializationContext ctx) throws IOException {
+            JsonToken t = p.currentToken();
+            if (t == JsonToken.VALUE_NUMBER_INT || t == JsonToken.VALUE_NUMBER_FLOAT || t == JsonToken.VALUE_STRING) {
+                char[] chars = p.getTextCharacters();
+                int offset = p.getTextOffset();
+                int length = p.getTextLength();
+                try {
+                    return parse(CharBuffer.wrap(chars, offset, length));
+                } catch (NumberFormatException e) {
+                    return (Long) ctx.handleWeirdStringValue(Long.class, p.getText(), e.getMessage());
+                }
+            }
+            return (Long) ctx.handleUnexpectedToken(Long.class, p);
+        }
+
+        @Override
+        public Long getNullValue(DeserializationContext ctx) {
+            return 0L;
+        }
+    }
+}
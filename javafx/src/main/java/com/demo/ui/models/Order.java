@@ -1,6 +1,8 @@
 package com.demo.ui.models;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 public class Order {
     private int id;
@@ -24,16 +26,24 @@ public class Order {
     private String currencyCode;
 
     @JsonProperty("subtotal_amount")
-    private double subtotalAmount;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long subtotalCents;
 
     @JsonProperty("discount_amount")
-    private double discountAmount;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long discountCents;
 
     @JsonProperty("tax_amount")
-    private double taxAmount;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long taxCents;
 
     @JsonProperty("total_amount")
-    private double totalAmount;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long totalCents;
 
     @JsonProperty("shipping_address")
     private String shippingAddress;
@@ -53,7 +63,7 @@ public class Order {
 
     public Order(int id, String orderNumber, int clientId, String orderDate,
                  String orderStatus, String paymentMethod, String currencyCode,
-                 double subtotalAmount, double discountAmount, double taxAmount, double totalAmount,
+                 long subtotalCents, long discountCents, long taxCents, long totalCents,
                  String shippingAddress, String billingAddress, String notes,
                  String createdAt, String updatedAt) {
         this.id = id;
@@ -63,10 +73,10 @@ public class Order {
         this.orderStatus = orderStatus;
         this.paymentMethod = paymentMethod;
         this.currencyCode = currencyCode;
-        this.subtotalAmount = subtotalAmount;
-        this.discountAmount = discountAmount;
-        this.taxAmount = taxAmount;
-        this.totalAmount = totalAmount;
+        this.subtotalCents = subtotalCents;
+        this.discountCents = discountCents;
+        this.taxCents = taxCents;
+        this.totalCents = totalCents;
         this.shippingAddress = shippingAddress;
         this.billingAddress = billingAddress;
         this.notes = notes;
@@ -96,17 +106,17 @@ public class Order {
     public String getCurrencyCode() { return currencyCode; }
     public void setCurrencyCode(String currencyCode) { this.currencyCode = currencyCode; }
 
-    public double getSubtotalAmount() { return subtotalAmount; }
-    public void setSubtotalAmount(double subtotalAmount) { this.subtotalAmount = subtotalAmount; }
+    public long getSubtotalCents() { return subtotalCents; }
+    public void setSubtotalCents(long subtotalCents) { this.subtotalCents = subtotalCents; }
 
-    public double getDiscountAmount() { return discountAmount; }
-    public void setDiscountAmount(double discountAmount) { this.discountAmount = discountAmount; }
+    public long getDiscountCents() { return discountCents; }
+    public void setDiscountCents(long discountCents) { this.discountCents = discountCents; }
 
-    public double getTaxAmount() { return taxAmount; }
-    public void setTaxAmount(double taxAmount) { this.taxAmount = taxAmount; }
+    public long getTaxCents() { return taxCents; }
+    public void setTaxCents(long taxCents) { this.taxCents = taxCents; }
 
-    public double getTotalAmount() { return totalAmount; }
-    public void setTotalAmount(double totalAmount) { this.totalAmount = totalAmount; }
+    public long getTotalCents() { return totalCents; }
+    public void setTotalCents(long totalCents) { this.totalCents = totalCents; }
 
     public String getShippingAddress() { return shippingAddress; }
     public void setShippingAddress(String shippingAddress) { this.shippingAddress = shippingAddress; }
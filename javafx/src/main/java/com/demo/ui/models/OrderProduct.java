@@ -1,6 +1,8 @@
 package com.demo.ui.models;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 public class OrderProduct {
     private int id;
@@ -14,21 +16,25 @@ public class OrderProduct {
     private int quantity;
 
     @JsonProperty("unit_price")
-    private double unitPrice;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long unitPriceCents;
 
     @JsonProperty("line_total")
-    private double lineTotal;
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long lineTotalCents;
 
     public OrderProduct() { }
 
     public OrderProduct(int id, int orderId, int productId,
-                        int quantity, double unitPrice, double lineTotal) {
+                        int quantity, long unitPriceCents, long lineTotalCents) {
         this.id = id;
         this.orderId = orderId;
         this.productId = productId;
         this.quantity = quantity;
-        this.unitPrice = unitPrice;
-        this.lineTotal = lineTotal;
+        this.unitPriceCents = unitPriceCents;
+        this.lineTotalCents = lineTotalCents;
     }
 
     // Getters and setters
@@ -44,9 +50,9 @@ public class OrderProduct {
     public int getQuantity() { return quantity; }
     public void setQuantity(int quantity) { this.quantity = quantity; }
 
-    public double getUnitPrice() { return unitPrice; }
-    public void setUnitPrice(double unitPrice) { this.unitPrice = unitPrice; }
+    public long getUnitPriceCents() { return unitPriceCents; }
+    public void setUnitPriceCents(long unitPriceCents) { this.unitPriceCents = unitPriceCents; }
 
-    public double getLineTotal() { return lineTotal; }
-    public void setLineTotal(double lineTotal) { this.lineTotal = lineTotal; }
+    public long getLineTotalCents() { return lineTotalCents; }
+    public void setLineTotalCents(long lineTotalCents) { this.lineTotalCents = lineTotalCents; }
 }
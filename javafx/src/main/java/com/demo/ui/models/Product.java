@@ -1,12 +1,19 @@
 package com.demo.ui.models;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 public class Product {
     private int id;
     private String name;
     private String description;
-    private double price;
+
+    @JsonProperty("price")
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long priceCents;
+
     private int stock;
 
     @JsonProperty("provider_id")
@@ -20,12 +27,12 @@ public class Product {
 
     public Product() { }
 
-    public Product(int id, String name, String description, double price, int stock,
+    public Product(int id, String name, String description, long priceCents, int stock,
                    Integer providerId, String createdAt, String updatedAt) {
         this.id = id;
         this.name = name;
         this.description = description;
-        this.price = price;
+        this.priceCents = priceCents;
         this.stock = stock;
         this.providerId = providerId;
         this.createdAt = createdAt;
@@ -42,8 +49,8 @@ public class Product {
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
 
-    public double getPrice() { return price; }
-    public void setPrice(double price) { this.price = price; }
+    public long getPriceCents() { return priceCents; }
+    public void setPriceCents(long priceCents) { this.priceCents = priceCents; }
 
     public int getStock() { return stock; }
     public void setStock(int stock) { this.stock = stock; }
@@ -1,71 +1,523 @@
 package com.demo.ui.services;
 
+import com.demo.ui.metrics.Histogram;
+import com.demo.ui.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+// HTTP transport shared by the services. Every call is bounded by the policy's deadline and
+// refused while its endpoint's circuit is open; GETs are also retried with jittered backoff and
+// hedged (see ApiPolicy). Bodies may come gzip/deflate-encoded and are inflated as they arrive
+// (ContentEncoding). Error statuses surface as ApiException.
 public class ApiClient {
-    private final HttpClient client = HttpClient.newHttpClient();
+    // Defaults can be overridden with -Dshop.api.baseUrl=..., -Dshop.api.connectTimeoutMs=..., etc.
+    public static final String DEFAULT_BASE_URL = "http://localhost:3000";
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    // Per attempt; the whole call, retries included, is bounded by ApiPolicy.deadline
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private static volatile ApiClient shared;
+
+    private static final int VALIDATOR_CACHE_SIZE = 512;
+    private static final Duration HEALTH_TIMEOUT = Duration.ofSeconds(2);
+    // Below this many samples an endpoint's p95 means little, so it is not hedged yet
+    private static final int MIN_HEDGE_SAMPLES = 20;
+
+    private final HttpClient client;
     private final String baseUrl;
+    private final Duration requestTimeout;
+    private final ApiPolicy policy;
+    private final Metrics metrics = Metrics.shared();
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    // Last 200 response per path: its validators plus the value it was decoded into
+    private final Map<String, Validated<?>> validated = Collections.synchronizedMap(
+        new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Validated<?>> eldest) {
+                return size() > VALIDATOR_CACHE_SIZE;
+            }
+        });
 
     public ApiClient(String baseUrl) {
+        this(baseUrl, DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT, true, ApiPolicy.DEFAULT);
+    }
+
+    public ApiClient(String baseUrl, ApiPolicy policy) {
+        this(baseUrl, DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT, true, policy);
+    }
+
+    public ApiClient(String baseUrl, Duration connectTimeout, Duration requestTimeout, boolean preferHttp2,
+                     ApiPolicy policy) {
         this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.requestTimeout = requestTimeout;
+        this.policy = policy;
+        // One HttpClient = one connection pool. HTTP/1.1 connections are kept alive and reused;
+        // HTTP/2 is negotiated when the backend supports it and silently falls back otherwise.
+        this.client = HttpClient.newBuilder()
+                .version(preferHttp2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    // Process-wide transport shared by every service
+    public static ApiClient shared() {
+        ApiClient c = shared;
+        if (c == null) {
+            synchronized (ApiClient.class) {
+                c = shared;
+                if (c == null) {
+                    c = new ApiClient(
+                        System.getProperty("shop.api.baseUrl", DEFAULT_BASE_URL),
+                        Duration.ofMillis(Long.getLong("shop.api.connectTimeoutMs", DEFAULT_CONNECT_TIMEOUT.toMillis())),
+                        Duration.ofMillis(Long.getLong("shop.api.requestTimeoutMs", DEFAULT_REQUEST_TIMEOUT.toMillis())),
+                        Boolean.parseBoolean(System.getProperty("shop.api.http2", "true")),
+                        ApiPolicy.fromSystemProperties()
+                    );
+                    shared = c;
+                }
+            }
+        }
+        return c;
     }
 
+    // Replace the shared transport (e.g. to point the app at another backend)
+    public static void setShared(ApiClient client) {
+        shared = client;
+    }
+
+    public String getBaseUrl() { return baseUrl; }
+    public ApiPolicy getPolicy() { return policy; }
+
+    // --- Blocking API ---
+
     public String get(String path) throws Exception {
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + path))
-                .GET()
-                .build();
-        HttpResponse<String> res = client.send(req, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> res = send(getRequest(path), HttpResponse.BodyHandlers.ofString());
         ensureOk(res);
         return res.body();
     }
 
+    // Like get, for callers that also need the response headers
+    public HttpResponse<String> getResponse(String path) throws Exception {
+        HttpResponse<String> res = send(getRequest(path), HttpResponse.BodyHandlers.ofString());
+        ensureOk(res);
+        return res;
+    }
+
+    // Conditional GET: sends If-None-Match / If-Modified-Since from the last 200 for this path.
+    // On 304 the previously decoded value is returned as-is, so nothing is downloaded or parsed.
+    public <T> T getConditional(String path, BodyParser<T> parser) throws Exception {
+        return conditional(path, request(path), HttpResponse.BodyHandlers.ofString(), res -> parser.parse(res.body()));
+    }
+
+    // getConditional for the large list reads: asks for CBOR when the policy allows and hands the
+    // parser the raw body in whichever format the server answered. Validators are kept apart from
+    // the JSON ones, as each format has its own ETag.
+    <T> T getConditionalPayload(String path, Payload.Parser<T> parser) throws Exception {
+        String accept = listAccept();
+        return conditional(accept + " " + path, request(path).header("Accept", accept),
+            HttpResponse.BodyHandlers.ofByteArray(),
+            res -> parser.parse(new Payload(WireFormat.of(res.headers()), res.body())));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <B, T> T conditional(String key, HttpRequest.Builder req, HttpResponse.BodyHandler<B> handler,
+                                 ResponseParser<B, T> parser) throws Exception {
+        Validated<?> previous = validated.get(key);
+        req.GET();
+        if (previous != null) {
+            if (previous.etag() != null) req.header("If-None-Match", previous.etag());
+            if (previous.lastModified() != null) req.header("If-Modified-Since", previous.lastModified());
+        }
+        HttpResponse<B> res = send(req.build(), handler);
+        if (res.statusCode() == 304 && previous != null) {
+            return (T) previous.value();
+        }
+        ensureOk(res);
+        T value = parser.parse(res);
+        String etag = res.headers().firstValue("ETag").orElse(null);
+        String lastModified = res.headers().firstValue("Last-Modified").orElse(null);
+        if (etag != null || lastModified != null) {
+            validated.put(key, new Validated<>(etag, lastModified, value));
+        } else {
+            validated.remove(key);
+        }
+        return value;
+    }
+
+    @FunctionalInterface
+    private interface ResponseParser<B, T> {
+        T parse(HttpResponse<B> res) throws Exception;
+    }
+
+    // Body is handed over unread so large lists can be parsed while still arriving. Asks for CBOR
+    // when the policy allows; the Content-Type of the response says which format came back.
+    public HttpResponse<InputStream> getStream(String path) throws Exception {
+        HttpRequest req = request(path).header("Accept", listAccept()).GET().build();
+        HttpResponse<InputStream> res = send(req, HttpResponse.BodyHandlers.ofInputStream());
+        if (res.statusCode() != 200) {
+            try (InputStream in = res.body()) {
+                throw ApiException.of(res.statusCode(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return res;
+    }
+
     public String post(String path, String json) throws Exception {
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + path))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(json))
-                .build();
-        HttpResponse<String> res = client.send(req, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> res = send(postRequest(path, json), HttpResponse.BodyHandlers.ofString());
         ensureCreatedOrOk(res);
         return res.body();
     }
 
     public String put(String path, String json) throws Exception {
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + path))
-                .header("Content-Type", "application/json")
-                .PUT(HttpRequest.BodyPublishers.ofString(json))
-                .build();
-        HttpResponse<String> res = client.send(req, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> res = send(putRequest(path, json), HttpResponse.BodyHandlers.ofString());
         ensureOk(res);
         return res.body();
     }
 
     public void delete(String path) throws Exception {
-        HttpRequest req = HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + path))
-                .DELETE()
+        HttpResponse<String> res = send(deleteRequest(path), HttpResponse.BodyHandlers.ofString());
+        ensureDeleted(res);
+    }
+
+    // --- Non-blocking API ---
+
+    public CompletableFuture<String> getAsync(String path) {
+        return sendAsync(getRequest(path), HttpResponse.BodyHandlers.ofString())
+                .thenApply(res -> {
+                    ensureOk(res);
+                    return res.body();
+                });
+    }
+
+    public CompletableFuture<String> postAsync(String path, String json) {
+        return sendAsync(postRequest(path, json), HttpResponse.BodyHandlers.ofString())
+                .thenApply(res -> {
+                    ensureCreatedOrOk(res);
+                    return res.body();
+                });
+    }
+
+    // Raw response without the status check, for callers that branch on the status themselves
+    public CompletableFuture<HttpResponse<String>> postAsyncResponse(String path, String json) {
+        return sendAsync(postRequest(path, json), HttpResponse.BodyHandlers.ofString());
+    }
+
+    public CompletableFuture<String> putAsync(String path, String json) {
+        return sendAsync(putRequest(path, json), HttpResponse.BodyHandlers.ofString())
+                .thenApply(res -> {
+                    ensureOk(res);
+                    return res.body();
+                });
+    }
+
+    public CompletableFuture<HttpResponse<String>> putAsyncResponse(String path, String json) {
+        return sendAsync(putRequest(path, json), HttpResponse.BodyHandlers.ofString());
+    }
+
+    public CompletableFuture<Void> deleteAsync(String path) {
+        return sendAsync(deleteRequest(path), HttpResponse.BodyHandlers.ofString())
+                .thenAccept(this::ensureDeleted);
+    }
+
+    // Wait for an async call and rethrow its real failure instead of a wrapper
+    public static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    static Exception unwrap(Throwable t) {
+        t = unwrapCause(t);
+        if (t instanceof Exception e) return e;
+        throw (Error) t;
+    }
+
+    // --- Requests ---
+
+    private <T> HttpResponse<T> send(HttpRequest req, HttpResponse.BodyHandler<T> handler) throws Exception {
+        CompletableFuture<HttpResponse<T>> call = sendAsync(req, handler);
+        try {
+            return await(call);
+        } catch (InterruptedException e) {
+            // The task was cancelled: abandon the exchange instead of letting it run to the deadline
+            call.cancel(true);
+            throw e;
+        }
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest req, HttpResponse.BodyHandler<T> handler) {
+        Call<T> call = new Call<>(endpointOf(req), req, handler);
+        call.attempt(1);
+        return call.result;
+    }
+
+    private Endpoint endpointOf(HttpRequest req) {
+        String name = "http " + Metrics.endpoint(req.method(), req.uri().getPath());
+        Endpoint ep = endpoints.get(name);
+        return ep != null ? ep : endpoints.computeIfAbsent(name, Endpoint::new);
+    }
+
+    // Circuit breaker probe: is the backend answering at all
+    private CompletableFuture<Boolean> probeHealth() {
+        HttpRequest req = HttpRequest.newBuilder(URI.create(baseUrl + "/health")).timeout(HEALTH_TIMEOUT).GET().build();
+        return client.sendAsync(req, HttpResponse.BodyHandlers.discarding()).thenApply(res -> res.statusCode() == 200);
+    }
+
+    // Per-endpoint state, created on first use
+    private final class Endpoint {
+        final Histogram latency;
+        final Histogram retries;
+        final Histogram hedges;
+        final Histogram wire;
+        final CircuitBreaker breaker;
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile long hedgeAfter = -1;
+
+        Endpoint(String name) {
+            latency = metrics.latency(name);
+            retries = metrics.latency(name + " retry");
+            hedges = metrics.latency(name + " hedge");
+            wire = metrics.bytes(name + " wire");
+            breaker = new CircuitBreaker(name.substring("http ".length()), policy.breakerFailures(),
+                policy.breakerOpen().toNanos(), ApiClient.this::probeHealth, metrics.latency(name + " rejected"));
+        }
+
+        // Nanos after which a GET is hedged, -1 for no hedging. The p95 moves slowly, so it is
+        // recomputed every 32 calls rather than scanning the histogram on each one.
+        long hedgeAfter() {
+            if (!policy.hedge()) return -1;
+            if ((calls.getAndIncrement() & 31) == 0) {
+                hedgeAfter = latency.count() < MIN_HEDGE_SAMPLES ? -1
+                    : Math.max(policy.hedgeMinDelay().toNanos(), latency.percentile(0.95));
+            }
+            return hedgeAfter;
+        }
+    }
+
+    // One logical call: attempts until a usable response, a non-retryable failure, the attempt
+    // limit or the deadline. Each attempt is timed into the endpoint's latency histogram (for
+    // streamed bodies until the headers arrive) and reported to its circuit breaker.
+    private final class Call<T> {
+        final Endpoint ep;
+        final HttpRequest req;
+        final HttpResponse.BodyHandler<T> handler;
+        final boolean idempotent;
+        final long deadline;
+        final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        // Exchanges still running; cancelled once the result is settled or the caller gives up
+        private final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+
+        Call(Endpoint ep, HttpRequest req, HttpResponse.BodyHandler<T> handler) {
+            this.ep = ep;
+            this.req = req;
+            this.handler = ContentEncoding.decoding(handler, ep.wire);
+            this.idempotent = req.method().equals("GET") || req.method().equals("HEAD");
+            this.deadline = System.nanoTime() + policy.deadline().toNanos();
+            result.whenComplete((res, error) -> {
+                for (CompletableFuture<?> f : inFlight) f.cancel(true);
+            });
+        }
+
+        void attempt(int n) {
+            if (result.isDone()) return;
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                result.completeExceptionally(new HttpTimeoutException(
+                    "Deadline of " + policy.deadline().toMillis() + " ms exceeded"));
+                return;
+            }
+            HttpRequest timed = HttpRequest.newBuilder(req, (name, value) -> true)
+                .timeout(Duration.ofNanos(Math.min(remaining, requestTimeout.toNanos())))
                 .build();
-        HttpResponse<String> res = client.send(req, HttpResponse.BodyHandlers.ofString());
-        if (res.statusCode() != 204 && res.statusCode() != 200) {
-            throw new RuntimeException("DELETE failed: " + res.statusCode() + " - " + res.body());
+            ep.breaker.admit().whenComplete((admitted, refused) -> {
+                if (refused != null) {
+                    result.completeExceptionally(unwrap(refused));
+                    return;
+                }
+                long start = System.nanoTime();
+                exchange(timed).whenComplete((res, error) -> settle(n, start, res, error));
+            });
+        }
+
+        private CompletableFuture<HttpResponse<T>> exchange(HttpRequest timed) {
+            CompletableFuture<HttpResponse<T>> primary = track(client.sendAsync(timed, handler));
+            long hedgeAfter = idempotent ? ep.hedgeAfter() : -1;
+            if (hedgeAfter < 0 || hedgeAfter >= deadline - System.nanoTime()) return primary;
+            Race<T> race = new Race<>();
+            race.enter();
+            race.join(primary);
+            CompletableFuture.delayedExecutor(hedgeAfter, TimeUnit.NANOSECONDS).execute(() -> {
+                if (result.isDone() || !race.enter()) return;
+                ep.hedges.record(hedgeAfter);
+                race.join(track(client.sendAsync(timed, handler)));
+            });
+            return race.first;
+        }
+
+        private void settle(int n, long start, HttpResponse<T> res, Throwable error) {
+            ep.latency.recordSince(start);
+            Throwable cause = error == null ? null : unwrapCause(error);
+            if (cause instanceof CancellationException) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            boolean failed = cause != null || ApiException.isTransient(res.statusCode());
+            ep.breaker.record(failed);
+            if (failed && idempotent && n < policy.maxAttempts() && (cause == null || cause instanceof IOException)) {
+                long backoff = backoff(n);
+                if (deadline - System.nanoTime() > backoff) {
+                    if (res != null) discard(res);
+                    ep.retries.record(backoff);
+                    CompletableFuture.delayedExecutor(backoff, TimeUnit.NANOSECONDS).execute(() -> attempt(n + 1));
+                    return;
+                }
+            }
+            if (cause != null) {
+                result.completeExceptionally(cause);
+            } else if (!result.complete(res)) {
+                discard(res);
+            }
+        }
+
+        // "Full jitter": U(0, min(max, base * 2^(n-1))) so retrying clients spread out
+        private long backoff(int n) {
+            long cap = Math.min(policy.backoffMax().toNanos(), policy.backoffBase().toNanos() << Math.min(n - 1, 20));
+            return ThreadLocalRandom.current().nextLong(cap + 1);
+        }
+
+        private <R> CompletableFuture<R> track(CompletableFuture<R> exchange) {
+            inFlight.add(exchange);
+            exchange.whenComplete((r, e) -> inFlight.remove(exchange));
+            if (result.isDone()) exchange.cancel(true);
+            return exchange;
         }
     }
 
-    private void ensureOk(HttpResponse<String> res) {
+    // First usable response among the copies of one request. A failure (transport error or
+    // transient status) only wins when no other copy is still running.
+    private static final class Race<T> {
+        final CompletableFuture<HttpResponse<T>> first = new CompletableFuture<>();
+        private int running;
+
+        synchronized boolean enter() {
+            if (first.isDone()) return false;
+            running++;
+            return true;
+        }
+
+        void join(CompletableFuture<HttpResponse<T>> copy) {
+            copy.whenComplete((res, error) -> {
+                boolean last;
+                synchronized (this) {
+                    last = --running == 0;
+                }
+                boolean usable = error == null && !ApiException.isTransient(res.statusCode());
+                boolean won = (usable || last)
+                    && (error == null ? first.complete(res) : first.completeExceptionally(error));
+                if (!won && res != null) discard(res);
+            });
+        }
+    }
+
+    // Release a response nobody will read (a streamed body holds its connection until closed)
+    private static void discard(HttpResponse<?> res) {
+        if (res.body() instanceof AutoCloseable body) {
+            try {
+                body.close();
+            } catch (Exception ignored) {
+                // Only freeing the connection
+            }
+        }
+    }
+
+    private static Throwable unwrapCause(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder b = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + path))
+                .timeout(requestTimeout);
+        if (policy.compress()) b.header("Accept-Encoding", ContentEncoding.ACCEPT);
+        return b;
+    }
+
+    private String listAccept() {
+        return policy.cbor() ? WireFormat.ACCEPT_BINARY : WireFormat.JSON.mediaType;
+    }
+
+    private HttpRequest getRequest(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest postRequest(String path, String json) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest putRequest(String path, String json) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest deleteRequest(String path) {
+        return request(path).DELETE().build();
+    }
+
+    private record Validated<T>(String etag, String lastModified, T value) { }
+
+    private void ensureOk(HttpResponse<?> res) {
         if (res.statusCode() != 200) {
-            throw new RuntimeException("HTTP " + res.statusCode() + ": " + res.body());
+            // Error bodies are always JSON text, whatever format was asked for
+            Object body = res.body();
+            throw ApiException.of(res.statusCode(),
+                body instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : String.valueOf(body));
         }
     }
 
     private void ensureCreatedOrOk(HttpResponse<String> res) {
         int code = res.statusCode();
         if (code != 201 && code != 200) {
-            throw new RuntimeException("HTTP " + code + ": " + res.body());
+            throw ApiException.of(code, res.body());
+        }
+    }
+
+    private void ensureDeleted(HttpResponse<String> res) {
+        if (res.statusCode() != 204 && res.statusCode() != 200) {
+            throw new ApiException(res.statusCode(), "DELETE failed: " + res.statusCode() + " - " + res.body());
         }
     }
 }
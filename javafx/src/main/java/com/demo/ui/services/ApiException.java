@@ -0,0 +1,27 @@
+package com.demo.ui.services;
+
+// A call the backend answered with an error status, or one refused locally because the
+// endpoint's circuit is open (status 0). Transport failures stay IOExceptions.
+public class ApiException extends RuntimeException {
+
+    private final int status;
+
+    public ApiException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    static ApiException of(int status, String body) {
+        return new ApiException(status, "HTTP " + status + ": " + body);
+    }
+
+    // 0 when no response was received
+    public int status() { return status; }
+
+    // Worth trying again later: the backend is overloaded or failing, not rejecting the request
+    public boolean isTransient() { return isTransient(status); }
+
+    static boolean isTransient(int status) {
+        return status >= 500 || status == 429;
+    }
+}
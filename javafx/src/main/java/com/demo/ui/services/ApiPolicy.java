@@ -0,0 +1,80 @@
+package com.demo.ui.services;
+
+import java.time.Duration;
+
+// How ApiClient copes with a slow or failing backend:
+//   deadline         total time one call may take, retries and backoff included
+//   maxAttempts      tries per GET; writes are sent once
+//   backoffBase/Max  before retry n wait U(0, min(max, base * 2^(n-1)))
+//   hedge            send a second copy of a GET still unanswered after its endpoint's p95
+//                    (never sooner than hedgeMinDelay) and take whichever answers first
+//   breakerFailures  consecutive failed attempts on one endpoint that open its circuit
+//   breakerOpen      how long an open circuit fails fast before /health is probed
+//   compress         offer gzip/deflate (Accept-Encoding); bodies are inflated as they arrive
+//   cbor             ask for list reads in CBOR rather than JSON (see WireFormat). Off by default:
+//                    rows here are mostly strings (money included), so CBOR is only ~13% smaller
+//                    and binds no faster (WireFormatBenchmark); worth it for numeric-heavy lists
+public record ApiPolicy(Duration deadline, int maxAttempts,
+                        Duration backoffBase, Duration backoffMax,
+                        boolean hedge, Duration hedgeMinDelay,
+                        int breakerFailures, Duration breakerOpen,
+                        boolean compress, boolean cbor) {
+
+    public static final ApiPolicy DEFAULT = new ApiPolicy(Duration.ofSeconds(30), 3,
+        Duration.ofMillis(100), Duration.ofSeconds(2), true, Duration.ofMillis(50), 5, Duration.ofSeconds(5), true, false);
+
+    public ApiPolicy {
+        if (maxAttempts < 1 || breakerFailures < 1) {
+            throw new IllegalArgumentException("maxAttempts and breakerFailures must be at least 1");
+        }
+    }
+
+    // -Dshop.api.deadlineMs=..., -Dshop.api.maxAttempts=..., -Dshop.api.backoffMs=...,
+    // -Dshop.api.backoffMaxMs=..., -Dshop.api.hedge=..., -Dshop.api.hedgeMinMs=...,
+    // -Dshop.api.breakerFailures=..., -Dshop.api.breakerOpenMs=..., -Dshop.api.compress=...,
+    // -Dshop.api.cbor=...
+    public static ApiPolicy fromSystemProperties() {
+        return new ApiPolicy(
+            Duration.ofMillis(Long.getLong("shop.api.deadlineMs", DEFAULT.deadline.toMillis())),
+            Integer.getInteger("shop.api.maxAttempts", DEFAULT.maxAttempts),
+            Duration.ofMillis(Long.getLong("shop.api.backoffMs", DEFAULT.backoffBase.toMillis())),
+            Duration.ofMillis(Long.getLong("shop.api.backoffMaxMs", DEFAULT.backoffMax.toMillis())),
+            Boolean.parseBoolean(System.getProperty("shop.api.hedge", String.valueOf(DEFAULT.hedge))),
+            Duration.ofMillis(Long.getLong("shop.api.hedgeMinMs", DEFAULT.hedgeMinDelay.toMillis())),
+            Integer.getInteger("shop.api.breakerFailures", DEFAULT.breakerFailures),
+            Duration.ofMillis(Long.getLong("shop.api.breakerOpenMs", DEFAULT.breakerOpen.toMillis())),
+            Boolean.parseBoolean(System.getProperty("shop.api.compress", String.valueOf(DEFAULT.compress))),
+            Boolean.parseBoolean(System.getProperty("shop.api.cbor", String.valueOf(DEFAULT.cbor)))
+        );
+    }
+
+    public ApiPolicy withDeadline(Duration deadline) {
+        return new ApiPolicy(deadline, maxAttempts, backoffBase, backoffMax, hedge, hedgeMinDelay,
+            breakerFailures, breakerOpen, compress, cbor);
+    }
+
+    public ApiPolicy withRetries(int maxAttempts, Duration backoffBase, Duration backoffMax) {
+        return new ApiPolicy(deadline, maxAttempts, backoffBase, backoffMax, hedge, hedgeMinDelay,
+            breakerFailures, breakerOpen, compress, cbor);
+    }
+
+    public ApiPolicy withHedging(boolean hedge, Duration hedgeMinDelay) {
+        return new ApiPolicy(deadline, maxAttempts, backoffBase, backoffMax, hedge, hedgeMinDelay,
+            breakerFailures, breakerOpen, compress, cbor);
+    }
+
+    public ApiPolicy withBreaker(int breakerFailures, Duration breakerOpen) {
+        return new ApiPolicy(deadline, maxAttempts, backoffBase, backoffMax, hedge, hedgeMinDelay,
+            breakerFailures, breakerOpen, compress, cbor);
+    }
+
+    public ApiPolicy withCompression(boolean compress) {
+        return new ApiPolicy(deadline, maxAttempts, backoffBase, backoffMax, hedge, hedgeMinDelay,
+            breakerFailures, breakerOpen, compress, cbor);
+    }
+
+    public ApiPolicy withCbor(boolean cbor) {
+        return new ApiPolicy(deadline, maxAttempts, backoffBase, backoffMax, hedge, hedgeMinDelay,
+            breakerFailures, breakerOpen, compress, cbor);
+    }
+}
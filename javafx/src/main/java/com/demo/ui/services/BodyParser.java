@@ -0,0 +1,6 @@
+package com.demo.ui.services;
+
+@FunctionalInterface
+public interface BodyParser<T> {
+    T parse(String body) throws Exception;
+}
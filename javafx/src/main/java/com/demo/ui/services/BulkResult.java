@@ -0,0 +1,63 @@
+package com.demo.ui.services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Outcome of a bulk write: one entry per input item, in input order, plus wall time.
+// A bulk call never throws for individual items; check failed() / failures().
+// A failed item's value is the server's current copy when it sent one (409 conflicts), else null.
+public class BulkResult<T> {
+
+    public record Item<T>(int index, T value, Exception error) {
+        public boolean ok() { return error == null; }
+    }
+
+    private final List<Item<T>> items;
+    private final Duration elapsed;
+
+    BulkResult(List<Item<T>> items, Duration elapsed) {
+        this.items = Collections.unmodifiableList(items);
+        this.elapsed = elapsed;
+    }
+
+    public List<Item<T>> items() { return items; }
+    public Duration elapsed() { return elapsed; }
+
+    public int size() { return items.size(); }
+
+    public int succeeded() {
+        int n = 0;
+        for (Item<T> item : items) if (item.ok()) n++;
+        return n;
+    }
+
+    public int failed() { return size() - succeeded(); }
+
+    public boolean allSucceeded() { return failed() == 0; }
+
+    // Values of the successful items, in input order
+    public List<T> values() {
+        List<T> values = new ArrayList<>(items.size());
+        for (Item<T> item : items) if (item.ok()) values.add(item.value());
+        return values;
+    }
+
+    public List<Item<T>> failures() {
+        List<Item<T>> failures = new ArrayList<>();
+        for (Item<T> item : items) if (!item.ok()) failures.add(item);
+        return failures;
+    }
+
+    public double itemsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : items.size() * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d ok, %d failed in %d ms (%.0f items/s)",
+            succeeded(), failed(), elapsed.toMillis(), itemsPerSecond());
+    }
+}
@@ -0,0 +1,11 @@
+package com.demo.ui.services;
+
+import java.util.List;
+
+// Receives rows in batches while a list response is still being parsed.
+// bytesRead counts the same bytes as totalBytes (encoded ones for a compressed body);
+// totalBytes is -1 when the server did not send a Content-Length.
+@FunctionalInterface
+public interface ChunkConsumer<T> {
+    void accept(List<T> chunk, long bytesRead, long totalBytes);
+}
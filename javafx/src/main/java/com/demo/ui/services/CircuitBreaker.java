@@ -0,0 +1,96 @@
+package com.demo.ui.services;
+
+import com.demo.ui.metrics.Histogram;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// Circuit breaker for one endpoint. After `threshold` consecutive failed attempts (transport
+// errors, 5xx, 429) the circuit opens and calls fail fast. Once the open period has passed the
+// next call probes the backend's /health, and every call arriving meanwhile waits on that same
+// probe: a healthy answer closes the circuit, anything else keeps it open for another period.
+final class CircuitBreaker {
+
+    private static final CompletableFuture<Void> ADMITTED = CompletableFuture.completedFuture(null);
+
+    private final String endpoint;
+    private final int threshold;
+    private final long openNanos;
+    private final Supplier<CompletableFuture<Boolean>> probe;
+    private final Histogram rejected;
+
+    // Guarded by this
+    private int failures;
+    private boolean open;
+    private long openUntil;
+    private CompletableFuture<Void> probing;
+
+    CircuitBreaker(String endpoint, int threshold, long openNanos,
+                   Supplier<CompletableFuture<Boolean>> probe, Histogram rejected) {
+        this.endpoint = endpoint;
+        this.threshold = threshold;
+        this.openNanos = openNanos;
+        this.probe = probe;
+        this.rejected = rejected;
+    }
+
+    // Completes when the call may go ahead; fails with an ApiException while the circuit is open
+    CompletableFuture<Void> admit() {
+        CompletableFuture<Void> p;
+        synchronized (this) {
+            if (!open) return ADMITTED;
+            if (probing != null) return probing;
+            long wait = openUntil - System.nanoTime();
+            if (wait > 0) {
+                // Recorded value: how long until the next probe
+                rejected.record(wait);
+                return CompletableFuture.failedFuture(openError());
+            }
+            p = probing = new CompletableFuture<>();
+        }
+        CompletableFuture<Boolean> check;
+        try {
+            check = probe.get();
+        } catch (RuntimeException e) {
+            check = CompletableFuture.failedFuture(e);
+        }
+        check.whenComplete((healthy, error) -> {
+            boolean ok = error == null && healthy;
+            synchronized (this) {
+                probing = null;
+                if (ok) {
+                    open = false;
+                    failures = 0;
+                } else {
+                    openUntil = System.nanoTime() + openNanos;
+                }
+            }
+            if (ok) {
+                System.err.println("Circuit closed for " + endpoint + ": backend healthy again");
+                p.complete(null);
+            } else {
+                p.completeExceptionally(openError());
+            }
+        });
+        return p;
+    }
+
+    void record(boolean failed) {
+        synchronized (this) {
+            if (!failed) {
+                failures = 0;
+                return;
+            }
+            if (++failures < threshold || open) return;
+            open = true;
+            openUntil = System.nanoTime() + openNanos;
+        }
+        System.err.println("Circuit opened for " + endpoint + " after " + threshold + " failures");
+    }
+
+    synchronized boolean isOpen() { return open; }
+
+    private ApiException openError() {
+        return new ApiException(0, "Backend unavailable (circuit open for " + endpoint + ")");
+    }
+}
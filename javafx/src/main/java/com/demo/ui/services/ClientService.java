@@ -3,21 +3,54 @@ package com.demo.ui.services;
 import com.demo.ui.models.Client;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class ClientService {
-    private final ApiClient api = new ApiClient("http://localhost:3000");
+    private final ApiClient api;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonDecoder decoder = new JsonDecoder(mapper, "clients");
+    private final SingleFlight flights = SingleFlight.shared();
+
+    public ClientService() {
+        this(ApiClient.shared());
+    }
+
+    public ClientService(ApiClient api) {
+        this.api = api;
+    }
 
     public List<Client> getAllClients() throws Exception {
-        String body = api.get("/clients");
-        return Arrays.asList(mapper.readValue(body, Client[].class));
+        return flights.getConditionalPayload(api, "/clients",
+            body -> Collections.unmodifiableList(Arrays.asList(decoder.read(body, Client[].class))));
+    }
+
+    public int streamAllClients(int chunkSize, ChunkConsumer<Client> consumer) throws Exception {
+        return decoder.readArray(api.getStream("/clients"), Client.class, chunkSize, consumer);
+    }
+
+    // Rows with updated_at >= since (an updated_at value previously received), for incremental sync
+    public Delta<Client> getClientsChangedSince(String since) throws Exception {
+        String path = "/clients?since=" + URLEncoder.encode(since, StandardCharsets.UTF_8);
+        return flights.run(api.getBaseUrl() + path, () -> {
+            HttpResponse<String> res = api.getResponse(path);
+            int total = (int) res.headers().firstValueAsLong("X-Total-Count").orElse(-1);
+            return new Delta<>(Arrays.asList(decoder.read(res.body(), Client[].class)), total);
+        });
+    }
+
+    // Every id currently in the table, to diff against when rows were deleted
+    public int[] getClientIds() throws Exception {
+        return flights.run(api.getBaseUrl() + "/clients/ids",
+            () -> decoder.read(api.get("/clients/ids"), int[].class));
     }
 
     public Client getClient(int id) throws Exception {
-        String body = api.get("/clients/" + id);
-        return mapper.readValue(body, Client.class);
+        return flights.getConditional(api, "/clients/" + id, body -> decoder.read(body, Client.class));
     }
 
     public Client createClient(String name, String email, String phone, String address) throws Exception {
@@ -26,7 +59,7 @@ public class ClientService {
             new Client(0, name, email, phone, address, null, null)
         );
         String body = api.post("/clients", json);
-        return mapper.readValue(body, Client.class);
+        return decoder.read(body, Client.class);
     }
 
     public Client updateClient(int id, String name, String email, String phone, String address) throws Exception {
@@ -34,7 +67,7 @@ public class ClientService {
             new Client(id, name, email, phone, address, null, null)
         );
         String body = api.put("/clients/" + id, json);
-        return mapper.readValue(body, Client.class);
+        return decoder.read(body, Client.class);
     }
 
     public void deleteClient(int id) throws Exception {
@@ -0,0 +1,225 @@
+package com.demo.ui.services;
+
+import com.demo.ui.metrics.Histogram;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+// gzip / deflate response bodies, decoded as the packets arrive. Wraps any body handler: the
+// inner subscriber (String, InputStream, ...) only ever sees decompressed bytes, so a streamed
+// list is parsed while it is still being inflated off the socket. Also records the body size as
+// received ("http <endpoint> wire"), which is what compression saves. A compressed InputStream
+// body comes as a WireStream, so readers can report progress against the Content-Length, which
+// counts encoded bytes.
+final class ContentEncoding {
+
+    static final String ACCEPT = "gzip, deflate";
+
+    private static final int OUT_CHUNK = 16 * 1024;
+
+    private ContentEncoding() { }
+
+    static <T> HttpResponse.BodyHandler<T> decoding(HttpResponse.BodyHandler<T> handler, Histogram wire) {
+        return info -> {
+            String encoding = info.headers().firstValue("Content-Encoding").orElse("identity")
+                .trim().toLowerCase(Locale.ROOT);
+            Inflater inflater = switch (encoding) {
+                case "gzip", "x-gzip" -> new Inflater(true);
+                case "deflate" -> new Inflater(false);
+                case "identity", "" -> null;
+                default -> throw new IllegalStateException("Unsupported Content-Encoding: " + encoding);
+            };
+            return new Decoder<>(handler.apply(info), inflater, encoding.endsWith("gzip"), wire);
+        };
+    }
+
+    // Decoded body that also tells how many encoded bytes have arrived so far
+    static final class WireStream extends FilterInputStream {
+        private final Decoder<?> decoder;
+
+        private WireStream(InputStream in, Decoder<?> decoder) {
+            super(in);
+            this.decoder = decoder;
+        }
+
+        long wireBytes() { return decoder.received; }
+    }
+
+    // Passes each upstream item on as exactly one item (possibly an empty list), so the inner
+    // subscriber's demand maps one to one onto the upstream's
+    private static final class Decoder<T> implements HttpResponse.BodySubscriber<T> {
+
+        private static final int GZIP_HEADER = 10;
+        private static final int GZIP_TRAILER = 8;
+        private static final int FHCRC = 2, FEXTRA = 4, FNAME = 8, FCOMMENT = 16;
+
+        private final HttpResponse.BodySubscriber<T> inner;
+        private final Inflater inflater;
+        private final boolean gzip;
+        private final Histogram wire;
+        private final CRC32 crc = new CRC32();
+        private Flow.Subscription subscription;
+        private volatile long received;  // written by the HTTP client's thread only
+        private boolean failed;
+
+        // gzip framing: header bytes until it is complete, then the trailer after the deflate data
+        private byte[] header = new byte[0];
+        private boolean inHeader;
+        private final byte[] trailer = new byte[GZIP_TRAILER];
+        private int trailerSize;
+
+        Decoder(HttpResponse.BodySubscriber<T> inner, Inflater inflater, boolean gzip, Histogram wire) {
+            this.inner = inner;
+            this.inflater = inflater;
+            this.gzip = gzip;
+            this.wire = wire;
+            this.inHeader = gzip;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public CompletionStage<T> getBody() {
+            if (inflater == null) return inner.getBody();
+            return inner.getBody().thenApply(body -> body instanceof InputStream in ? (T) new WireStream(in, this) : body);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            inner.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            if (failed) return;
+            for (ByteBuffer b : items) received += b.remaining();
+            if (inflater == null) {
+                inner.onNext(items);
+                return;
+            }
+            List<ByteBuffer> out = new ArrayList<>();
+            try {
+                for (ByteBuffer b : items) inflate(b, out);
+            } catch (DataFormatException | ZipException e) {
+                fail(e);
+                return;
+            }
+            inner.onNext(out);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (inflater != null) inflater.end();
+            if (!failed) inner.onError(error);
+        }
+
+        @Override
+        public void onComplete() {
+            if (failed) return;
+            wire.record(received);
+            if (inflater != null) {
+                // No body at all is fine (304s and HEADs keep the Content-Encoding header)
+                boolean complete = received == 0 || inflater.finished() && (!gzip || trailerSize == GZIP_TRAILER);
+                inflater.end();
+                if (!complete) {
+                    inner.onError(new EOFException("Compressed body ended early"));
+                    return;
+                }
+            }
+            inner.onComplete();
+        }
+
+        private void fail(Exception e) {
+            failed = true;
+            subscription.cancel();
+            inflater.end();
+            inner.onError(e);
+        }
+
+        private void inflate(ByteBuffer in, List<ByteBuffer> out) throws DataFormatException, ZipException {
+            if (inHeader && !readHeader(in)) return;
+            if (!inflater.finished()) {
+                inflater.setInput(in);
+                ByteBuffer chunk = ByteBuffer.allocate(OUT_CHUNK);
+                while (!inflater.finished() && !inflater.needsInput()) {
+                    if (!chunk.hasRemaining()) {
+                        out.add(chunk.flip());
+                        chunk = ByteBuffer.allocate(OUT_CHUNK);
+                    }
+                    int start = chunk.position();
+                    int n = inflater.inflate(chunk);
+                    if (gzip) crc.update(chunk.array(), start, n);
+                    if (n == 0 && inflater.needsDictionary()) throw new ZipException("Deflate dictionary not supported");
+                }
+                if (chunk.position() > 0) out.add(chunk.flip());
+            }
+            // Whatever follows the deflate data is the gzip trailer: CRC32 and size of the original
+            if (gzip && inflater.finished()) {
+                while (in.hasRemaining() && trailerSize < GZIP_TRAILER) trailer[trailerSize++] = in.get();
+                if (trailerSize == GZIP_TRAILER) checkTrailer();
+            }
+        }
+
+        // Collects header bytes across packets; true once it is complete (and consumed from in)
+        private boolean readHeader(ByteBuffer in) throws ZipException {
+            int have = header.length;
+            byte[] grown = new byte[have + in.remaining()];
+            System.arraycopy(header, 0, grown, 0, have);
+            in.get(grown, have, in.remaining());
+            header = grown;
+            int length = headerLength(header);
+            if (length < 0) return false;
+            inHeader = false;
+            // Give back what belongs to the deflate data
+            in.position(in.position() - (header.length - length));
+            header = null;
+            return true;
+        }
+
+        // Length of a complete gzip header at the start of h, -1 if more bytes are needed
+        private static int headerLength(byte[] h) throws ZipException {
+            if (h.length < GZIP_HEADER) return -1;
+            if ((h[0] & 0xff) != 0x1f || (h[1] & 0xff) != 0x8b || h[2] != 8) throw new ZipException("Not a gzip body");
+            int flags = h[3] & 0xff;
+            int i = GZIP_HEADER;
+            if ((flags & FEXTRA) != 0) {
+                if (h.length < i + 2) return -1;
+                i += 2 + ((h[i] & 0xff) | (h[i + 1] & 0xff) << 8);
+            }
+            if ((flags & FNAME) != 0) i = skipZeroTerminated(h, i);
+            if (i >= 0 && (flags & FCOMMENT) != 0) i = skipZeroTerminated(h, i);
+            if (i >= 0 && (flags & FHCRC) != 0) i += 2;
+            return i >= 0 && i <= h.length ? i : -1;
+        }
+
+        private static int skipZeroTerminated(byte[] h, int i) {
+            while (i < h.length && h[i] != 0) i++;
+            return i < h.length ? i + 1 : -1;
+        }
+
+        private void checkTrailer() throws ZipException {
+            long expectedCrc = littleEndian(0);
+            long expectedSize = littleEndian(4);
+            if (expectedCrc != crc.getValue() || expectedSize != (inflater.getBytesWritten() & 0xffffffffL)) {
+                throw new ZipException("Corrupt gzip body (checksum or size mismatch)");
+            }
+        }
+
+        private long littleEndian(int at) {
+            return (trailer[at] & 0xffL) | (trailer[at + 1] & 0xffL) << 8
+                | (trailer[at + 2] & 0xffL) << 16 | (trailer[at + 3] & 0xffL) << 24;
+        }
+    }
+}
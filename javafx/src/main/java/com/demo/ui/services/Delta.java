@@ -0,0 +1,7 @@
+package com.demo.ui.services;
+
+import java.util.List;
+
+// Rows changed since a high-water mark, plus the table's row count at that moment
+// (-1 if the backend did not say) so deletions can be detected without fetching ids.
+public record Delta<T>(List<T> changed, int totalCount) { }
@@ -0,0 +1,68 @@
+package com.demo.ui.services;
+
+import com.demo.ui.metrics.Histogram;
+import com.demo.ui.metrics.Metrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+
+// A service's Jackson reads, timed into "json <entity>" with body sizes in "json <entity> bytes";
+// bodies that came as CBOR go through a CBOR mapper (default settings, like the services' JSON
+// ones) and into "cbor <entity>" / "cbor <entity> bytes"
+final class JsonDecoder {
+
+    private static final ObjectMapper CBOR = new CBORMapper();
+
+    private final ObjectMapper mapper;
+    private final Histogram time;
+    private final Histogram size;
+    private final Histogram cborTime;
+    private final Histogram cborSize;
+
+    JsonDecoder(ObjectMapper mapper, String entity) {
+        this.mapper = mapper;
+        this.time = Metrics.shared().latency("json " + entity);
+        this.size = Metrics.shared().bytes("json " + entity + " bytes");
+        this.cborTime = Metrics.shared().latency("cbor " + entity);
+        this.cborSize = Metrics.shared().bytes("cbor " + entity + " bytes");
+    }
+
+    // Size is the body's length in chars, which is its byte count for the ASCII JSON the API sends
+    <T> T read(String body, Class<T> type) throws IOException {
+        long start = System.nanoTime();
+        T value = mapper.readValue(body, type);
+        time.recordSince(start);
+        size.record(body.length());
+        return value;
+    }
+
+    <T> T read(Payload body, Class<T> type) throws IOException {
+        boolean cbor = body.format() == WireFormat.CBOR;
+        long start = System.nanoTime();
+        T value = (cbor ? CBOR : mapper).readValue(body.bytes(), type);
+        (cbor ? cborTime : time).recordSince(start);
+        (cbor ? cborSize : size).record(body.bytes().length);
+        return value;
+    }
+
+    // Streamed arrays are parsed while the body arrives, so their time also includes waiting for
+    // the network; time spent in the consumer (handing chunks to the UI) is left out
+    <T> int readArray(HttpResponse<InputStream> res, Class<T> type, int chunkSize,
+                      ChunkConsumer<T> consumer) throws IOException {
+        long[] consumerNanos = { 0 };
+        long[] bytes = { 0 };
+        boolean cbor = WireFormat.of(res.headers()) == WireFormat.CBOR;
+        long start = System.nanoTime();
+        int count = JsonStreams.readArray(res, cbor ? CBOR : mapper, type, chunkSize, (chunk, bytesRead, totalBytes) -> {
+            long t0 = System.nanoTime();
+            consumer.accept(chunk, bytesRead, totalBytes);
+            consumerNanos[0] += System.nanoTime() - t0;
+        }, n -> bytes[0] = n);
+        (cbor ? cborTime : time).record(System.nanoTime() - start - consumerNanos[0]);
+        (cbor ? cborSize : size).record(bytes[0]);
+        return count;
+    }
+}
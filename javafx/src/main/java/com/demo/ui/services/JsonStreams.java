@@ -0,0 +1,69 @@
+package com.demo.ui.services;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+// Token-stream reader for top-level JSON arrays: binds one element at a time and
+// hands them out in chunks, so callers never hold the whole body as text. Works the same for
+// CBOR when given a CBOR mapper (same token model).
+final class JsonStreams {
+    static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private JsonStreams() { }
+
+    // Progress goes out in the Content-Length's unit: encoded bytes for a compressed body, whose
+    // parser offset would run ahead of it. decodedSize gets the decoded body's length at the end.
+    static <T> int readArray(HttpResponse<InputStream> res, ObjectMapper mapper, Class<T> type,
+                             int chunkSize, ChunkConsumer<T> consumer, LongConsumer decodedSize) throws IOException {
+        long totalBytes = res.headers().firstValueAsLong("Content-Length").orElse(-1L);
+        try (InputStream in = res.body()) {
+            LongSupplier wireBytes = in instanceof ContentEncoding.WireStream w ? w::wireBytes : null;
+            return readArray(in, totalBytes, wireBytes, mapper, type, chunkSize, consumer, decodedSize);
+        }
+    }
+
+    // wireBytes null: the body is not encoded and the parser's offset is the position
+    static <T> int readArray(InputStream in, long totalBytes, LongSupplier wireBytes, ObjectMapper mapper,
+                             Class<T> type, int chunkSize, ChunkConsumer<T> consumer,
+                             LongConsumer decodedSize) throws IOException {
+        int size = chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+        ObjectReader reader = mapper.readerFor(type);
+        int count = 0;
+        try (JsonParser parser = mapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array but got " + parser.currentToken());
+            }
+            List<T> chunk = new ArrayList<>(size);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                chunk.add(reader.readValue(parser));
+                count++;
+                if (chunk.size() == size) {
+                    consumer.accept(chunk, position(parser, wireBytes), totalBytes);
+                    chunk = new ArrayList<>(size);
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new IOException("Unexpected token in array: " + parser.currentToken());
+            }
+            if (!chunk.isEmpty() || count == 0) {
+                consumer.accept(chunk, position(parser, wireBytes), totalBytes);
+            }
+            decodedSize.accept(parser.currentLocation().getByteOffset());
+        }
+        return count;
+    }
+
+    private static long position(JsonParser parser, LongSupplier wireBytes) {
+        return wireBytes != null ? wireBytes.getAsLong() : parser.currentLocation().getByteOffset();
+    }
+}
@@ -0,0 +1,283 @@
+package com.demo.ui.services;
+
+import com.demo.ui.metrics.Histogram;
+import com.demo.ui.metrics.Metrics;
+import com.demo.ui.models.Client;
+import com.demo.ui.models.Order;
+import com.demo.ui.models.OrderProduct;
+import com.demo.ui.models.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Fetches what the master-detail path needs for an order before anyone asks for it: the order,
+// its lines and its client in parallel, then the products the lines reference. The selected
+// order goes first; hovered rows and the selection's neighbours are fetched speculatively, at
+// most maxSpeculative of those in flight. A new selection cancels the orders no longer wanted:
+// their queued requests are dropped, requests already on the wire finish (and leave their
+// validators in ApiClient, so reading them again is a 304). Finished details are kept for maxAge,
+// at most maxCached orders, least recently used out first.
+public final class OrderPrefetcher {
+
+    public record Details(Order order, List<OrderProduct> lines, Map<Integer, Product> products,
+                          Client client, long fetchedAt) { }
+
+    private static final OrderPrefetcher SHARED = new OrderPrefetcher(ApiClient.shared(),
+        Integer.getInteger("shop.prefetch.maxSpeculative", 4),
+        Integer.getInteger("shop.prefetch.maxRequests", 8),
+        Integer.getInteger("shop.prefetch.maxCached", 64),
+        Long.getLong("shop.prefetch.maxAgeMillis", 30_000));
+
+    private final OrderService orders;
+    private final OrderProductService lines;
+    private final ProductService products;
+    private final ClientService clients;
+    private final int maxSpeculative;
+    private final int maxCached;
+    private final long maxAgeNanos;
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("prefetch-", 0).factory());
+    // Keeps prefetching from crowding out the loads the user is waiting for
+    private final Semaphore requests;
+    private final Histogram latency = Metrics.shared().latency("prefetch order details");
+
+    private final Map<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private volatile int selected;
+
+    private final AtomicLong startedCount = new AtomicLong();
+    private final AtomicLong cancelledCount = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public OrderPrefetcher(ApiClient api, int maxSpeculative, int maxRequests, int maxCached, long maxAgeMillis) {
+        this.orders = new OrderService(api);
+        this.lines = new OrderProductService(api);
+        this.products = new ProductService(api);
+        this.clients = new ClientService(api);
+        this.maxSpeculative = Math.max(0, maxSpeculative);
+        this.requests = new Semaphore(Math.max(1, maxRequests), true);
+        this.maxCached = Math.max(1, maxCached);
+        this.maxAgeNanos = maxAgeMillis * 1_000_000L;
+    }
+
+    public static OrderPrefetcher shared() { return SHARED; }
+
+    // The operator is looking at order: fetch it now, and its neighbours (nearest first) while
+    // the budget allows. Anything else still in flight is cancelled.
+    public synchronized CompletableFuture<Details> select(Order order, List<Order> neighbours) {
+        selected = order.getId();
+        Set<Integer> wanted = new HashSet<>();
+        wanted.add(order.getId());
+        for (Order n : neighbours) wanted.add(n.getId());
+        cancelAllBut(wanted);
+
+        Entry entry = start(order, false);
+        for (Order n : neighbours) {
+            if (speculativeInFlight() >= maxSpeculative) break;
+            start(n, true);
+        }
+        return entry.future;
+    }
+
+    // Nothing selected any more: drop whatever is still being fetched
+    public synchronized void clearSelection() {
+        selected = 0;
+        cancelAllBut(Set.of());
+    }
+
+    // The pointer rests on order: worth fetching if the speculative budget has room
+    public synchronized void hover(Order order) {
+        Entry e = entries.get(order.getId());
+        if (e != null && !isStale(e)) return;
+        if (speculativeInFlight() < maxSpeculative) start(order, true);
+    }
+
+    // Fully fetched and still fresh, or null
+    public synchronized Details cached(int orderId) {
+        Entry e = entries.get(orderId);
+        Details d = e != null && !isStale(e) ? e.future.getNow(null) : null;
+        (d != null ? hitCount : missCount).incrementAndGet();
+        return d;
+    }
+
+    // The order or its lines were edited: the next read has to go to the server
+    public synchronized void invalidate(int orderId) {
+        Entry e = entries.remove(orderId);
+        if (e != null) e.cancel();
+    }
+
+    public int selectedOrderId() { return selected; }
+
+    // Products by id, fetched in parallel; ones already held by a fresh entry are not asked for again
+    public Map<Integer, Product> products(Collection<Integer> ids) throws Exception {
+        return products(ids, null);
+    }
+
+    public long startedCount() { return startedCount.get(); }
+    public long cancelledCount() { return cancelledCount.get(); }
+    public long hitCount() { return hitCount.get(); }
+    public long missCount() { return missCount.get(); }
+    public synchronized int cachedCount() { return entries.size(); }
+
+    private Entry start(Order order, boolean speculative) {
+        Entry e = entries.get(order.getId());
+        if (e != null && !isStale(e)) {
+            if (!speculative) e.speculative = false;
+            return e;
+        }
+        e = new Entry(order.getId(), speculative);
+        entries.put(order.getId(), e);
+        trim();
+        startedCount.incrementAndGet();
+        Entry entry = e;
+        executor.submit(() -> fetch(entry, order));
+        return e;
+    }
+
+    private void fetch(Entry e, Order order) {
+        long started = System.nanoTime();
+        try {
+            // The order, its lines and its client do not depend on each other
+            int id = order.getId();
+            CompletableFuture<Order> fresh = call(e, () -> orders.getOrder(id));
+            CompletableFuture<List<OrderProduct>> orderLines = call(e, () -> lines.getProductsForOrder(id));
+            CompletableFuture<Client> client = order.getClientId() > 0
+                ? call(e, () -> orNull(() -> clients.getClient(order.getClientId())))
+                : CompletableFuture.completedFuture(null);
+
+            List<OrderProduct> l = ApiClient.await(orderLines);
+            Set<Integer> ids = new HashSet<>();
+            for (OrderProduct op : l) ids.add(op.getProductId());
+            Map<Integer, Product> p = products(ids, e);
+
+            Details d = new Details(ApiClient.await(fresh), l, p, ApiClient.await(client), System.nanoTime());
+            if (e.future.complete(d)) latency.recordSince(started);
+        } catch (Exception ex) {
+            e.future.completeExceptionally(ex);
+        }
+    }
+
+    private Map<Integer, Product> products(Collection<Integer> ids, Entry e) throws Exception {
+        Map<Integer, Product> found = new HashMap<>();
+        Map<Integer, CompletableFuture<Product>> fetching = new HashMap<>();
+        synchronized (this) {
+            for (Entry other : entries.values()) {
+                Details d = isStale(other) ? null : other.future.getNow(null);
+                if (d == null) continue;
+                for (Integer id : ids) {
+                    Product known = d.products().get(id);
+                    if (known != null) found.put(id, known);
+                }
+            }
+        }
+        for (Integer id : ids) {
+            if (!found.containsKey(id)) fetching.put(id, call(e, () -> orNull(() -> products.getProduct(id))));
+        }
+        for (Map.Entry<Integer, CompletableFuture<Product>> f : fetching.entrySet()) {
+            // Deleted since the line was written: the line just shows its id
+            Product product = ApiClient.await(f.getValue());
+            if (product != null) found.put(f.getKey(), product);
+        }
+        return Collections.unmodifiableMap(found);
+    }
+
+    // One request on its own virtual thread, under the shared request budget; dropped before it
+    // is sent if the entry was cancelled while it waited
+    private <T> CompletableFuture<T> call(Entry e, Callable<T> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.submit(() -> {
+            boolean acquired = false;
+            try {
+                requests.acquire();
+                acquired = true;
+                if (e != null && e.cancelled) throw new CancellationException("Selection moved on");
+                result.complete(request.call());
+            } catch (Exception ex) {
+                result.completeExceptionally(ex);
+            } finally {
+                if (acquired) requests.release();
+            }
+        });
+        return result;
+    }
+
+    private static <T> T orNull(Callable<T> read) throws Exception {
+        try {
+            return read.call();
+        } catch (ApiException e) {
+            if (e.status() == 404) return null;
+            throw e;
+        }
+    }
+
+    private void cancelAllBut(Set<Integer> wanted) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (!e.future.isDone() && !wanted.contains(e.orderId)) {
+                it.remove();
+                e.cancel();
+                cancelledCount.incrementAndGet();
+            }
+        }
+    }
+
+    private int speculativeInFlight() {
+        int n = 0;
+        for (Entry e : entries.values()) {
+            if (e.speculative && !e.future.isDone()) n++;
+        }
+        return n;
+    }
+
+    // Failed, cancelled, or finished longer than maxAge ago
+    private boolean isStale(Entry e) {
+        if (!e.future.isDone()) return false;
+        Details d = e.future.isCompletedExceptionally() ? null : e.future.getNow(null);
+        return d == null || System.nanoTime() - d.fetchedAt() > maxAgeNanos;
+    }
+
+    // Least recently used first; the selected order and anything in flight stay
+    private void trim() {
+        List<Integer> evict = new ArrayList<>();
+        int excess = entries.size() - maxCached;
+        for (Entry e : entries.values()) {
+            if (evict.size() >= excess) break;
+            if (e.orderId != selected && e.future.isDone()) evict.add(e.orderId);
+        }
+        for (Integer id : evict) entries.remove(id);
+    }
+
+    private static final class Entry {
+        final int orderId;
+        final CompletableFuture<Details> future = new CompletableFuture<>();
+        volatile boolean speculative;
+        volatile boolean cancelled;
+
+        Entry(int orderId, boolean speculative) {
+            this.orderId = orderId;
+            this.speculative = speculative;
+        }
+
+        void cancel() {
+            cancelled = true;
+            future.cancel(false);
+        }
+    }
+}
@@ -4,32 +4,48 @@ import com.demo.ui.models.OrderProduct;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class OrderProductService {
-    private final ApiClient api = new ApiClient("http://localhost:3000");
+    private final ApiClient api;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonDecoder decoder = new JsonDecoder(mapper, "order_products");
+    private final SingleFlight flights = SingleFlight.shared();
+
+    public OrderProductService() {
+        this(ApiClient.shared());
+    }
+
+    public OrderProductService(ApiClient api) {
+        this.api = api;
+    }
 
     // Get all products for a given order
     public List<OrderProduct> getProductsForOrder(int orderId) throws Exception {
-        String body = api.get("/orders/" + orderId + "/products");
-        return Arrays.asList(mapper.readValue(body, OrderProduct[].class));
+        return flights.getConditionalPayload(api, "/orders/" + orderId + "/products",
+            body -> Collections.unmodifiableList(Arrays.asList(decoder.read(body, OrderProduct[].class))));
+    }
+
+    // Stream the products of an order in chunks while the response is still arriving
+    public int streamProductsForOrder(int orderId, int chunkSize, ChunkConsumer<OrderProduct> consumer) throws Exception {
+        return decoder.readArray(api.getStream("/orders/" + orderId + "/products"), OrderProduct.class, chunkSize, consumer);
     }
 
     // Add a product to an order
-    public OrderProduct addProductToOrder(int orderId, int productId, int quantity, double unitPrice) throws Exception {
-        OrderProduct newItem = new OrderProduct(0, orderId, productId, quantity, unitPrice, 0.0);
+    public OrderProduct addProductToOrder(int orderId, int productId, int quantity, long unitPriceCents) throws Exception {
+        OrderProduct newItem = new OrderProduct(0, orderId, productId, quantity, unitPriceCents, 0);
         String json = mapper.writeValueAsString(newItem);
         String body = api.post("/orders/" + orderId + "/products", json);
-        return mapper.readValue(body, OrderProduct.class);
+        return decoder.read(body, OrderProduct.class);
     }
 
     // Update a product in an order
-    public OrderProduct updateProductInOrder(int orderId, int itemId, int productId, int quantity, double unitPrice) throws Exception {
-        OrderProduct updatedItem = new OrderProduct(itemId, orderId, productId, quantity, unitPrice, 0.0);
+    public OrderProduct updateProductInOrder(int orderId, int itemId, int productId, int quantity, long unitPriceCents) throws Exception {
+        OrderProduct updatedItem = new OrderProduct(itemId, orderId, productId, quantity, unitPriceCents, 0);
         String json = mapper.writeValueAsString(updatedItem);
         String body = api.put("/orders/" + orderId + "/products/" + itemId, json);
-        return mapper.readValue(body, OrderProduct.class);
+        return decoder.read(body, OrderProduct.class);
     }
 
     // Remove a product from an order
@@ -3,23 +3,64 @@ package com.demo.ui.services;
 import com.demo.ui.models.Order;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class OrderService {
-    private final ApiClient api = new ApiClient("http://localhost:3000");
+    private final ApiClient api;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonDecoder decoder = new JsonDecoder(mapper, "orders");
+    private final SingleFlight flights = SingleFlight.shared();
+
+    public OrderService() {
+        this(ApiClient.shared());
+    }
+
+    public OrderService(ApiClient api) {
+        this.api = api;
+    }
 
     // Get all orders
     public List<Order> getAllOrders() throws Exception {
-        String body = api.get("/orders");
-        return Arrays.asList(mapper.readValue(body, Order[].class));
+        return flights.getConditionalPayload(api, "/orders",
+            body -> Collections.unmodifiableList(Arrays.asList(decoder.read(body, Order[].class))));
+    }
+
+    // Stream all orders in chunks while the response is still arriving
+    public int streamAllOrders(int chunkSize, ChunkConsumer<Order> consumer) throws Exception {
+        return decoder.readArray(api.getStream("/orders"), Order.class, chunkSize, consumer);
+    }
+
+    // Get one keyset page of orders (newest first); afterId = last id of the previous page
+    public List<Order> getOrdersPage(Integer afterId, int limit) throws Exception {
+        String path = "/orders?limit=" + limit + (afterId != null ? "&afterId=" + afterId : "");
+        return flights.run(api.getBaseUrl() + path,
+            () -> Arrays.asList(decoder.read(api.get(path), Order[].class)));
+    }
+
+    // Rows with updated_at >= since (an updated_at value previously received), for incremental sync
+    public Delta<Order> getOrdersChangedSince(String since) throws Exception {
+        String path = "/orders?since=" + URLEncoder.encode(since, StandardCharsets.UTF_8);
+        return flights.run(api.getBaseUrl() + path, () -> {
+            HttpResponse<String> res = api.getResponse(path);
+            int total = (int) res.headers().firstValueAsLong("X-Total-Count").orElse(-1);
+            return new Delta<>(Arrays.asList(decoder.read(res.body(), Order[].class)), total);
+        });
+    }
+
+    // Every id currently in the table, to diff against when rows were deleted
+    public int[] getOrderIds() throws Exception {
+        return flights.run(api.getBaseUrl() + "/orders/ids",
+            () -> decoder.read(api.get("/orders/ids"), int[].class));
     }
 
     // Get a single order by ID
     public Order getOrder(int id) throws Exception {
-        String body = api.get("/orders/" + id);
-        return mapper.readValue(body, Order.class);
+        return flights.getConditional(api, "/orders/" + id, body -> decoder.read(body, Order.class));
     }
 
     // Create a new order
@@ -29,13 +70,13 @@ public class OrderService {
         // id=0, amounts default to 0 → backend triggers will recalc totals
         Order newOrder = new Order(
             0, orderNumber, clientId, null, orderStatus, paymentMethod, currencyCode,
-            0.0, 0.0, 0.0, 0.0,
+            0, 0, 0, 0,
             shippingAddress, billingAddress, notes,
             null, null
         );
         String json = mapper.writeValueAsString(newOrder);
         String body = api.post("/orders", json);
-        return mapper.readValue(body, Order.class);
+        return decoder.read(body, Order.class);
     }
 
     // Update an existing order
@@ -44,13 +85,13 @@ public class OrderService {
                              String shippingAddress, String billingAddress, String notes) throws Exception {
         Order updatedOrder = new Order(
             id, orderNumber, clientId, null, orderStatus, paymentMethod, currencyCode,
-            0.0, 0.0, 0.0, 0.0,
+            0, 0, 0, 0,
             shippingAddress, billingAddress, notes,
             null, null
         );
         String json = mapper.writeValueAsString(updatedOrder);
         String body = api.put("/orders/" + id, json);
-        return mapper.readValue(body, Order.class);
+        return decoder.read(body, Order.class);
     }
 
     // Delete an order
@@ -0,0 +1,141 @@
+package com.demo.ui.services;
+
+import com.demo.ui.models.Money;
+import com.demo.ui.models.Order;
+import com.demo.ui.models.OrderProduct;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+// Order totals computed on the client exactly as the order_products triggers do, in whole cents:
+//   unit_price  DECIMAL(12,2)  (the value sent is rounded half-up on insert)
+//   line_total  = quantity * unit_price
+//   subtotal    = SUM(line_total)
+//   tax         = subtotal * 0.21, rounded half-up to cents
+//   total       = GREATEST(subtotal - discount + tax, 0)
+// so a line edit can show the new order totals without waiting for the order to be re-fetched.
+//
+// Every local result is recorded as a prediction; when a newer server copy of that order arrives
+// (a reload or an incremental sync) it is checked against the prediction and any disagreement
+// is counted and logged. Copies still carrying the updated_at the prediction was based on
+// predate the edit and are not checked.
+public final class OrderTotals {
+
+    public static final int TAX_PERCENT = 21;
+
+    private static final OrderTotals SHARED = new OrderTotals();
+
+    public record Totals(long subtotalCents, long discountCents, long taxCents, long totalCents) {
+
+        public static Totals of(Order o) {
+            return new Totals(o.getSubtotalCents(), o.getDiscountCents(), o.getTaxCents(), o.getTotalCents());
+        }
+
+        // Same amounts as the order's own (server) fields
+        public boolean matches(Order o) {
+            return subtotalCents == o.getSubtotalCents()
+                && discountCents == o.getDiscountCents()
+                && taxCents == o.getTaxCents()
+                && totalCents == o.getTotalCents();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("subtotal=");
+            Money.append(sb, subtotalCents).append(" discount=");
+            Money.append(sb, discountCents).append(" tax=");
+            Money.append(sb, taxCents).append(" total=");
+            return Money.append(sb, totalCents).toString();
+        }
+    }
+
+    private record Prediction(Totals totals, String basisUpdatedAt) { }
+
+    private final Map<Integer, Prediction> predicted = new ConcurrentHashMap<>();
+    // Order rows built from predictions, which must not be mistaken for server copies
+    // (Order has identity equality, so this is a weak identity set)
+    private final Set<Order> previews = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private final List<BiConsumer<Integer, Totals>> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong predictedCount = new AtomicLong();
+    private final AtomicLong confirmedCount = new AtomicLong();
+    private final AtomicLong mismatchCount = new AtomicLong();
+
+    public static OrderTotals shared() { return SHARED; }
+
+    // --- Arithmetic ---
+
+    public static long lineTotalCents(int quantity, long unitPriceCents) {
+        return Money.times(unitPriceCents, quantity);
+    }
+
+    public static Totals compute(long discountCents, List<OrderProduct> lines) {
+        long subtotal = 0;
+        for (OrderProduct line : lines) subtotal += lineTotalCents(line.getQuantity(), line.getUnitPriceCents());
+        return compute(subtotal, discountCents);
+    }
+
+    public static Totals compute(long subtotalCents, long discountCents) {
+        long tax = Money.percentOf(subtotalCents, TAX_PERCENT);
+        long total = Math.max(subtotalCents - discountCents + tax, 0);
+        return new Totals(subtotalCents, discountCents, tax, total);
+    }
+
+    // --- Predictions ---
+
+    // Record what the server should report for this order once the edit is applied, given the
+    // updated_at of the order as last seen before it, and tell listeners (FX thread)
+    public void predict(int orderId, Totals totals, String basisUpdatedAt) {
+        predicted.put(orderId, new Prediction(totals, basisUpdatedAt));
+        predictedCount.incrementAndGet();
+        for (BiConsumer<Integer, Totals> l : listeners) l.accept(orderId, totals);
+    }
+
+    public void addListener(BiConsumer<Integer, Totals> listener) { listeners.add(listener); }
+    public void removeListener(BiConsumer<Integer, Totals> listener) { listeners.remove(listener); }
+
+    // Copy of the order carrying predicted totals, for showing before the server confirms them
+    public Order preview(Order o, Totals t) {
+        Order copy = new Order(o.getId(), o.getOrderNumber(), o.getClientId(), o.getOrderDate(),
+            o.getOrderStatus(), o.getPaymentMethod(), o.getCurrencyCode(),
+            t.subtotalCents(), t.discountCents(), t.taxCents(), t.totalCents(),
+            o.getShippingAddress(), o.getBillingAddress(), o.getNotes(),
+            o.getCreatedAt(), o.getUpdatedAt());
+        previews.add(copy);
+        return copy;
+    }
+
+    // A server copy of an order arrived: settle the prediction for it, if any.
+    // Returns false only when the server disagrees with what was predicted.
+    public boolean verify(Order serverCopy) {
+        if (predicted.isEmpty() || previews.contains(serverCopy)) return true;
+        Prediction expected = predicted.get(serverCopy.getId());
+        if (expected == null || Objects.equals(expected.basisUpdatedAt(), serverCopy.getUpdatedAt())) return true;
+        predicted.remove(serverCopy.getId(), expected);
+        return check(serverCopy, expected.totals());
+    }
+
+    // Compare a local computation with the server's totals for the same order
+    public boolean check(Order serverCopy, Totals local) {
+        if (local.matches(serverCopy)) {
+            confirmedCount.incrementAndGet();
+            return true;
+        }
+        mismatchCount.incrementAndGet();
+        System.err.println("Order " + serverCopy.getId() + " totals differ from local computation: expected "
+            + local + ", server has " + Totals.of(serverCopy));
+        return false;
+    }
+
+    public long predictedCount() { return predictedCount.get(); }
+    public long confirmedCount() { return confirmedCount.get(); }
+    public long mismatchCount() { return mismatchCount.get(); }
+}
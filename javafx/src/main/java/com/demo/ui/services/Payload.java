@@ -0,0 +1,10 @@
+package com.demo.ui.services;
+
+// A response body as received, with the format the server answered in
+record Payload(WireFormat format, byte[] bytes) {
+
+    @FunctionalInterface
+    interface Parser<T> {
+        T parse(Payload body) throws Exception;
+    }
+}
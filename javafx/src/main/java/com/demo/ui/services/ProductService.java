@@ -1,38 +1,304 @@
 package com.demo.ui.services;
 
 import com.demo.ui.models.Product;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.function.IntFunction;
 
 public class ProductService {
-    private final ApiClient api = new ApiClient("http://localhost:3000");
+    public static final int DEFAULT_BULK_CONCURRENCY = 8;
+    // Items per POST /products/bulk; the backend rejects larger batches
+    public static final int BULK_BATCH_SIZE = 1000;
+
+    private final ApiClient api;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonDecoder decoder = new JsonDecoder(mapper, "products");
+    private final SingleFlight flights = SingleFlight.shared();
+    // Prefix of the idempotency keys of this service's creates (see itemNode)
+    private final String clientNonce = UUID.randomUUID().toString();
+
+    private volatile boolean bulkEndpointEnabled = true;
+    // null until the first bulk call finds out whether the backend has POST /products/bulk
+    private volatile Boolean bulkEndpointAvailable;
+
+    public ProductService() {
+        this(ApiClient.shared());
+    }
+
+    public ProductService(ApiClient api) {
+        this.api = api;
+    }
 
     public List<Product> getAllProducts() throws Exception {
-        String body = api.get("/products");
-        return Arrays.asList(mapper.readValue(body, Product[].class));
+        return flights.getConditionalPayload(api, "/products",
+            body -> Collections.unmodifiableList(Arrays.asList(decoder.read(body, Product[].class))));
+    }
+
+    public int streamAllProducts(int chunkSize, ChunkConsumer<Product> consumer) throws Exception {
+        return decoder.readArray(api.getStream("/products"), Product.class, chunkSize, consumer);
+    }
+
+    // Rows with updated_at >= since (an updated_at value previously received), for incremental sync
+    public Delta<Product> getProductsChangedSince(String since) throws Exception {
+        String path = "/products?since=" + URLEncoder.encode(since, StandardCharsets.UTF_8);
+        return flights.run(api.getBaseUrl() + path, () -> {
+            HttpResponse<String> res = api.getResponse(path);
+            int total = (int) res.headers().firstValueAsLong("X-Total-Count").orElse(-1);
+            return new Delta<>(Arrays.asList(decoder.read(res.body(), Product[].class)), total);
+        });
+    }
+
+    // Every id currently in the table, to diff against when rows were deleted
+    public int[] getProductIds() throws Exception {
+        return flights.run(api.getBaseUrl() + "/products/ids",
+            () -> decoder.read(api.get("/products/ids"), int[].class));
     }
 
     public Product getProduct(int id) throws Exception {
-        String body = api.get("/products/" + id);
-        return mapper.readValue(body, Product.class);
+        return flights.getConditional(api, "/products/" + id, body -> decoder.read(body, Product.class));
     }
 
-    public Product createProduct(String name, String description, double price, int stock, Integer providerId) throws Exception {
-        String json = mapper.writeValueAsString(new Product(0, name, description, price, stock, providerId, null, null));
+    public Product createProduct(String name, String description, long priceCents, int stock, Integer providerId) throws Exception {
+        String json = mapper.writeValueAsString(new Product(0, name, description, priceCents, stock, providerId, null, null));
         String body = api.post("/products", json);
-        return mapper.readValue(body, Product.class);
+        return decoder.read(body, Product.class);
     }
 
-    public Product updateProduct(int id, String name, String description, double price, int stock, Integer providerId) throws Exception {
-        String json = mapper.writeValueAsString(new Product(id, name, description, price, stock, providerId, null, null));
+    public Product updateProduct(int id, String name, String description, long priceCents, int stock, Integer providerId) throws Exception {
+        String json = mapper.writeValueAsString(new Product(id, name, description, priceCents, stock, providerId, null, null));
         String body = api.put("/products/" + id, json);
-        return mapper.readValue(body, Product.class);
+        return decoder.read(body, Product.class);
     }
 
     public void deleteProduct(int id) throws Exception {
         api.delete("/products/" + id);
     }
+
+    // --- Bulk writes ---
+
+    // Off = always pipeline single-item calls, even if the backend has the bulk endpoint
+    public void setBulkEndpointEnabled(boolean enabled) { this.bulkEndpointEnabled = enabled; }
+
+    public BulkResult<Product> createProducts(List<Product> products) throws InterruptedException {
+        return createProducts(products, DEFAULT_BULK_CONCURRENCY);
+    }
+
+    // Creates every product. Uses POST /products/bulk in batches when the backend offers it,
+    // otherwise pipelines single POSTs; either way at most `concurrency` requests are in flight.
+    public BulkResult<Product> createProducts(List<Product> products, int concurrency) throws InterruptedException {
+        return writeAll(products, concurrency, Write.CREATE);
+    }
+
+    public BulkResult<Product> updateProducts(List<Product> products) throws InterruptedException {
+        return updateProducts(products, DEFAULT_BULK_CONCURRENCY);
+    }
+
+    // Updates every product by its id, same transport rules as createProducts
+    public BulkResult<Product> updateProducts(List<Product> products, int concurrency) throws InterruptedException {
+        return writeAll(products, concurrency, Write.UPDATE);
+    }
+
+    // Mixed batch, same transport rules: products with an id update it, the others are created.
+    // An update that carries updated_at only applies if the row still has that updated_at;
+    // otherwise its item fails with a 409 ApiException and holds the server's current product.
+    // A create with a negative id (the caller's temporary id, unique per service) may be sent again
+    // after a lost response: the backend recognises it and does not insert a second row.
+    public BulkResult<Product> saveProducts(List<Product> products) throws InterruptedException {
+        return writeAll(products, DEFAULT_BULK_CONCURRENCY, Write.SAVE);
+    }
+
+    // Deletes every id with pipelined single DELETEs (the bulk endpoint only writes); the value
+    // of each item is its id
+    public BulkResult<Integer> deleteProducts(List<Integer> ids) throws InterruptedException {
+        long start = System.nanoTime();
+        List<BulkResult.Item<Integer>> results = new ArrayList<>(Collections.nCopies(ids.size(), null));
+        pipeline(ids.size(), DEFAULT_BULK_CONCURRENCY, index -> {
+            int id = ids.get(index);
+            CompletableFuture<Void> call;
+            try {
+                call = api.deleteAsync("/products/" + id);
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            return call.handle((ignored, error) -> {
+                results.set(index, new BulkResult.Item<>(index, id, error != null ? ApiClient.unwrap(error) : null));
+                return null;
+            });
+        });
+        return new BulkResult<>(results, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    // What a bulk write does with each item
+    private enum Write {
+        CREATE, UPDATE,
+        // id > 0 updates (checked against updated_at when present), anything else creates
+        SAVE;
+
+        boolean updates(Product p) {
+            return this == UPDATE || this == SAVE && p.getId() > 0;
+        }
+    }
+
+    private BulkResult<Product> writeAll(List<Product> products, int concurrency, Write mode) throws InterruptedException {
+        long start = System.nanoTime();
+        List<BulkResult.Item<Product>> results = new ArrayList<>(Collections.nCopies(products.size(), null));
+
+        if (bulkEndpointEnabled && !Boolean.FALSE.equals(bulkEndpointAvailable) && products.size() > 1) {
+            int batches = (products.size() + BULK_BATCH_SIZE - 1) / BULK_BATCH_SIZE;
+            pipeline(batches, concurrency, b -> writeBatch(products, b * BULK_BATCH_SIZE,
+                Math.min(products.size(), (b + 1) * BULK_BATCH_SIZE), mode, results));
+        }
+
+        // Whatever the bulk endpoint did not handle (none, or it turned out not to exist)
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) pending.add(i);
+        }
+        pipeline(pending.size(), concurrency, k -> writeOne(products, pending.get(k), mode, results));
+
+        return new BulkResult<>(results, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private CompletableFuture<?> writeOne(List<Product> products, int index, Write mode,
+                                          List<BulkResult.Item<Product>> results) {
+        Product p = products.get(index);
+        boolean update = mode.updates(p);
+        CompletableFuture<HttpResponse<String>> call;
+        try {
+            call = update
+                ? api.putAsyncResponse("/products/" + p.getId(), toJson(itemNode(p, mode)))
+                : api.postAsyncResponse("/products", toJson(itemNode(p, mode)));
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        return call.handle((res, error) -> {
+            results.set(index, error != null
+                ? new BulkResult.Item<>(index, null, ApiClient.unwrap(error))
+                : parseResponse(index, res));
+            return null;
+        });
+    }
+
+    private CompletableFuture<?> writeBatch(List<Product> products, int from, int to, Write mode,
+                                            List<BulkResult.Item<Product>> results) {
+        ArrayNode batch = mapper.createArrayNode();
+        for (Product p : products.subList(from, to)) batch.add(itemNode(p, mode));
+        return api.postAsyncResponse("/products/bulk", toJson(batch))
+            .thenAccept(res -> applyBatch(res, from, to, results))
+            .exceptionally(error -> {
+                Exception cause = ApiClient.unwrap(error);
+                for (int i = from; i < to; i++) results.set(i, new BulkResult.Item<>(i, null, cause));
+                return null;
+            });
+    }
+
+    // Response is one { status, product } or { status, error } per item, in request order. Any other
+    // count fails the whole batch: the items cannot be matched up, and re-sending the unmatched
+    // ones one by one could write twice what the server already applied.
+    private void applyBatch(HttpResponse<String> res, int from, int to, List<BulkResult.Item<Product>> results) {
+        if (res.statusCode() == 404) {
+            // Older backend: leave the batch unset so it goes through single-item calls
+            bulkEndpointAvailable = false;
+            return;
+        }
+        if (res.statusCode() != 200) {
+            throw ApiException.of(res.statusCode(), res.body());
+        }
+        bulkEndpointAvailable = true;
+        try {
+            JsonNode items = mapper.readTree(res.body());
+            if (!items.isArray() || items.size() != to - from) {
+                throw new IOException("Bulk response has " + items.size() + " items for " + (to - from) + " sent");
+            }
+            for (int k = 0; k < items.size(); k++) {
+                JsonNode item = items.get(k);
+                int index = from + k;
+                results.set(index, item(index, item.path("status").asInt(), item));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Single POST/PUT: the product itself, or { error, product? } like a bulk item
+    private BulkResult.Item<Product> parseResponse(int index, HttpResponse<String> res) {
+        try {
+            int status = res.statusCode();
+            if (status >= 200 && status < 300) {
+                return new BulkResult.Item<>(index, decoder.read(res.body(), Product.class), null);
+            }
+            JsonNode body;
+            try {
+                body = mapper.readTree(res.body());
+            } catch (IOException e) {
+                return new BulkResult.Item<>(index, null, ApiException.of(status, res.body()));
+            }
+            return item(index, status, body);
+        } catch (IOException e) {
+            return new BulkResult.Item<>(index, null, e);
+        }
+    }
+
+    private BulkResult.Item<Product> item(int index, int status, JsonNode node) throws IOException {
+        Product product = node.hasNonNull("product") ? mapper.treeToValue(node.get("product"), Product.class) : null;
+        return product != null && status >= 200 && status < 300
+            ? new BulkResult.Item<>(index, product, null)
+            : new BulkResult.Item<>(index, product, ApiException.of(status, node.path("error").asText()));
+    }
+
+    // Creates never send an id: on the bulk endpoint a positive id means "update". A temporary
+    // (negative) id goes out as idempotency_key instead, with this service's nonce.
+    // updated_at only goes out as the version check of a SAVE update.
+    private ObjectNode itemNode(Product p, Write mode) {
+        ObjectNode node = mapper.valueToTree(p);
+        boolean update = mode.updates(p);
+        if (!update) {
+            node.remove("id");
+            if (p.getId() < 0) node.put("idempotency_key", clientNonce + ":" + -p.getId());
+        }
+        node.remove("created_at");
+        if (!(update && mode == Write.SAVE) || p.getUpdatedAt() == null) node.remove("updated_at");
+        return node;
+    }
+
+    private String toJson(JsonNode node) {
+        try {
+            return mapper.writeValueAsString(node);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Runs tasks 0..count-1 with at most `concurrency` in flight and returns once all have finished.
+    // Tasks record their own outcome.
+    private static void pipeline(int count, int concurrency, IntFunction<CompletableFuture<?>> task)
+            throws InterruptedException {
+        Semaphore permits = new Semaphore(Math.max(1, concurrency));
+        CountDownLatch finished = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            permits.acquire();
+            task.apply(i).whenComplete((r, e) -> {
+                permits.release();
+                finished.countDown();
+            });
+        }
+        finished.await();
+    }
 }
@@ -0,0 +1,86 @@
+package com.demo.ui.services;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Coalesces identical concurrent reads: the first caller for a key runs the request, everyone
+// who asks for the same key while it is in flight waits for that call and gets the same
+// deserialized result (or the same exception). Nothing is cached once the call finishes.
+// A leader that is cancelled or interrupted mid-call does not hand that to the others: they
+// retry, and one of them becomes the new leader.
+public class SingleFlight {
+
+    private static final SingleFlight SHARED = new SingleFlight();
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong executedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    // Process-wide instance, so two windows/views asking for the same resource share a call
+    public static SingleFlight shared() {
+        return SHARED;
+    }
+
+    // Conditional GET of path on api, coalesced per base URL + path
+    public <T> T getConditional(ApiClient api, String path, BodyParser<T> parser) throws Exception {
+        return run(api.getBaseUrl() + path, () -> api.getConditional(path, parser));
+    }
+
+    // Same for list reads that may come back as CBOR (see ApiClient.getConditionalPayload)
+    <T> T getConditionalPayload(ApiClient api, String path, Payload.Parser<T> parser) throws Exception {
+        return run(api.getBaseUrl() + path, () -> api.getConditionalPayload(path, parser));
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T run(String key, Callable<T> call) throws Exception {
+        while (true) {
+            CompletableFuture<Object> mine = new CompletableFuture<>();
+            CompletableFuture<Object> leader = inFlight.putIfAbsent(key, mine);
+            if (leader != null) {
+                coalescedCount.incrementAndGet();
+                try {
+                    return (T) leader.get();
+                } catch (CancellationException e) {
+                    // The leader's caller was cancelled, not the request: run it again (maybe as leader)
+                    continue;
+                } catch (ExecutionException e) {
+                    throw ApiClient.unwrap(e.getCause());
+                }
+            }
+
+            executedCount.incrementAndGet();
+            try {
+                T value = call.call();
+                inFlight.remove(key, mine);
+                mine.complete(value);
+                return value;
+            } catch (Exception e) {
+                inFlight.remove(key, mine);
+                // Our own interrupt (a superseded task) is no answer for the callers who joined us
+                if (e instanceof InterruptedException || e instanceof CancellationException
+                        || Thread.currentThread().isInterrupted()) {
+                    mine.cancel(false);
+                } else {
+                    mine.completeExceptionally(e);
+                }
+                throw e;
+            } catch (Error e) {
+                inFlight.remove(key, mine);
+                mine.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    // Requests actually sent
+    public long executedCount() { return executedCount.get(); }
+    // Requests saved by joining one already in flight
+    public long coalescedCount() { return coalescedCount.get(); }
+    public int inFlightCount() { return inFlight.size(); }
+}
@@ -0,0 +1,26 @@
+package com.demo.ui.services;
+
+import java.net.http.HttpHeaders;
+
+// Formats the large list reads can come in. CBOR carries the same data model as JSON, so the
+// same model classes and @JsonProperty mappings bind it, but lengths and integers are binary
+// and decoding skips the text scanning that dominates JSON parsing. Asked for with Accept when
+// ApiPolicy.cbor is on; a backend that cannot encode it answers JSON, so the response's
+// Content-Type decides how a body is read.
+enum WireFormat {
+    JSON("application/json"),
+    CBOR("application/cbor");
+
+    static final String ACCEPT_BINARY = "application/cbor, application/json;q=0.9";
+
+    final String mediaType;
+
+    WireFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    static WireFormat of(HttpHeaders headers) {
+        String type = headers.firstValue("Content-Type").orElse("");
+        return type.regionMatches(true, 0, CBOR.mediaType, 0, CBOR.mediaType.length()) ? CBOR : JSON;
+    }
+}
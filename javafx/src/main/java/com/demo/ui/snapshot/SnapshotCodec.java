@@ -0,0 +1,115 @@
+package com.demo.ui.snapshot;
+
+import com.demo.ui.models.Client;
+import com.demo.ui.models.Order;
+import com.demo.ui.models.Product;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Fixed field order per model; adding/removing a field means bumping SnapshotStore.FORMAT_VERSION.
+// Strings are int length (-1 = null) + UTF-8, numbers are big-endian like DataOutputStream,
+// amounts are long cents.
+interface SnapshotCodec<T> {
+
+    void write(DataOutputStream out, T row) throws IOException;
+
+    T read(ByteBuffer in);
+
+    SnapshotCodec<Product> PRODUCT = new SnapshotCodec<>() {
+        @Override
+        public void write(DataOutputStream out, Product p) throws IOException {
+            out.writeInt(p.getId());
+            writeString(out, p.getName());
+            writeString(out, p.getDescription());
+            out.writeLong(p.getPriceCents());
+            out.writeInt(p.getStock());
+            out.writeInt(p.getProviderId() != null ? p.getProviderId() : Integer.MIN_VALUE);
+            writeString(out, p.getCreatedAt());
+            writeString(out, p.getUpdatedAt());
+        }
+
+        @Override
+        public Product read(ByteBuffer in) {
+            int id = in.getInt();
+            String name = readString(in);
+            String description = readString(in);
+            long priceCents = in.getLong();
+            int stock = in.getInt();
+            int provider = in.getInt();
+            return new Product(id, name, description, priceCents, stock,
+                provider == Integer.MIN_VALUE ? null : provider, readString(in), readString(in));
+        }
+    };
+
+    SnapshotCodec<Client> CLIENT = new SnapshotCodec<>() {
+        @Override
+        public void write(DataOutputStream out, Client c) throws IOException {
+            out.writeInt(c.getId());
+            writeString(out, c.getName());
+            writeString(out, c.getEmail());
+            writeString(out, c.getPhone());
+            writeString(out, c.getAddress());
+            writeString(out, c.getCreatedAt());
+            writeString(out, c.getUpdatedAt());
+        }
+
+        @Override
+        public Client read(ByteBuffer in) {
+            return new Client(in.getInt(), readString(in), readString(in), readString(in),
+                readString(in), readString(in), readString(in));
+        }
+    };
+
+    SnapshotCodec<Order> ORDER = new SnapshotCodec<>() {
+        @Override
+        public void write(DataOutputStream out, Order o) throws IOException {
+            out.writeInt(o.getId());
+            writeString(out, o.getOrderNumber());
+            out.writeInt(o.getClientId());
+            writeString(out, o.getOrderDate());
+            writeString(out, o.getOrderStatus());
+            writeString(out, o.getPaymentMethod());
+            writeString(out, o.getCurrencyCode());
+            out.writeLong(o.getSubtotalCents());
+            out.writeLong(o.getDiscountCents());
+            out.writeLong(o.getTaxCents());
+            out.writeLong(o.getTotalCents());
+            writeString(out, o.getShippingAddress());
+            writeString(out, o.getBillingAddress());
+            writeString(out, o.getNotes());
+            writeString(out, o.getCreatedAt());
+            writeString(out, o.getUpdatedAt());
+        }
+
+        @Override
+        public Order read(ByteBuffer in) {
+            // Java evaluates arguments left to right, which is the field order above
+            return new Order(in.getInt(), readString(in), in.getInt(), readString(in),
+                readString(in), readString(in), readString(in),
+                in.getLong(), in.getLong(), in.getLong(), in.getLong(),
+                readString(in), readString(in), readString(in),
+                readString(in), readString(in));
+        }
+    };
+
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,314 @@
+package com.demo.ui.snapshot;
+
+import com.demo.ui.models.Client;
+import com.demo.ui.models.Order;
+import com.demo.ui.models.Product;
+import com.demo.ui.services.ApiClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+// Last known products, clients and recent orders on local disk, so views can show rows
+// before the first fetch returns (and while the backend is unreachable).
+//
+// File layout (big-endian):
+//   "SHOPSNAP" | int format version | long saved-at epoch ms | string base URL | int section count
+//   per section: int section id | int row count | int byte length | rows (SnapshotCodec)
+//   int CRC32 of everything before it
+//
+// The file is memory-mapped on open and each section is decoded on first use. Writes go to a
+// temp file in the same directory that is then renamed over the old one, so readers only ever
+// see a complete snapshot. Wrong magic/version/base URL or a bad checksum = no snapshot.
+// Windows cannot replace a file that is still mapped, so sections not decoded by the first write
+// are copied to the heap before it. The JDK only unmaps once the mapping is garbage collected:
+// until then a rename there can still fail, which is logged, and the next put writes again.
+public class SnapshotStore {
+
+    // 2: amounts stored as long cents instead of doubles
+    public static final int FORMAT_VERSION = 2;
+    // Orders are the big table; only the newest ones are worth keeping locally
+    public static final int RECENT_ORDERS = 1000;
+
+    private static final byte[] MAGIC = "SHOPSNAP".getBytes(StandardCharsets.US_ASCII);
+
+    private static volatile SnapshotStore shared;
+
+    public enum Section {
+        PRODUCTS(1, SnapshotCodec.PRODUCT),
+        CLIENTS(2, SnapshotCodec.CLIENT),
+        ORDERS(3, SnapshotCodec.ORDER);
+
+        final int id;
+        final SnapshotCodec<?> codec;
+
+        Section(int id, SnapshotCodec<?> codec) {
+            this.id = id;
+            this.codec = codec;
+        }
+    }
+
+    // A section is either still raw (bytes from disk: mapped, or on the heap once written) or
+    // decoded/replaced in memory
+    private static final class Entry {
+        ByteBuffer raw;
+        int rawCount;
+        List<?> rows;
+    }
+
+    private final Path file;
+    private final String baseUrl;
+    private final boolean enabled;
+    private final Map<Section, Entry> sections = new EnumMap<>(Section.class);
+    private Instant savedAt;
+
+    // One background writer; several puts in a row collapse into one write
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "snapshot-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean writePending = new AtomicBoolean(false);
+
+    public SnapshotStore(Path file, String baseUrl) {
+        this(file, baseUrl, true);
+    }
+
+    private SnapshotStore(Path file, String baseUrl, boolean enabled) {
+        this.file = file;
+        this.baseUrl = baseUrl;
+        this.enabled = enabled;
+        if (enabled) open();
+    }
+
+    // -Dshop.snapshot.path=... (default ~/.shop-client/snapshot.bin), -Dshop.snapshot.enabled=false to turn off
+    public static SnapshotStore shared() {
+        SnapshotStore s = shared;
+        if (s == null) {
+            synchronized (SnapshotStore.class) {
+                s = shared;
+                if (s == null) {
+                    Path path = Path.of(System.getProperty("shop.snapshot.path",
+                        Path.of(System.getProperty("user.home"), ".shop-client", "snapshot.bin").toString()));
+                    boolean on = Boolean.parseBoolean(System.getProperty("shop.snapshot.enabled", "true"));
+                    s = new SnapshotStore(path, ApiClient.shared().getBaseUrl(), on);
+                    shared = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    // --- Reads ---
+
+    public List<Product> products() { return rows(Section.PRODUCTS); }
+    public List<Client> clients() { return rows(Section.CLIENTS); }
+    public List<Order> orders() { return rows(Section.ORDERS); }
+
+    // When the rows on disk were written; null if there is no usable snapshot
+    public synchronized Instant savedAt() { return savedAt; }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> List<T> rows(Section section) {
+        Entry e = sections.get(section);
+        if (e == null) return Collections.emptyList();
+        if (e.rows == null) {
+            try {
+                e.rows = decode(section, e.raw.duplicate(), e.rawCount);
+            } catch (RuntimeException ex) {
+                // Truncated/garbled section: behave as if there were none
+                System.err.println("Snapshot section " + section + " unreadable: " + ex);
+                sections.remove(section);
+                return Collections.emptyList();
+            }
+            e.raw = null;
+        }
+        return (List<T>) e.rows;
+    }
+
+    // --- Writes ---
+
+    public void putProducts(List<Product> rows) { put(Section.PRODUCTS, rows); }
+    public void putClients(List<Client> rows) { put(Section.CLIENTS, rows); }
+
+    // Expects newest first (as the API returns them); keeps the first RECENT_ORDERS
+    public void putOrders(List<Order> rows) {
+        put(Section.ORDERS, rows.size() > RECENT_ORDERS ? rows.subList(0, RECENT_ORDERS) : rows);
+    }
+
+    private void put(Section section, List<?> rows) {
+        if (!enabled) return;
+        synchronized (this) {
+            Entry e = new Entry();
+            e.rows = Collections.unmodifiableList(new ArrayList<>(rows));
+            sections.put(section, e);
+        }
+        if (writePending.compareAndSet(false, true)) {
+            writer.execute(() -> {
+                writePending.set(false);
+                try {
+                    writeNow();
+                } catch (IOException ex) {
+                    System.err.println("Snapshot write failed: " + ex);
+                }
+            });
+        }
+    }
+
+    // Encode everything and atomically replace the file
+    public void writeNow() throws IOException {
+        Instant now = Instant.now();
+        byte[] bytes;
+        synchronized (this) {
+            detachFromFile();
+            bytes = encode(now);
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer buf = ByteBuffer.wrap(bytes);
+                while (buf.hasRemaining()) ch.write(buf);
+                ch.force(true);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            synchronized (this) {
+                savedAt = now;
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // --- Format ---
+
+    private void open() {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            read(buf);
+        } catch (NoSuchFileException e) {
+            // First run
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring snapshot " + file + ": " + e);
+            sections.clear();
+            savedAt = null;
+        }
+    }
+
+    private void read(ByteBuffer buf) throws IOException {
+        if (buf.limit() < MAGIC.length + 4) throw new IOException("too short");
+        CRC32 crc = new CRC32();
+        crc.update(buf.duplicate().limit(buf.limit() - 4));
+        if ((int) crc.getValue() != buf.getInt(buf.limit() - 4)) throw new IOException("checksum mismatch");
+
+        byte[] magic = new byte[MAGIC.length];
+        buf.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException("not a snapshot file");
+        int version = buf.getInt();
+        if (version != FORMAT_VERSION) throw new IOException("format version " + version);
+        Instant written = Instant.ofEpochMilli(buf.getLong());
+        String source = SnapshotCodec.readString(buf);
+        // Rows from another backend (e.g. the fake one) must not show up here
+        if (!baseUrl.equals(source)) return;
+
+        int count = buf.getInt();
+        for (int i = 0; i < count; i++) {
+            int id = buf.getInt();
+            int rowCount = buf.getInt();
+            int length = buf.getInt();
+            ByteBuffer slice = buf.slice(buf.position(), length);
+            buf.position(buf.position() + length);
+            for (Section s : Section.values()) {
+                if (s.id == id) {
+                    Entry e = new Entry();
+                    e.raw = slice;
+                    e.rawCount = rowCount;
+                    sections.put(s, e);
+                }
+            }
+        }
+        savedAt = written;
+    }
+
+    // Nothing may refer to the mapped file once it is to be replaced
+    private void detachFromFile() {
+        for (Entry e : sections.values()) {
+            if (e.raw != null && e.raw.isDirect()) {
+                ByteBuffer heap = ByteBuffer.allocate(e.raw.remaining());
+                heap.put(e.raw.duplicate()).flip();
+                e.raw = heap;
+            }
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private byte[] encode(Instant now) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(now.toEpochMilli());
+        SnapshotCodec.writeString(out, baseUrl);
+        out.writeInt(sections.size());
+
+        ByteArrayOutputStream sectionBytes = new ByteArrayOutputStream(1 << 16);
+        DataOutputStream sectionOut = new DataOutputStream(sectionBytes);
+        for (Map.Entry<Section, Entry> s : sections.entrySet()) {
+            Entry e = s.getValue();
+            out.writeInt(s.getKey().id);
+            if (e.rows == null) {
+                // Never decoded: copy the stored bytes through
+                byte[] raw = new byte[e.raw.remaining()];
+                e.raw.duplicate().get(raw);
+                out.writeInt(e.rawCount);
+                out.writeInt(raw.length);
+                out.write(raw);
+                continue;
+            }
+            sectionBytes.reset();
+            SnapshotCodec codec = s.getKey().codec;
+            for (Object row : e.rows) codec.write(sectionOut, row);
+            sectionOut.flush();
+            out.writeInt(e.rows.size());
+            out.writeInt(sectionBytes.size());
+            sectionBytes.writeTo(out);
+        }
+        out.flush();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static List<?> decode(Section section, ByteBuffer in, int count) {
+        List<Object> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) rows.add(section.codec.read(in));
+        return Collections.unmodifiableList(rows);
+    }
+}
@@ -0,0 +1,17 @@
+package com.demo.ui.tasks;
+
+import java.util.concurrent.CancellationException;
+
+// Handed to running work so it can publish partial results and notice when it was superseded
+public interface TaskContext {
+
+    // False once a newer task of the same kind was started or this one was cancelled
+    boolean isCurrent();
+
+    // Run on the UI thread, but only if this task is still current when it gets there
+    void post(Runnable uiUpdate);
+
+    default void throwIfStale() {
+        if (!isCurrent()) throw new CancellationException("Superseded");
+    }
+}
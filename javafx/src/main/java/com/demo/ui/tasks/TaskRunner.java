@@ -0,0 +1,168 @@
+package com.demo.ui.tasks;
+
+import com.demo.ui.metrics.Histogram;
+import com.demo.ui.metrics.Metrics;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Shared background runtime for the ViewModels.
+// Every task runs on its own named virtual thread; at most maxConcurrent run at once, the rest queue.
+// Tasks submitted with a kind supersede the previous task of the same (owner, kind): the old one is
+// cancelled and anything it still tries to publish is dropped, so out-of-order completions never win.
+// The delay between a task posting to the UI executor and the update running there is recorded
+// per ViewModel ("ui <class that wrote onSuccess>").
+public final class TaskRunner {
+
+    private static final TaskRunner SHARED = new TaskRunner(
+        Integer.getInteger("shop.tasks.maxConcurrent", 16), UiUpdateScheduler.shared());
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("task-", 0).factory());
+    private final Semaphore permits;
+    private final Executor uiExecutor;
+
+    private final Map<Key, Running> latest = new ConcurrentHashMap<>();
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong superseded = new AtomicLong();
+    private final AtomicLong staleDropped = new AtomicLong();
+
+    public TaskRunner(int maxConcurrent, Executor uiExecutor) {
+        this.permits = new Semaphore(Math.max(1, maxConcurrent), true);
+        this.uiExecutor = uiExecutor;
+    }
+
+    public static TaskRunner shared() { return SHARED; }
+
+    // Fire-and-forget work (create/update/delete): never superseded
+    public <T> Future<?> submit(String name, Callable<T> work, Consumer<T> onSuccess, Consumer<Exception> onError) {
+        return start(null, name, ctx -> work.call(), onSuccess, onError);
+    }
+
+    // Latest-wins work: starting another task with the same owner and kind cancels this one
+    public <T> Future<?> submitLatest(Object owner, String kind, Callable<T> work,
+                                      Consumer<T> onSuccess, Consumer<Exception> onError) {
+        return start(new Key(owner, kind), kind, ctx -> work.call(), onSuccess, onError);
+    }
+
+    // Latest-wins work that publishes partial results through its context
+    public <T> Future<?> submitLatest(Object owner, String kind, TaskWork<T> work,
+                                      Consumer<T> onSuccess, Consumer<Exception> onError) {
+        return start(new Key(owner, kind), kind, work, onSuccess, onError);
+    }
+
+    public void cancel(Object owner, String kind) {
+        Running r = latest.remove(new Key(owner, kind));
+        if (r != null) r.cancel();
+    }
+
+    // Every latest-wins task of owner, whatever its kind (the owner is going away)
+    public void cancelAll(Object owner) {
+        latest.forEach((key, r) -> {
+            if (key.owner() == owner && latest.remove(key, r)) r.cancel();
+        });
+    }
+
+    public int activeCount() { return active.get(); }
+    public int queuedCount() { return queued.get(); }
+    public long supersededCount() { return superseded.get(); }
+    public long staleDroppedCount() { return staleDropped.get(); }
+
+    private <T> Future<?> start(Key key, String name, TaskWork<T> work,
+                                Consumer<T> onSuccess, Consumer<Exception> onError) {
+        Running run = new Running(key, Metrics.shared().latency("ui " + ownerName(onSuccess)));
+        if (key != null) {
+            Running previous = latest.put(key, run);
+            if (previous != null) {
+                previous.cancel();
+                superseded.incrementAndGet();
+            }
+        }
+        queued.incrementAndGet();
+        run.future = executor.submit(() -> {
+            Thread.currentThread().setName(name);
+            boolean acquired = false;
+            try {
+                permits.acquire();
+                acquired = true;
+                queued.decrementAndGet();
+                active.incrementAndGet();
+                run.throwIfStale();
+                T result = work.run(run);
+                run.post(() -> onSuccess.accept(result));
+            } catch (CancellationException | InterruptedException e) {
+                // Superseded or cancelled: nobody is waiting for this result
+            } catch (Exception e) {
+                run.post(() -> onError.accept(e));
+            } finally {
+                // Done: drop the entry (unless superseded already) so the owner is not kept reachable
+                if (run.key != null) latest.remove(run.key, run);
+                if (acquired) {
+                    active.decrementAndGet();
+                    permits.release();
+                } else {
+                    queued.decrementAndGet();
+                }
+            }
+        });
+        return run.future;
+    }
+
+    // Callbacks are lambdas in the ViewModel; a lambda's nest host is the class that declared it
+    private static String ownerName(Object callback) {
+        return callback.getClass().getNestHost().getSimpleName();
+    }
+
+    private record Key(Object owner, String kind) { }
+
+    private final class Running implements TaskContext {
+        private final Key key;
+        private final Histogram uiDelay;
+        private volatile boolean cancelled;
+        private volatile Future<?> future;
+
+        Running(Key key, Histogram uiDelay) {
+            this.key = key;
+            this.uiDelay = uiDelay;
+        }
+
+        void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            if (f != null) f.cancel(true);
+        }
+
+        // Once finished the entry is gone; only a newer task of the same kind makes it stale then
+        @Override
+        public boolean isCurrent() {
+            return !cancelled && (key == null || latest.getOrDefault(key, this) == this);
+        }
+
+        @Override
+        public void post(Runnable uiUpdate) {
+            if (!isCurrent()) {
+                staleDropped.incrementAndGet();
+                return;
+            }
+            long queuedAt = System.nanoTime();
+            uiExecutor.execute(() -> {
+                uiDelay.recordSince(queuedAt);
+                // Re-check on the UI thread: a newer task may have started in the meantime
+                if (isCurrent()) uiUpdate.run();
+                else staleDropped.incrementAndGet();
+            });
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.demo.ui.tasks;
+
+@FunctionalInterface
+public interface TaskWork<T> {
+    T run(TaskContext ctx) throws Exception;
+}
@@ -0,0 +1,218 @@
+package com.demo.ui.tasks;
+
+import com.demo.ui.metrics.Histogram;
+import com.demo.ui.metrics.Metrics;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.beans.value.WritableValue;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+// Frame-paced replacement for bursts of Platform.runLater.
+// Updates queued from any thread are applied together on the next animation pulse, at most one batch per frame:
+//  1. list mutations, merged per list into a single setAll/addAll (one change event, one re-layout),
+//  2. property values, last write per property wins (progress-style updates),
+//  3. plain runnables, in submission order (completion-style updates, so they have the final say).
+// Each update may carry a guard; it is checked when the batch is applied and stale updates are dropped.
+// Records how long the oldest update of a batch waited ("ui queue wait") and how long applying
+// the batch held the FX thread ("ui batch").
+public final class UiUpdateScheduler implements Executor {
+
+    private static final UiUpdateScheduler SHARED = new UiUpdateScheduler();
+    private static final BooleanSupplier ALWAYS = () -> true;
+
+    private final Object lock = new Object();
+    private Map<ObservableList<?>, List<ListOp>> pendingLists = new IdentityHashMap<>();
+    private List<Runnable> pendingRunnables = new ArrayList<>();
+    private Map<WritableValue<?>, ValueOp> pendingValues = new IdentityHashMap<>();
+    private long oldestQueuedAt;
+
+    private final Histogram queueWait = Metrics.shared().latency("ui queue wait");
+    private final Histogram batchTime = Metrics.shared().latency("ui batch");
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            if (!applyPending()) {
+                // Nothing queued this frame: stop requesting pulses until the next update arrives
+                stop();
+                running.set(false);
+                if (hasPending()) ensureRunning();
+            }
+        }
+    };
+
+    public static UiUpdateScheduler shared() { return SHARED; }
+
+    // Plain runnable, applied in order within the next batch
+    @Override
+    public void execute(Runnable update) {
+        synchronized (lock) {
+            markQueued();
+            pendingRunnables.add(update);
+        }
+        ensureRunning();
+    }
+
+    public <T> void append(ObservableList<T> list, Collection<? extends T> items) {
+        append(list, items, ALWAYS);
+    }
+
+    public <T> void append(ObservableList<T> list, Collection<? extends T> items, BooleanSupplier guard) {
+        queueListOp(list, new ListOp(false, items, guard));
+    }
+
+    public <T> void replaceAll(ObservableList<T> list, Collection<? extends T> items) {
+        replaceAll(list, items, ALWAYS);
+    }
+
+    // Supersedes every earlier pending mutation of the same list
+    public <T> void replaceAll(ObservableList<T> list, Collection<? extends T> items, BooleanSupplier guard) {
+        queueListOp(list, new ListOp(true, items, guard));
+    }
+
+    public <T> void set(WritableValue<T> target, T value) {
+        set(target, value, ALWAYS);
+    }
+
+    public <T> void set(WritableValue<T> target, T value, BooleanSupplier guard) {
+        synchronized (lock) {
+            markQueued();
+            if (pendingValues.put(target, new ValueOp(value, guard)) != null) merged.incrementAndGet();
+        }
+        ensureRunning();
+    }
+
+    public long batchCount() { return batches.get(); }
+    public long appliedCount() { return applied.get(); }
+    public long mergedCount() { return merged.get(); }
+    public long droppedCount() { return dropped.get(); }
+
+    private void queueListOp(ObservableList<?> list, ListOp op) {
+        synchronized (lock) {
+            markQueued();
+            List<ListOp> ops = pendingLists.computeIfAbsent(list, l -> new ArrayList<>());
+            if (!ops.isEmpty()) merged.incrementAndGet();
+            ops.add(op);
+        }
+        ensureRunning();
+    }
+
+    private void ensureRunning() {
+        if (running.compareAndSet(false, true)) {
+            if (Platform.isFxApplicationThread()) timer.start();
+            else Platform.runLater(timer::start);
+        }
+    }
+
+    private boolean hasPending() {
+        synchronized (lock) {
+            return !isEmptyLocked();
+        }
+    }
+
+    private boolean isEmptyLocked() {
+        return pendingLists.isEmpty() && pendingRunnables.isEmpty() && pendingValues.isEmpty();
+    }
+
+    // Under lock, before adding: the first update of a new batch starts its wait
+    private void markQueued() {
+        if (isEmptyLocked()) oldestQueuedAt = System.nanoTime();
+    }
+
+    // Runs on the FX thread once per pulse; returns false when there was nothing to do
+    private boolean applyPending() {
+        Map<ObservableList<?>, List<ListOp>> lists;
+        List<Runnable> runnables;
+        Map<WritableValue<?>, ValueOp> values;
+        long start = System.nanoTime();
+        synchronized (lock) {
+            if (isEmptyLocked()) return false;
+            queueWait.record(start - oldestQueuedAt);
+            lists = pendingLists;
+            runnables = pendingRunnables;
+            values = pendingValues;
+            pendingLists = new IdentityHashMap<>();
+            pendingRunnables = new ArrayList<>();
+            pendingValues = new IdentityHashMap<>();
+        }
+        batches.incrementAndGet();
+        for (Map.Entry<ObservableList<?>, List<ListOp>> e : lists.entrySet()) {
+            try {
+                applyListOps(e.getKey(), e.getValue());
+            } catch (RuntimeException ex) {
+                // e.g. a list that rejects a row; the other lists still get their updates
+                ex.printStackTrace();
+            }
+        }
+        for (Map.Entry<WritableValue<?>, ValueOp> e : values.entrySet()) {
+            ValueOp op = e.getValue();
+            if (!op.guard().getAsBoolean()) {
+                dropped.incrementAndGet();
+                continue;
+            }
+            setValue(e.getKey(), op.value());
+            applied.incrementAndGet();
+        }
+        for (Runnable r : runnables) {
+            try {
+                r.run();
+                applied.incrementAndGet();
+            } catch (RuntimeException ex) {
+                // One failing update must not swallow the rest of the batch
+                ex.printStackTrace();
+            }
+        }
+        batchTime.recordSince(start);
+        return true;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static void setValue(WritableValue target, Object value) {
+        target.setValue(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyListOps(ObservableList<?> target, List<ListOp> ops) {
+        ObservableList<Object> list = (ObservableList<Object>) target;
+        List<Object> items = new ArrayList<>();
+        boolean replace = false;
+        for (ListOp op : ops) {
+            if (!op.guard().getAsBoolean()) {
+                dropped.incrementAndGet();
+                continue;
+            }
+            if (op.replace()) {
+                items.clear();
+                replace = true;
+            }
+            items.addAll(op.items());
+        }
+        if (replace) {
+            list.setAll(items);
+            applied.incrementAndGet();
+        } else if (!items.isEmpty()) {
+            list.addAll(items);
+            applied.incrementAndGet();
+        }
+    }
+
+    private record ListOp(boolean replace, Collection<?> items, BooleanSupplier guard) { }
+
+    private record ValueOp(Object value, BooleanSupplier guard) { }
+}
@@ -1,10 +1,15 @@
 package com.demo.ui.viewmodels;
 
+import com.demo.ui.collections.IdIndexedList;
+import com.demo.ui.collections.IncrementalSync;
+import com.demo.ui.collections.SearchIndex;
 import com.demo.ui.models.Client;
+import com.demo.ui.services.Delta;
 import com.demo.ui.services.ClientService;
-import javafx.application.Platform;
+import com.demo.ui.snapshot.SnapshotStore;
+import com.demo.ui.tasks.TaskRunner;
+import com.demo.ui.tasks.UiUpdateScheduler;
 import javafx.beans.property.*;
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import java.util.List;
@@ -12,9 +17,16 @@ import java.util.List;
 public class ClientsViewModel {
 
     private final ClientService service = new ClientService();
+    private final TaskRunner tasks = TaskRunner.shared();
+    private final UiUpdateScheduler ui = UiUpdateScheduler.shared();
+    private final SnapshotStore snapshot = SnapshotStore.shared();
 
     // Table data
-    private final ObservableList<Client> clients = FXCollections.observableArrayList();
+    private final IdIndexedList<Client> clients = new IdIndexedList<>(Client::getId);
+
+    // Search over the loaded rows, kept in step with the list
+    private final SearchIndex<Client> search = new SearchIndex<>("clients", Client::getId,
+        c -> new String[] { c.getName(), c.getEmail(), c.getPhone() });
 
     // Selection
     private final ObjectProperty<Client> selectedClient = new SimpleObjectProperty<>(null);
@@ -31,7 +43,18 @@ public class ClientsViewModel {
     // Status message
     private final StringProperty status = new SimpleStringProperty("");
 
+    // Streaming load: rows appear chunk by chunk while the response is parsed
+    private static final int CHUNK_SIZE = 500;
+    private final BooleanProperty streamingLoad = new SimpleBooleanProperty(true);
+    private final DoubleProperty loadProgress = new SimpleDoubleProperty(0.0);
+
+    // Incremental load: once loaded, Load only fetches rows changed since the last one
+    private final IncrementalSync<Client> sync = new IncrementalSync<>(Client::getId, Client::getUpdatedAt);
+    private final BooleanProperty incrementalLoad = new SimpleBooleanProperty(true);
+
     public ClientsViewModel() {
+        search.attach(clients);
+
         // When selection changes, populate form fields
         selectedClient.addListener((obs, old, sel) -> {
             hasSelection.set(sel != null);
@@ -59,20 +82,113 @@ public class ClientsViewModel {
         });
     }
 
+    // The view is gone for good
+    public void dispose() {
+        tasks.cancelAll(this);
+        search.close();
+    }
+
     // Async operations
     public void loadClientsAsync() {
-        status.set("Loading clients...");
-        new Thread(() -> {
-            try {
+        if (incrementalLoad.get() && sync.isPrimed() && !clients.isEmpty()) {
+            syncClientsAsync();
+            return;
+        }
+        sync.reset();
+
+        // First load: show the local snapshot at once, then refresh it in one piece
+        // (streaming would first shrink the table to one chunk)
+        boolean fromSnapshot = clients.isEmpty() && showSnapshot();
+        if (streamingLoad.get() && !fromSnapshot) {
+            streamClientsAsync();
+            return;
+        }
+
+        if (!fromSnapshot) status.set("Loading clients...");
+        tasks.submitLatest(this, "load-clients",
+            () -> {
                 List<Client> list = service.getAllClients();
-                Platform.runLater(() -> {
-                    clients.setAll(list);
-                    status.set("Loaded " + list.size() + " clients");
+                sync.observe(list);
+                return list;
+            },
+            list -> {
+                clients.setAll(list);
+                snapshot.putClients(list);
+                status.set("Loaded " + list.size() + " clients");
+            },
+            e -> status.set(fromSnapshot
+                ? "Offline: showing " + clients.size() + " cached clients (" + e.getMessage() + ")"
+                : "Load failed: " + e.getMessage())
+        );
+    }
+
+    // Fetch rows changed since the high-water mark and merge them in place; the id set is only
+    // fetched when the server's row count says something was deleted
+    private void syncClientsAsync() {
+        String since = sync.highWaterMark();
+        status.set("Syncing clients changed since " + since + "...");
+        tasks.submitLatest(this, "load-clients",
+            () -> service.getClientsChangedSince(since),
+            delta -> {
+                boolean deletions = sync.merge(clients, delta);
+                if (deletions) {
+                    removeDeletedClientsAsync(delta);
+                    return;
+                }
+                if (!delta.changed().isEmpty()) snapshot.putClients(clients);
+                status.set("Synced " + delta.changed().size() + " changed clients");
+            },
+            e -> status.set("Sync failed: " + e.getMessage())
+        );
+    }
+
+    private void removeDeletedClientsAsync(Delta<Client> delta) {
+        tasks.submitLatest(this, "load-clients",
+            () -> service.getClientIds(),
+            ids -> {
+                int removed = sync.removeMissing(clients, ids);
+                snapshot.putClients(clients);
+                status.set("Synced " + delta.changed().size() + " changed, " + removed + " deleted clients");
+            },
+            e -> status.set("Sync failed: " + e.getMessage())
+        );
+    }
+
+    private boolean showSnapshot() {
+        List<Client> cached = snapshot.clients();
+        if (cached.isEmpty()) return false;
+        clients.setAll(cached);
+        status.set("Showing " + cached.size() + " cached clients from " + snapshot.savedAt() + ", refreshing...");
+        return true;
+    }
+
+    private void streamClientsAsync() {
+        status.set("Loading clients...");
+        loadProgress.set(-1);
+        tasks.submitLatest(this, "load-clients",
+            ctx -> {
+                int[] loaded = { 0 };
+                return service.streamAllClients(CHUNK_SIZE, (chunk, bytesRead, totalBytes) -> {
+                    ctx.throwIfStale();
+                    sync.observe(chunk);
+                    // Keep the old rows visible until the first chunk arrives
+                    if (loaded[0] == 0) ui.replaceAll(clients, chunk, ctx::isCurrent);
+                    else ui.append(clients, chunk, ctx::isCurrent);
+                    loaded[0] += chunk.size();
+                    ui.set(loadProgress, totalBytes > 0 ? (double) bytesRead / totalBytes : -1.0, ctx::isCurrent);
+                    ui.set(status, "Loading clients... " + loaded[0], ctx::isCurrent);
                 });
-            } catch (Exception e) {
-                Platform.runLater(() -> status.set("Load failed: " + e.getMessage()));
+            },
+            count -> {
+                loadProgress.set(1.0);
+                snapshot.putClients(clients);
+                status.set("Loaded " + count + " clients");
+            },
+            e -> {
+                loadProgress.set(0.0);
+                status.set("Load failed: " + e.getMessage());
             }
-        }, "load-clients").start();
+        );
     }
 
     public void createClientAsync() {
@@ -91,18 +207,15 @@ public class ClientsViewModel {
         }
 
         status.set("Creating client...");
-        new Thread(() -> {
-            try {
-                Client created = service.createClient(nm, em, ph.isBlank() ? null : ph, addr.isBlank() ? null : addr);
-                Platform.runLater(() -> {
-                    clients.add(0, created);
-                    setSelectedClient(created);
-                    status.set("Created client ID " + created.getId());
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> status.set("Create failed: " + e.getMessage()));
-            }
-        }, "create-client").start();
+        tasks.submit("create-client",
+            () -> service.createClient(nm, em, ph.isBlank() ? null : ph, addr.isBlank() ? null : addr),
+            created -> {
+                clients.add(0, created);
+                setSelectedClient(created);
+                status.set("Created client ID " + created.getId());
+            },
+            e -> status.set("Create failed: " + e.getMessage())
+        );
     }
 
     public void updateSelectedClientAsync() {
@@ -128,19 +241,15 @@ public class ClientsViewModel {
 
         final int id = sel.getId();
         status.set("Updating client...");
-        new Thread(() -> {
-            try {
-                Client updated = service.updateClient(id, nm, em, ph.isBlank() ? null : ph, addr.isBlank() ? null : addr);
-                Platform.runLater(() -> {
-                    int idx = clients.indexOf(sel);
-                    if (idx >= 0) clients.set(idx, updated);
-                    setSelectedClient(updated);
-                    status.set("Updated client ID " + updated.getId());
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> status.set("Update failed: " + e.getMessage()));
-            }
-        }, "update-client").start();
+        tasks.submit("update-client",
+            () -> service.updateClient(id, nm, em, ph.isBlank() ? null : ph, addr.isBlank() ? null : addr),
+            updated -> {
+                clients.replaceById(updated);
+                setSelectedClient(updated);
+                status.set("Updated client ID " + updated.getId());
+            },
+            e -> status.set("Update failed: " + e.getMessage())
+        );
     }
 
     public void deleteSelectedClientAsync() {
@@ -151,18 +260,18 @@ public class ClientsViewModel {
         }
         final int id = sel.getId();
         status.set("Deleting client...");
-        new Thread(() -> {
-            try {
+        tasks.submit("delete-client",
+            () -> {
                 service.deleteClient(id);
-                Platform.runLater(() -> {
-                    clients.remove(sel);
-                    setSelectedClient(null);
-                    status.set("Deleted client ID " + id);
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> status.set("Delete failed: " + e.getMessage()));
-            }
-        }, "delete-client").start();
+                return null;
+            },
+            ignored -> {
+                clients.removeById(sel.getId());
+                setSelectedClient(null);
+                status.set("Deleted client ID " + id);
+            },
+            e -> status.set("Delete failed: " + e.getMessage())
+        );
     }
 
     private void clearForm() {
@@ -176,6 +285,7 @@ public class ClientsViewModel {
 
     // Exposed properties for binding
     public ObservableList<Client> getClients() { return clients; }
+    public SearchIndex<Client> getSearchIndex() { return search; }
     public ObjectProperty<Client> selectedClientProperty() { return selectedClient; }
     public void setSelectedClient(Client c) { selectedClient.set(c); }
     public BooleanProperty hasSelectionProperty() { return hasSelection; }
@@ -188,4 +298,7 @@ public class ClientsViewModel {
     public StringProperty updatedAtProperty() { return updatedAt; }
 
     public StringProperty statusProperty() { return status; }
+    public BooleanProperty streamingLoadProperty() { return streamingLoad; }
+    public DoubleProperty loadProgressProperty() { return loadProgress; }
+    public BooleanProperty incrementalLoadProperty() { return incrementalLoad; }
 }
@@ -0,0 +1,30 @@
+package com.demo.ui.viewmodels;
+
+import com.demo.ui.metrics.Histogram;
+import com.demo.ui.metrics.Metrics;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+// Current histograms of the shared metrics registry, refreshed on demand (FX thread)
+public class DiagnosticsViewModel {
+
+    private final Metrics metrics = Metrics.shared();
+
+    private final ObservableList<Histogram.Snapshot> histograms = FXCollections.observableArrayList();
+    private final StringProperty status = new SimpleStringProperty("");
+
+    public void refresh() {
+        histograms.setAll(metrics.snapshot());
+        status.set(histograms.size() + " histograms, also over JMX as " + Metrics.MBEAN_NAME);
+    }
+
+    public void reset() {
+        metrics.reset();
+        refresh();
+    }
+
+    public ObservableList<Histogram.Snapshot> getHistograms() { return histograms; }
+    public StringProperty statusProperty() { return status; }
+}
@@ -1,20 +1,37 @@
 package com.demo.ui.viewmodels;
 
+import com.demo.ui.collections.IdIndexedList;
+import com.demo.ui.models.Order;
 import com.demo.ui.models.OrderProduct;
+import com.demo.ui.models.Product;
+import com.demo.ui.services.OrderPrefetcher;
 import com.demo.ui.services.OrderProductService;
-import javafx.application.Platform;
+import com.demo.ui.services.OrderService;
+import com.demo.ui.services.OrderTotals;
+import com.demo.ui.tasks.TaskRunner;
+import com.demo.ui.tasks.UiUpdateScheduler;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.ObservableMap;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class OrderProductsViewModel {
 
     private final OrderProductService service = new OrderProductService();
+    private final OrderService orderService = new OrderService();
+    private final OrderTotals totalsEngine = OrderTotals.shared();
+    private final TaskRunner tasks = TaskRunner.shared();
+    private final UiUpdateScheduler ui = UiUpdateScheduler.shared();
+    private final OrderPrefetcher prefetcher = OrderPrefetcher.shared();
 
     // Table data
-    private final ObservableList<OrderProduct> orderProducts = FXCollections.observableArrayList();
+    private final IdIndexedList<OrderProduct> orderProducts = new IdIndexedList<>(OrderProduct::getId);
+    private final ObservableMap<Integer, Product> products = FXCollections.observableHashMap();
+    private int followedOrderId;
 
     // Selection
     private final ObjectProperty<OrderProduct> selectedItem = new SimpleObjectProperty<>(null);
@@ -24,11 +41,20 @@ public class OrderProductsViewModel {
     private final IntegerProperty orderId = new SimpleIntegerProperty(0);
     private final IntegerProperty productId = new SimpleIntegerProperty(0);
     private final IntegerProperty quantity = new SimpleIntegerProperty(1);
-    private final DoubleProperty unitPrice = new SimpleDoubleProperty(0.0);
-    private final DoubleProperty lineTotal = new SimpleDoubleProperty(0.0);
+    private final LongProperty unitPriceCents = new SimpleLongProperty(0);
+    private final LongProperty lineTotalCents = new SimpleLongProperty(0);
 
     private final StringProperty status = new SimpleStringProperty("");
 
+    // Totals of the order whose lines are loaded, recomputed locally after every line edit
+    private final ObjectProperty<OrderTotals.Totals> orderTotals = new SimpleObjectProperty<>(null);
+    private Order totalsOrder;  // server copy the lines belong to; null until both are loaded
+
+    // Streaming load: rows appear chunk by chunk while the response is parsed
+    private static final int CHUNK_SIZE = 500;
+    private final BooleanProperty streamingLoad = new SimpleBooleanProperty(true);
+    private final DoubleProperty loadProgress = new SimpleDoubleProperty(0.0);
+
     public OrderProductsViewModel() {
         // When selection changes, populate form fields
         selectedItem.addListener((obs, old, sel) -> {
@@ -37,34 +63,125 @@ public class OrderProductsViewModel {
                 orderId.set(sel.getOrderId());
                 productId.set(sel.getProductId());
                 quantity.set(sel.getQuantity());
-                unitPrice.set(sel.getUnitPrice());
-                lineTotal.set(sel.getLineTotal());
+                unitPriceCents.set(sel.getUnitPriceCents());
+                lineTotalCents.set(sel.getLineTotalCents());
             } else {
                 clearForm();
             }
         });
     }
 
+    // The view is gone for good
+    public void dispose() {
+        tasks.cancelAll(this);
+    }
+
+    // Shown again: pick up the order selected in the Orders view since, usually already prefetched.
+    // An order loaded here by hand stays until the selection over there changes.
+    public void followSelectedOrder() {
+        int oid = prefetcher.selectedOrderId();
+        if (oid <= 0 || oid == followedOrderId) return;
+        followedOrderId = oid;
+        orderId.set(oid);
+        loadProductsForOrderAsync(oid);
+    }
+
     // Async operations
     public void loadProductsForOrderAsync(int oid) {
+        totalsOrder = null;
+        orderTotals.set(null);
+        OrderPrefetcher.Details prefetched = prefetcher.cached(oid);
+        if (prefetched != null) {
+            showPrefetched(oid, prefetched);
+            return;
+        }
+        if (streamingLoad.get()) {
+            streamProductsForOrderAsync(oid);
+            return;
+        }
+
         status.set("Loading products for order " + oid + "...");
-        new Thread(() -> {
-            try {
-                List<OrderProduct> list = service.getProductsForOrder(oid);
-                Platform.runLater(() -> {
-                    orderProducts.setAll(list);
-                    status.set("Loaded " + list.size() + " items");
+        tasks.submitLatest(this, "load-order-products",
+            () -> service.getProductsForOrder(oid),
+            list -> {
+                orderProducts.setAll(list);
+                status.set("Loaded " + list.size() + " items");
+                loadOrderTotalsAsync(oid);
+                loadProductNamesAsync(list);
+            },
+            e -> status.set("Load failed: " + e.getMessage())
+        );
+    }
+
+    private void streamProductsForOrderAsync(int oid) {
+        status.set("Loading products for order " + oid + "...");
+        loadProgress.set(-1);
+        tasks.submitLatest(this, "load-order-products",
+            ctx -> {
+                int[] loaded = { 0 };
+                return service.streamProductsForOrder(oid, CHUNK_SIZE, (chunk, bytesRead, totalBytes) -> {
+                    ctx.throwIfStale();
+                    // Keep the old rows visible until the first chunk arrives
+                    if (loaded[0] == 0) ui.replaceAll(orderProducts, chunk, ctx::isCurrent);
+                    else ui.append(orderProducts, chunk, ctx::isCurrent);
+                    loaded[0] += chunk.size();
+                    ui.set(loadProgress, totalBytes > 0 ? (double) bytesRead / totalBytes : -1.0, ctx::isCurrent);
+                    ui.set(status, "Loading products for order " + oid + "... " + loaded[0], ctx::isCurrent);
                 });
-            } catch (Exception e) {
-                Platform.runLater(() -> status.set("Load failed: " + e.getMessage()));
+            },
+            count -> {
+                loadProgress.set(1.0);
+                status.set("Loaded " + count + " items");
+                loadOrderTotalsAsync(oid);
+                loadProductNamesAsync(orderProducts);
+            },
+            e -> {
+                loadProgress.set(0.0);
+                status.set("Load failed: " + e.getMessage());
             }
-        }, "load-order-products").start();
+        );
+    }
+
+    // Everything is in hand: show it now, then revalidate. The conditional GET normally comes
+    // back 304 with the very list that was prefetched, and then nothing changes on screen.
+    private void showPrefetched(int oid, OrderPrefetcher.Details d) {
+        orderProducts.setAll(d.lines());
+        products.putAll(d.products());
+        applyOrderTotals(d.order());
+        loadProgress.set(1.0);
+        status.set("Loaded " + d.lines().size() + " items (prefetched)");
+        tasks.submitLatest(this, "load-order-products",
+            () -> service.getProductsForOrder(oid),
+            list -> {
+                if (list != d.lines()) {
+                    orderProducts.setAll(list);
+                    status.set("Loaded " + list.size() + " items");
+                    loadProductNamesAsync(list);
+                }
+                loadOrderTotalsAsync(oid);
+            },
+            e -> status.set("Showing prefetched items, refresh failed: " + e.getMessage())
+        );
+    }
+
+    // Names for the product ids on the lines that are not known yet
+    private void loadProductNamesAsync(List<OrderProduct> lines) {
+        Set<Integer> missing = new HashSet<>();
+        for (OrderProduct op : lines) {
+            if (!products.containsKey(op.getProductId())) missing.add(op.getProductId());
+        }
+        if (missing.isEmpty()) return;
+        tasks.submitLatest(this, "product-names",
+            () -> prefetcher.products(missing),
+            products::putAll,
+            e -> status.set("Could not load product names: " + e.getMessage())
+        );
     }
 
     public void addProductAsync(int oid) {
         int pid = productId.get();
         int qty = quantity.get();
-        double price = unitPrice.get();
+        long price = unitPriceCents.get();
 
         if (pid <= 0) {
             status.set("Valid product ID required");
@@ -76,18 +193,18 @@ public class OrderProductsViewModel {
         }
 
         status.set("Adding product to order...");
-        new Thread(() -> {
-            try {
-                OrderProduct created = service.addProductToOrder(oid, pid, qty, price);
-                Platform.runLater(() -> {
-                    orderProducts.add(created);
-                    setSelectedItem(created);
-                    status.set("Added product ID " + created.getProductId() + " to order " + oid);
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> status.set("Add failed: " + e.getMessage()));
-            }
-        }, "add-order-product").start();
+        tasks.submit("add-order-product",
+            () -> service.addProductToOrder(oid, pid, qty, price),
+            created -> {
+                prefetcher.invalidate(oid);
+                orderProducts.add(created);
+                loadProductNamesAsync(List.of(created));
+                recomputeTotals(oid);
+                setSelectedItem(created);
+                status.set("Added product ID " + created.getProductId() + " to order " + oid);
+            },
+            e -> status.set("Add failed: " + e.getMessage())
+        );
     }
 
     public void updateSelectedItemAsync(int oid) {
@@ -99,7 +216,7 @@ public class OrderProductsViewModel {
 
         int pid = productId.get();
         int qty = quantity.get();
-        double price = unitPrice.get();
+        long price = unitPriceCents.get();
 
         if (pid <= 0) {
             status.set("Valid product ID required");
@@ -112,19 +229,18 @@ public class OrderProductsViewModel {
 
         final int itemId = sel.getId();
         status.set("Updating product in order...");
-        new Thread(() -> {
-            try {
-                OrderProduct updated = service.updateProductInOrder(oid, itemId, pid, qty, price);
-                Platform.runLater(() -> {
-                    int idx = orderProducts.indexOf(sel);
-                    if (idx >= 0) orderProducts.set(idx, updated);
-                    setSelectedItem(updated);
-                    status.set("Updated item ID " + updated.getId());
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> status.set("Update failed: " + e.getMessage()));
-            }
-        }, "update-order-product").start();
+        tasks.submit("update-order-product",
+            () -> service.updateProductInOrder(oid, itemId, pid, qty, price),
+            updated -> {
+                prefetcher.invalidate(oid);
+                orderProducts.replaceById(updated);
+                loadProductNamesAsync(List.of(updated));
+                recomputeTotals(oid);
+                setSelectedItem(updated);
+                status.set("Updated item ID " + updated.getId());
+            },
+            e -> status.set("Update failed: " + e.getMessage())
+        );
     }
 
     public void removeSelectedItemAsync(int oid) {
@@ -135,30 +251,67 @@ public class OrderProductsViewModel {
         }
         final int itemId = sel.getId();
         status.set("Removing product from order...");
-        new Thread(() -> {
-            try {
+        tasks.submit("remove-order-product",
+            () -> {
                 service.removeProductFromOrder(oid, itemId);
-                Platform.runLater(() -> {
-                    orderProducts.remove(sel);
-                    setSelectedItem(null);
-                    status.set("Removed item ID " + itemId);
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> status.set("Remove failed: " + e.getMessage()));
-            }
-        }, "remove-order-product").start();
+                return null;
+            },
+            ignored -> {
+                prefetcher.invalidate(oid);
+                orderProducts.removeById(sel.getId());
+                recomputeTotals(oid);
+                setSelectedItem(null);
+                status.set("Removed item ID " + itemId);
+            },
+            e -> status.set("Remove failed: " + e.getMessage())
+        );
+    }
+
+    // The discount only lives on the order, so it is fetched once per load (not per edit).
+    // The server's totals for the freshly loaded lines double as a check of the local engine.
+    private void loadOrderTotalsAsync(int oid) {
+        tasks.submitLatest(this, "order-totals",
+            () -> orderService.getOrder(oid),
+            this::applyOrderTotals,
+            e -> status.set("Could not load order totals: " + e.getMessage())
+        );
+    }
+
+    private void applyOrderTotals(Order order) {
+        totalsOrder = order;
+        OrderTotals.Totals local = OrderTotals.compute(order.getDiscountCents(), orderProducts);
+        if (totalsEngine.check(order, local)) {
+            orderTotals.set(local);
+        } else {
+            // The server is authoritative; keep showing its numbers
+            orderTotals.set(OrderTotals.Totals.of(order));
+        }
+    }
+
+    // After a line edit: new totals at once, no order re-fetch
+    private void recomputeTotals(int oid) {
+        if (totalsOrder == null || totalsOrder.getId() != oid) return;
+        OrderTotals.Totals t = OrderTotals.compute(totalsOrder.getDiscountCents(), orderProducts);
+        orderTotals.set(t);
+        totalsEngine.predict(oid, t, totalsOrder.getUpdatedAt());
     }
 
     private void clearForm() {
         orderId.set(0);
         productId.set(0);
         quantity.set(1);
-        unitPrice.set(0.0);
-        lineTotal.set(0.0);
+        unitPriceCents.set(0);
+        lineTotalCents.set(0);
     }
 
     // Exposed properties for binding
     public ObservableList<OrderProduct> getOrderProducts() { return orderProducts; }
+    public ObservableMap<Integer, Product> getProducts() { return products; }
+    public String productName(int productId) {
+        Product p = products.get(productId);
+        return p != null ? p.getName() : "";
+    }
+    public ReadOnlyObjectProperty<OrderTotals.Totals> orderTotalsProperty() { return orderTotals; }
     public ObjectProperty<OrderProduct> selectedItemProperty() { return selectedItem; }
     public void setSelectedItem(OrderProduct op) { selectedItem.set(op); }
     public BooleanProperty hasSelectionProperty() { return hasSelection; }
@@ -166,8 +319,10 @@ public class OrderProductsViewModel {
     public IntegerProperty orderIdProperty() { return orderId; }
     public IntegerProperty productIdProperty() { return productId; }
     public IntegerProperty quantityProperty() { return quantity; }
-    public DoubleProperty unitPriceProperty() { return unitPrice; }
-    public DoubleProperty lineTotalProperty() { return lineTotal; }
+    public LongProperty unitPriceCentsProperty() { return unitPriceCents; }
+    public LongProperty lineTotalCentsProperty() { return lineTotalCents; }
 
     public StringProperty statusProperty() { return status; }
+    public BooleanProperty streamingLoadProperty() { return streamingLoad; }
+    public DoubleProperty loadProgressProperty() { return loadProgress; }
 }
@@ -1,20 +1,48 @@
 package com.demo.ui.viewmodels;
 
+import com.demo.ui.collections.IdIndexedList;
+import com.demo.ui.collections.IncrementalSync;
+import com.demo.ui.collections.PagedList;
+import com.demo.ui.collections.SearchIndex;
+import com.demo.ui.models.Client;
 import com.demo.ui.models.Order;
+import com.demo.ui.services.Delta;
+import com.demo.ui.services.OrderPrefetcher;
 import com.demo.ui.services.OrderService;
-import javafx.application.Platform;
+import com.demo.ui.services.OrderTotals;
+import com.demo.ui.snapshot.SnapshotStore;
+import com.demo.ui.tasks.TaskRunner;
+import com.demo.ui.tasks.UiUpdateScheduler;
 import javafx.beans.property.*;
-import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
 import java.util.List;
+import java.util.function.BiConsumer;
 
 public class OrdersViewModel {
 
     private final OrderService service = new OrderService();
+    private final OrderTotals totalsEngine = OrderTotals.shared();
+    private final TaskRunner tasks = TaskRunner.shared();
+    private final UiUpdateScheduler ui = UiUpdateScheduler.shared();
+    private final SnapshotStore snapshot = SnapshotStore.shared();
+    private final OrderPrefetcher prefetcher = OrderPrefetcher.shared();
 
     // Table data
-    private final ObservableList<Order> orders = FXCollections.observableArrayList();
+    private final IdIndexedList<Order> orders = new IdIndexedList<>(Order::getId);
+
+    // Search over the loaded rows, kept in step with the list
+    private final SearchIndex<Order> search = new SearchIndex<>("orders", Order::getId,
+        o -> new String[] { o.getOrderNumber(), o.getShippingAddress(), o.getBillingAddress() });
+
+    // Paged mode: keyset pages fetched as the table scrolls, bounded window kept in memory
+    private static final int PAGE_SIZE = 200;
+    private static final int MAX_RESIDENT_PAGES = 10;
+    private final Order pagePlaceholder = new Order();
+    private final PagedList<Order> pagedOrders = new PagedList<>(
+        service::getOrdersPage, Order::getId, pagePlaceholder, PAGE_SIZE, MAX_RESIDENT_PAGES);
+    private final BooleanProperty pagedMode = new SimpleBooleanProperty(false);
 
     // Selection
     private final ObjectProperty<Order> selectedOrder = new SimpleObjectProperty<>(null);
@@ -28,10 +56,10 @@ public class OrdersViewModel {
     private final StringProperty paymentMethod = new SimpleStringProperty("credit_card");
     private final StringProperty currencyCode = new SimpleStringProperty("EUR");
 
-    private final DoubleProperty subtotalAmount = new SimpleDoubleProperty(0.0);
-    private final DoubleProperty discountAmount = new SimpleDoubleProperty(0.0);
-    private final DoubleProperty taxAmount = new SimpleDoubleProperty(0.0);
-    private final DoubleProperty totalAmount = new SimpleDoubleProperty(0.0);
+    private final LongProperty subtotalCents = new SimpleLongProperty(0);
+    private final LongProperty discountCents = new SimpleLongProperty(0);
+    private final LongProperty taxCents = new SimpleLongProperty(0);
+    private final LongProperty totalCents = new SimpleLongProperty(0);
 
     private final StringProperty shippingAddress = new SimpleStringProperty("");
     private final StringProperty billingAddress = new SimpleStringProperty("");
@@ -40,10 +68,53 @@ public class OrdersViewModel {
     private final StringProperty createdAt = new SimpleStringProperty("");
     private final StringProperty updatedAt = new SimpleStringProperty("");
 
+    // Client of the selected order, from the prefetched details
+    private final StringProperty clientSummary = new SimpleStringProperty("");
+
     // Status message
     private final StringProperty status = new SimpleStringProperty("");
 
+    // Streaming load: rows appear chunk by chunk while the response is parsed
+    private static final int CHUNK_SIZE = 500;
+    private final BooleanProperty streamingLoad = new SimpleBooleanProperty(true);
+    private final DoubleProperty loadProgress = new SimpleDoubleProperty(0.0);
+
+    // Incremental load: once loaded, Load only fetches rows changed since the last one
+    private final IncrementalSync<Order> sync = new IncrementalSync<>(Order::getId, Order::getUpdatedAt);
+    private final BooleanProperty incrementalLoad = new SimpleBooleanProperty(true);
+
+    // Line edits made in the Order Products view; removed again by dispose
+    private final BiConsumer<Integer, OrderTotals.Totals> totalsListener = (orderId, totals) -> {
+        Order current = orders.getById(orderId);
+        if (current != null) orders.replaceById(totalsEngine.preview(current, totals));
+        // Paged mode shows pagedOrders; a row outside the resident pages is fetched fresh anyway
+        Order resident = pagedOrders.residentRow(orderId);
+        if (resident != null) pagedOrders.replaceRow(resident, totalsEngine.preview(resident, totals));
+    };
+
     public OrdersViewModel() {
+        search.attach(orders);
+
+        // Line edits elsewhere show up here at once with locally computed totals; server copies
+        // arriving later (reloads, incremental sync) are checked against those predictions
+        totalsEngine.addListener(totalsListener);
+        orders.addListener((ListChangeListener<Order>) c -> {
+            while (c.next()) {
+                if (c.wasAdded()) {
+                    for (Order o : c.getAddedSubList()) totalsEngine.verify(o);
+                }
+            }
+        });
+
+        pagePlaceholder.setOrderNumber("Loading...");
+        pagedOrders.setOnError(e -> status.set("Load failed: " + e.getMessage()));
+        pagedOrders.addListener((ListChangeListener<Order>) c -> {
+            if (pagedMode.get()) {
+                status.set((pagedOrders.isExhausted() ? "Loaded " : "Loaded first ") + pagedOrders.size()
+                    + " orders (" + pagedOrders.residentPageCount() + " pages in memory)");
+            }
+        });
+
         // When selection changes, populate form fields
         selectedOrder.addListener((obs, old, sel) -> {
             hasSelection.set(sel != null);
@@ -54,35 +125,158 @@ public class OrdersViewModel {
                 orderStatus.set(sel.getOrderStatus() != null ? sel.getOrderStatus() : "");
                 paymentMethod.set(sel.getPaymentMethod() != null ? sel.getPaymentMethod() : "");
                 currencyCode.set(sel.getCurrencyCode() != null ? sel.getCurrencyCode() : "");
-                subtotalAmount.set(sel.getSubtotalAmount());
-                discountAmount.set(sel.getDiscountAmount());
-                taxAmount.set(sel.getTaxAmount());
-                totalAmount.set(sel.getTotalAmount());
+                subtotalCents.set(sel.getSubtotalCents());
+                discountCents.set(sel.getDiscountCents());
+                taxCents.set(sel.getTaxCents());
+                totalCents.set(sel.getTotalCents());
                 shippingAddress.set(sel.getShippingAddress() != null ? sel.getShippingAddress() : "");
                 billingAddress.set(sel.getBillingAddress() != null ? sel.getBillingAddress() : "");
                 notes.set(sel.getNotes() != null ? sel.getNotes() : "");
                 createdAt.set(sel.getCreatedAt() != null ? sel.getCreatedAt() : "");
                 updatedAt.set(sel.getUpdatedAt() != null ? sel.getUpdatedAt() : "");
+                OrderPrefetcher.Details d = prefetcher.cached(sel.getId());
+                clientSummary.set(d != null ? describe(d.client()) : "");
             } else {
                 clearForm();
             }
         });
     }
 
+    // Selection: its lines, products and client are fetched at once, the neighbours (nearest
+    // first) speculatively; whatever is still in flight for other orders is cancelled
+    public void prefetchAround(Order sel, List<Order> neighbours) {
+        if (sel == null || isPlaceholder(sel)) {
+            prefetcher.clearSelection();
+            return;
+        }
+        int id = sel.getId();
+        List<Order> loaded = neighbours.stream().filter(o -> !isPlaceholder(o)).toList();
+        prefetcher.select(sel, loaded).thenAccept(d -> ui.set(clientSummary, describe(d.client()),
+            () -> selectedOrder.get() != null && selectedOrder.get().getId() == id));
+    }
+
+    public void prefetchHovered(Order o) {
+        if (o != null && !isPlaceholder(o)) prefetcher.hover(o);
+    }
+
+    private static String describe(Client c) {
+        if (c == null) return "Unknown client";
+        return c.getEmail() != null && !c.getEmail().isBlank() ? c.getName() + " <" + c.getEmail() + ">" : c.getName();
+    }
+
+    // The view is gone for good: stop its loads and its index, stop receiving totals
+    public void dispose() {
+        tasks.cancelAll(this);
+        search.close();
+        totalsEngine.removeListener(totalsListener);
+    }
+
     // Async operations
     public void loadOrdersAsync() {
-        status.set("Loading orders...");
-        new Thread(() -> {
-            try {
+        if (pagedMode.get()) {
+            status.set("Loading orders...");
+            pagedOrders.reset();
+            return;
+        }
+        if (incrementalLoad.get() && sync.isPrimed() && !orders.isEmpty()) {
+            syncOrdersAsync();
+            return;
+        }
+        sync.reset();
+
+        // First load: show the local snapshot at once, then refresh it in one piece
+        // (streaming would first shrink the table to one chunk)
+        boolean fromSnapshot = orders.isEmpty() && showSnapshot();
+        if (streamingLoad.get() && !fromSnapshot) {
+            streamOrdersAsync();
+            return;
+        }
+
+        if (!fromSnapshot) status.set("Loading orders...");
+        tasks.submitLatest(this, "load-orders",
+            () -> {
                 List<Order> list = service.getAllOrders();
-                Platform.runLater(() -> {
-                    orders.setAll(list);
-                    status.set("Loaded " + list.size() + " orders");
+                sync.observe(list);
+                return list;
+            },
+            list -> {
+                orders.setAll(list);
+                snapshot.putOrders(list);
+                status.set("Loaded " + list.size() + " orders");
+            },
+            e -> status.set(fromSnapshot
+                ? "Offline: showing " + orders.size() + " cached orders (" + e.getMessage() + ")"
+                : "Load failed: " + e.getMessage())
+        );
+    }
+
+    // Fetch rows changed since the high-water mark and merge them in place; the id set is only
+    // fetched when the server's row count says something was deleted
+    private void syncOrdersAsync() {
+        String since = sync.highWaterMark();
+        status.set("Syncing orders changed since " + since + "...");
+        tasks.submitLatest(this, "load-orders",
+            () -> service.getOrdersChangedSince(since),
+            delta -> {
+                boolean deletions = sync.merge(orders, delta);
+                if (deletions) {
+                    removeDeletedOrdersAsync(delta);
+                    return;
+                }
+                if (!delta.changed().isEmpty()) snapshot.putOrders(orders);
+                status.set("Synced " + delta.changed().size() + " changed orders");
+            },
+            e -> status.set("Sync failed: " + e.getMessage())
+        );
+    }
+
+    private void removeDeletedOrdersAsync(Delta<Order> delta) {
+        tasks.submitLatest(this, "load-orders",
+            () -> service.getOrderIds(),
+            ids -> {
+                int removed = sync.removeMissing(orders, ids);
+                snapshot.putOrders(orders);
+                status.set("Synced " + delta.changed().size() + " changed, " + removed + " deleted orders");
+            },
+            e -> status.set("Sync failed: " + e.getMessage())
+        );
+    }
+
+    private boolean showSnapshot() {
+        List<Order> cached = snapshot.orders();
+        if (cached.isEmpty()) return false;
+        orders.setAll(cached);
+        status.set("Showing " + cached.size() + " cached orders from " + snapshot.savedAt() + ", refreshing...");
+        return true;
+    }
+
+    private void streamOrdersAsync() {
+        status.set("Loading orders...");
+        loadProgress.set(-1);
+        tasks.submitLatest(this, "load-orders",
+            ctx -> {
+                int[] loaded = { 0 };
+                return service.streamAllOrders(CHUNK_SIZE, (chunk, bytesRead, totalBytes) -> {
+                    ctx.throwIfStale();
+                    sync.observe(chunk);
+                    // Keep the old rows visible until the first chunk arrives
+                    if (loaded[0] == 0) ui.replaceAll(orders, chunk, ctx::isCurrent);
+                    else ui.append(orders, chunk, ctx::isCurrent);
+                    loaded[0] += chunk.size();
+                    ui.set(loadProgress, totalBytes > 0 ? (double) bytesRead / totalBytes : -1.0, ctx::isCurrent);
+                    ui.set(status, "Loading orders... " + loaded[0], ctx::isCurrent);
                 });
-            } catch (Exception e) {
-                Platform.runLater(() -> status.set("Load failed: " + e.getMessage()));
+            },
+            count -> {
+                loadProgress.set(1.0);
+                snapshot.putOrders(orders);
+                status.set("Loaded " + count + " orders");
+            },
+            e -> {
+                loadProgress.set(0.0);
+                status.set("Load failed: " + e.getMessage());
             }
-        }, "load-orders").start();
+        );
     }
 
     public void createOrderAsync() {
@@ -105,18 +299,16 @@ public class OrdersViewModel {
         }
 
         status.set("Creating order...");
-        new Thread(() -> {
-            try {
-                Order created = service.createOrder(num, cid, stat, pay, curr, ship, bill, nts);
-                Platform.runLater(() -> {
-                    orders.add(0, created);
-                    setSelectedOrder(created);
-                    status.set("Created order ID " + created.getId());
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> status.set("Create failed: " + e.getMessage()));
-            }
-        }, "create-order").start();
+        tasks.submit("create-order",
+            () -> service.createOrder(num, cid, stat, pay, curr, ship, bill, nts),
+            created -> {
+                orders.add(0, created);
+                if (pagedMode.get()) pagedOrders.insertFirst(created);
+                setSelectedOrder(created);
+                status.set("Created order ID " + created.getId());
+            },
+            e -> status.set("Create failed: " + e.getMessage())
+        );
     }
 
     public void updateSelectedOrderAsync() {
@@ -146,19 +338,17 @@ public class OrdersViewModel {
 
         final int id = sel.getId();
         status.set("Updating order...");
-        new Thread(() -> {
-            try {
-                Order updated = service.updateOrder(id, num, cid, stat, pay, curr, ship, bill, nts);
-                Platform.runLater(() -> {
-                    int idx = orders.indexOf(sel);
-                    if (idx >= 0) orders.set(idx, updated);
-                    setSelectedOrder(updated);
-                    status.set("Updated order ID " + updated.getId());
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> status.set("Update failed: " + e.getMessage()));
-            }
-        }, "update-order").start();
+        tasks.submit("update-order",
+            () -> service.updateOrder(id, num, cid, stat, pay, curr, ship, bill, nts),
+            updated -> {
+                prefetcher.invalidate(id);
+                orders.replaceById(updated);
+                if (pagedMode.get()) pagedOrders.replaceRow(sel, updated);
+                setSelectedOrder(updated);
+                status.set("Updated order ID " + updated.getId());
+            },
+            e -> status.set("Update failed: " + e.getMessage())
+        );
     }
 
     public void deleteSelectedOrderAsync() {
@@ -169,18 +359,20 @@ public class OrdersViewModel {
         }
         final int id = sel.getId();
         status.set("Deleting order...");
-        new Thread(() -> {
-            try {
+        tasks.submit("delete-order",
+            () -> {
                 service.deleteOrder(id);
-                Platform.runLater(() -> {
-                    orders.remove(sel);
-                    setSelectedOrder(null);
-                    status.set("Deleted order ID " + id);
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> status.set("Delete failed: " + e.getMessage()));
-            }
-        }, "delete-order").start();
+                return null;
+            },
+            ignored -> {
+                prefetcher.invalidate(id);
+                orders.removeById(sel.getId());
+                if (pagedMode.get()) pagedOrders.removeRow(sel);
+                setSelectedOrder(null);
+                status.set("Deleted order ID " + id);
+            },
+            e -> status.set("Delete failed: " + e.getMessage())
+        );
     }
 
     private void clearForm() {
@@ -190,19 +382,24 @@ public class OrdersViewModel {
         orderStatus.set("pending");
         paymentMethod.set("credit_card");
         currencyCode.set("EUR");
-        subtotalAmount.set(0.0);
-        discountAmount.set(0.0);
-        taxAmount.set(0.0);
-        totalAmount.set(0.0);
+        subtotalCents.set(0);
+        discountCents.set(0);
+        taxCents.set(0);
+        totalCents.set(0);
         shippingAddress.set("");
         billingAddress.set("");
         notes.set("");
         createdAt.set("");
         updatedAt.set("");
+        clientSummary.set("");
     }
 
     // Exposed properties for binding
     public ObservableList<Order> getOrders() { return orders; }
+    public SearchIndex<Order> getSearchIndex() { return search; }
+    public ObservableList<Order> getPagedOrders() { return pagedOrders; }
+    public BooleanProperty pagedModeProperty() { return pagedMode; }
+    public boolean isPlaceholder(Order o) { return pagedOrders.isPlaceholder(o); }
     public ObjectProperty<Order> selectedOrderProperty() { return selectedOrder; }
     public void setSelectedOrder(Order o) { selectedOrder.set(o); }
     public BooleanProperty hasSelectionProperty() { return hasSelection; }
@@ -214,10 +411,10 @@ public class OrdersViewModel {
     public StringProperty paymentMethodProperty() { return paymentMethod; }
     public StringProperty currencyCodeProperty() { return currencyCode; }
 
-    public DoubleProperty subtotalAmountProperty() { return subtotalAmount; }
-    public DoubleProperty discountAmountProperty() { return discountAmount; }
-    public DoubleProperty taxAmountProperty() { return taxAmount; }
-    public DoubleProperty totalAmountProperty() { return totalAmount; }
+    public LongProperty subtotalCentsProperty() { return subtotalCents; }
+    public LongProperty discountCentsProperty() { return discountCents; }
+    public LongProperty taxCentsProperty() { return taxCents; }
+    public LongProperty totalCentsProperty() { return totalCents; }
 
     public StringProperty shippingAddressProperty() { return shippingAddress; }
     public StringProperty billingAddressProperty() { return billingAddress; }
@@ -225,6 +422,10 @@ public class OrdersViewModel {
 
     public StringProperty createdAtProperty() { return createdAt; }
     public StringProperty updatedAtProperty() { return updatedAt; }
+    public ReadOnlyStringProperty clientSummaryProperty() { return clientSummary; }
 
     public StringProperty statusProperty() { return status; }
+    public BooleanProperty streamingLoadProperty() { return streamingLoad; }
+    public DoubleProperty loadProgressProperty() { return loadProgress; }
+    public BooleanProperty incrementalLoadProperty() { return incrementalLoad; }
 }
@@ -1,20 +1,37 @@
 package com.demo.ui.viewmodels;
 
+import com.demo.ui.collections.IdIndexedList;
+import com.demo.ui.collections.IncrementalSync;
+import com.demo.ui.collections.SearchIndex;
+import com.demo.ui.collections.WriteBehind;
+import com.demo.ui.models.Money;
 import com.demo.ui.models.Product;
+import com.demo.ui.services.Delta;
 import com.demo.ui.services.ProductService;
-import javafx.application.Platform;
+import com.demo.ui.snapshot.SnapshotStore;
+import com.demo.ui.tasks.TaskRunner;
+import com.demo.ui.tasks.UiUpdateScheduler;
 import javafx.beans.property.*;
-import javafx.collections.FXCollections;
+import javafx.collections.MapChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.ObservableMap;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class ProductsViewModel {
 
     private final ProductService service = new ProductService();
+    private final TaskRunner tasks = TaskRunner.shared();
+    private final UiUpdateScheduler ui = UiUpdateScheduler.shared();
+    private final SnapshotStore snapshot = SnapshotStore.shared();
 
     // Table data
-    private final ObservableList<Product> products = FXCollections.observableArrayList();
+    private final IdIndexedList<Product> products = new IdIndexedList<>(Product::getId);
+
+    // Search over the loaded rows, kept in step with the list
+    private final SearchIndex<Product> search = new SearchIndex<>("products", Product::getId,
+        p -> new String[] { p.getName(), p.getDescription() });
 
     // Selection
     private final ObjectProperty<Product> selectedProduct = new SimpleObjectProperty<>(null);
@@ -32,14 +49,36 @@ public class ProductsViewModel {
     // Status message
     private final StringProperty status = new SimpleStringProperty("");
 
+    // Streaming load: rows appear chunk by chunk while the response is parsed
+    private static final int CHUNK_SIZE = 500;
+    private final BooleanProperty streamingLoad = new SimpleBooleanProperty(true);
+    private final DoubleProperty loadProgress = new SimpleDoubleProperty(0.0);
+
+    // Incremental load: once loaded, Load only fetches rows changed since the last one
+    private final IncrementalSync<Product> sync = new IncrementalSync<>(Product::getId, Product::getUpdatedAt);
+    private final BooleanProperty incrementalLoad = new SimpleBooleanProperty(true);
+
+    // Create/update/delete show at once and are saved in batches behind the scenes; rows changed
+    // on the server meanwhile come back as conflicts
+    private final WriteBehind<Product> writes = new WriteBehind<>("products", products, Product::getId,
+        Product::getUpdatedAt, ProductsViewModel::withId,
+        edits -> service.saveProducts(toSend(edits)),
+        edits -> service.deleteProducts(edits.stream().map(WriteBehind.Edit::id).toList()));
+    private final BooleanProperty selectionConflicted = new SimpleBooleanProperty(false);
+
     public ProductsViewModel() {
+        search.attach(products);
+        writes.setOnFlushed(this::showWriteReport);
+        writes.conflicts().addListener((MapChangeListener<Integer, Product>) change -> updateSelectionConflicted());
+
         // When selection changes, populate form fields
         selectedProduct.addListener((obs, old, sel) -> {
             hasSelection.set(sel != null);
+            updateSelectionConflicted();
             if (sel != null) {
                 name.set(sel.getName() != null ? sel.getName() : "");
                 description.set(sel.getDescription() != null ? sel.getDescription() : "");
-                priceText.set(String.valueOf(sel.getPrice()));
+                priceText.set(Money.format(sel.getPriceCents()));
                 stockText.set(String.valueOf(sel.getStock()));//3
                 providerIdText.set(sel.getProviderId() != null ? String.valueOf(sel.getProviderId()) : "");
                 createdAt.set(sel.getCreatedAt() != null ? sel.getCreatedAt() : "");
@@ -56,7 +95,7 @@ public class ProductsViewModel {
                 return;
             }
             try {
-                double p = Double.parseDouble(n);
+                long p = Money.parse(n.trim());
                 if (p < 0) status.set("Price must be >= 0");
                 else status.set("");
             } catch (NumberFormatException e) {
@@ -95,28 +134,126 @@ public class ProductsViewModel {
 
     }
 
+    // The view is gone for good. Queued writes still go out: WriteBehind flushes on its own tasks.
+    public void dispose() {
+        tasks.cancelAll(this);
+        search.close();
+    }
+
     // Async operations (use a background thread; minimal error handling)
     public void loadProductsAsync() {
-        status.set("Loading products...");
-        new Thread(() -> {
-            try {
+        if (incrementalLoad.get() && sync.isPrimed() && !products.isEmpty()) {
+            syncProductsAsync();
+            return;
+        }
+        sync.reset();
+
+        // First load: show the local snapshot at once, then refresh it in one piece
+        // (streaming would first shrink the table to one chunk)
+        boolean fromSnapshot = products.isEmpty() && showSnapshot();
+        if (streamingLoad.get() && !fromSnapshot) {
+            streamProductsAsync();
+            return;
+        }
+
+        if (!fromSnapshot) status.set("Loading products...");
+        tasks.submitLatest(this, "load-products",
+            () -> {
                 List<Product> list = service.getAllProducts();
-                Platform.runLater(() -> {
-                    products.setAll(list);
-                    status.set("Loaded " + list.size() + " products");
+                sync.observe(list);
+                return list;
+            },
+            list -> {
+                products.setAll(list);
+                writes.reapply();
+                snapshot.putProducts(list);
+                status.set("Loaded " + list.size() + " products");
+            },
+            e -> status.set(fromSnapshot
+                ? "Offline: showing " + products.size() + " cached products (" + e.getMessage() + ")"
+                : "Load failed: " + e.getMessage())
+        );
+    }
+
+    // Fetch rows changed since the high-water mark and merge them in place; the id set is only
+    // fetched when the server's row count says something was deleted
+    private void syncProductsAsync() {
+        String since = sync.highWaterMark();
+        status.set("Syncing products changed since " + since + "...");
+        tasks.submitLatest(this, "load-products",
+            () -> service.getProductsChangedSince(since),
+            delta -> {
+                sync.upsert(products, delta);
+                writes.reapply();
+                // Rows not saved yet are not in the server's count
+                if (sync.countsDiffer(products, delta, writes.unsentRowCount())) {
+                    removeDeletedProductsAsync(delta);
+                    return;
+                }
+                if (!delta.changed().isEmpty()) snapshot.putProducts(products);
+                status.set("Synced " + delta.changed().size() + " changed products");
+            },
+            e -> status.set("Sync failed: " + e.getMessage())
+        );
+    }
+
+    private void removeDeletedProductsAsync(Delta<Product> delta) {
+        tasks.submitLatest(this, "load-products",
+            () -> service.getProductIds(),
+            ids -> {
+                int removed = sync.removeMissing(products, ids, writes::isPending);
+                writes.reapply();
+                snapshot.putProducts(products);
+                status.set("Synced " + delta.changed().size() + " changed, " + removed + " deleted products");
+            },
+            e -> status.set("Sync failed: " + e.getMessage())
+        );
+    }
+
+    private boolean showSnapshot() {
+        List<Product> cached = snapshot.products();
+        if (cached.isEmpty()) return false;
+        products.setAll(cached);
+        status.set("Showing " + cached.size() + " cached products from " + snapshot.savedAt() + ", refreshing...");
+        return true;
+    }
+
+    private void streamProductsAsync() {
+        status.set("Loading products...");
+        loadProgress.set(-1);
+        tasks.submitLatest(this, "load-products",
+            ctx -> {
+                int[] loaded = { 0 };
+                return service.streamAllProducts(CHUNK_SIZE, (chunk, bytesRead, totalBytes) -> {
+                    ctx.throwIfStale();
+                    sync.observe(chunk);
+                    // Keep the old rows visible until the first chunk arrives
+                    if (loaded[0] == 0) ui.replaceAll(products, chunk, ctx::isCurrent);
+                    else ui.append(products, chunk, ctx::isCurrent);
+                    loaded[0] += chunk.size();
+                    ui.set(loadProgress, totalBytes > 0 ? (double) bytesRead / totalBytes : -1.0, ctx::isCurrent);
+                    ui.set(status, "Loading products... " + loaded[0], ctx::isCurrent);
                 });
-            } catch (Exception e) {
-                Platform.runLater(() -> status.set("Load failed: " + e.getMessage()));
+            },
+            count -> {
+                loadProgress.set(1.0);
+                writes.reapply();
+                snapshot.putProducts(products);
+                status.set("Loaded " + count + " products");
+            },
+            e -> {
+                loadProgress.set(0.0);
+                status.set("Load failed: " + e.getMessage());
             }
-        }, "load-products").start();
+        );
     }
 
     public void createProductAsync() {
         String nm = name.get().trim();
         String desc = description.get().trim();
-        double priceVal;
+        long priceVal;
         try {
-            priceVal = Double.parseDouble(priceText.get());
+            priceVal = Money.parse(priceText.get().trim());
             if (priceVal < 0) throw new IllegalArgumentException("Price must be >= 0");
         } catch (Exception e) {
             status.set("Invalid price: " + e.getMessage());
@@ -149,19 +286,10 @@ public class ProductsViewModel {
             providerIdVal = null;
         }
 
-        status.set("Creating product...");
-        new Thread(() -> {
-            try {
-                Product created = service.createProduct(nm, desc.isBlank() ? null : desc, priceVal, stockVal, providerIdVal);
-                Platform.runLater(() -> {
-                    products.add(0, created);
-                    setSelectedProduct(created);
-                    status.set("Created product ID " + created.getId());
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> status.set("Create failed: " + e.getMessage()));
-            }
-        }, "create-product").start();
+        Product created = writes.create(
+            new Product(0, nm, desc.isBlank() ? null : desc, priceVal, stockVal, providerIdVal, null, null));
+        setSelectedProduct(created);
+        status.set("Added product, saving...");
     }
 
     public void updateSelectedProductAsync() {
@@ -172,9 +300,9 @@ public class ProductsViewModel {
         }
         String nm = name.get().trim();
         String desc = description.get().trim();
-        double priceVal;
+        long priceVal;
         try {
-            priceVal = Double.parseDouble(priceText.get());
+            priceVal = Money.parse(priceText.get().trim());
             if (priceVal < 0) throw new IllegalArgumentException("Price must be >= 0");
         } catch (Exception e) {
             status.set("Invalid price: " + e.getMessage());
@@ -207,29 +335,26 @@ public class ProductsViewModel {
             providerIdVal = null;
         }
 
-        final int id = sel.getId();
-        status.set("Updating product...");
-        new Thread(() -> {
-            try {
-                Product updated = service.updateProduct(
-                    id, 
-                    nm, 
-                    desc.isBlank() ? null : desc, 
-                    priceVal, 
-                    stockVal, 
-                    providerIdVal
-                );
-                Platform.runLater(() -> {
-                    // Replace in list
-                    int idx = products.indexOf(sel);
-                    if (idx >= 0) products.set(idx, updated);
-                    setSelectedProduct(updated);
-                    status.set("Updated product ID " + updated.getId());
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> status.set("Update failed: " + e.getMessage()));
-            }
-        }, "update-product").start();
+        // The form holds every field, so the edited row is the shown row with the form applied
+        Product shown = products.getById(sel.getId());
+        if (shown == null) {
+            status.set("Product ID " + sel.getId() + " is no longer in the list");
+            return;
+        }
+        Product updated = new Product(shown.getId(), nm, desc.isBlank() ? null : desc, priceVal, stockVal,
+            providerIdVal, shown.getCreatedAt(), shown.getUpdatedAt());
+        writes.update(updated);
+        setSelectedProduct(updated);
+        status.set("Updated product ID " + updated.getId() + ", saving...");
+    }
+
+    // The selected row's save was refused because someone changed it first: apply this user's
+    // version again on top of theirs
+    public void keepMyVersionOfSelected() {
+        Product sel = selectedProduct.get();
+        if (sel == null || !writes.keepMine(sel.getId())) return;
+        setSelectedProduct(products.getById(sel.getId()));
+        status.set("Re-applied your changes to product ID " + sel.getId() + ", saving...");
     }
 
     public void deleteSelectedProductAsync() {
@@ -239,19 +364,42 @@ public class ProductsViewModel {
             return;
         }
         final int id = sel.getId();
-        status.set("Deleting product...");
-        new Thread(() -> {
-            try {
-                service.deleteProduct(id);
-                Platform.runLater(() -> {
-                    products.remove(sel);
-                    setSelectedProduct(null);
-                    status.set("Deleted product ID " + id);
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> status.set("Delete failed: " + e.getMessage()));
-            }
-        }, "delete-product").start();
+        writes.delete(id);
+        setSelectedProduct(null);
+        status.set("Deleted product ID " + id + ", saving...");
+    }
+
+    private void showWriteReport(WriteBehind.Report r) {
+        StringBuilder sb = new StringBuilder("Saved ").append(r.saved()).append(" product changes");
+        if (r.conflicts() > 0) {
+            sb.append(", ").append(r.conflicts()).append(" changed by someone else first (showing theirs)");
+        }
+        if (r.rejected() > 0) sb.append(", ").append(r.rejected()).append(" rejected and undone");
+        if (r.retrying() > 0) sb.append(", ").append(r.retrying()).append(" will be retried");
+        if (r.error() != null) sb.append(": ").append(r.error().getMessage());
+        status.set(sb.toString());
+    }
+
+    private void updateSelectionConflicted() {
+        Product sel = selectedProduct.get();
+        selectionConflicted.set(sel != null && writes.isConflicted(sel.getId()));
+    }
+
+    private static Product withId(Product p, int id) {
+        return new Product(id, p.getName(), p.getDescription(), p.getPriceCents(), p.getStock(),
+            p.getProviderId(), p.getCreatedAt(), p.getUpdatedAt());
+    }
+
+    // Creates keep their temporary id (sent as their idempotency key); updates carry the updated_at
+    // they were based on as the version check
+    private static List<Product> toSend(List<WriteBehind.Edit<Product>> edits) {
+        List<Product> rows = new ArrayList<>(edits.size());
+        for (WriteBehind.Edit<Product> e : edits) {
+            Product p = e.row();
+            rows.add(new Product(e.id(), p.getName(), p.getDescription(),
+                p.getPriceCents(), p.getStock(), p.getProviderId(), null, e.basis()));
+        }
+        return rows;
     }
 
     private void clearForm() {
@@ -266,9 +414,14 @@ public class ProductsViewModel {
 
     // Exposed properties for binding
     public ObservableList<Product> getProducts() { return products; }
+    public SearchIndex<Product> getSearchIndex() { return search; }
     public ObjectProperty<Product> selectedProductProperty() { return selectedProduct; }
     public void setSelectedProduct(Product p) { selectedProduct.set(p); }
     public BooleanProperty hasSelectionProperty() { return hasSelection; }
+    public BooleanProperty selectionConflictedProperty() { return selectionConflicted; }
+    public boolean isPending(Product p) { return writes.isPending(p.getId()); }
+    public boolean isConflicted(Product p) { return writes.isConflicted(p.getId()); }
+    public ObservableMap<Integer, Product> conflicts() { return writes.conflicts(); }
 
     public StringProperty nameProperty() { return name; }
     public StringProperty descriptionProperty() { return description; }
@@ -279,4 +432,7 @@ public class ProductsViewModel {
     public StringProperty updatedAtProperty() { return updatedAt; }
 
     public StringProperty statusProperty() { return status; }
+    public BooleanProperty streamingLoadProperty() { return streamingLoad; }
+    public DoubleProperty loadProgressProperty() { return loadProgress; }
+    public BooleanProperty incrementalLoadProperty() { return incrementalLoad; }
 }
@@ -1,6 +1,7 @@
 // clients.controller.js
 const pool = require('../config/db');
 const { isNonEmptyString } = require('../middleware/validation');
+const { listChangedSince, listIds } = require('./sync');
 
 // Basic validators (use your middleware if you add them there)
 function isEmail(value) {
@@ -21,7 +22,9 @@ function isAddress(value) {
   return v.length <= 255;
 }
 
+// GET /clients?since=<ISO> returns only rows changed since then (see listChangedSince)
 async function listClients(req, res) {
+  if (req.query.since !== undefined) return listChangedSince('clients', req, res);
   try {
     const [rows] = await pool.query('SELECT * FROM clients ORDER BY id DESC');
     res.json(rows);
@@ -145,4 +148,8 @@ async function deleteClient(req, res) {
   }
 }
 
-module.exports = { listClients, getClient, createClient, updateClient, deleteClient };
+async function listClientIds(req, res) {
+  return listIds('clients', req, res);
+}
+
+module.exports = { listClients, listClientIds, getClient, createClient, updateClient, deleteClient };
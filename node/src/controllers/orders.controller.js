@@ -1,6 +1,10 @@
 // src/controllers/orders.controller.js
 const pool = require('../config/db');
-const { isNonEmptyString } = require('../middleware/validation');
+const Order = require('../models/order.model');
+const { isNonEmptyString, isInteger } = require('../middleware/validation');
+const { listChangedSince, listIds } = require('./sync');
+
+const MAX_PAGE_SIZE = 1000;
 
 // --- Basic validators ---
 function isCurrency(value) {
@@ -23,10 +27,33 @@ function isAddress(value) {
 }
 
 // --- Orders CRUD ---
+// GET /orders                      -> every order, newest first
+// GET /orders?limit=N[&afterId=X]  -> keyset page: the N newest orders with id < X
+// GET /orders?since=<ISO>          -> only orders changed since then (see listChangedSince)
 async function listOrders(req, res) {
+  if (req.query.since !== undefined) return listChangedSince('orders', req, res);
+  const { limit, afterId } = req.query;
+  if (limit === undefined && afterId === undefined) {
+    try {
+      const [rows] = await pool.query('SELECT * FROM orders ORDER BY id DESC');
+      return res.json(rows);
+    } catch (err) {
+      console.error('GET /orders error:', err);
+      return res.status(500).json({ error: 'Internal server error' });
+    }
+  }
+
+  const pageSize = limit !== undefined ? Number(limit) : MAX_PAGE_SIZE;
+  const cursor = afterId !== undefined ? Number(afterId) : null;
+  if (!isInteger(pageSize, { min: 1, max: MAX_PAGE_SIZE })) {
+    return res.status(400).json({ error: 'Invalid limit' });
+  }
+  if (cursor !== null && !Number.isInteger(cursor)) {
+    return res.status(400).json({ error: 'Invalid afterId' });
+  }
+
   try {
-    const [rows] = await pool.query('SELECT * FROM orders ORDER BY id DESC');
-    res.json(rows);
+    res.json(await Order.getPage(cursor, pageSize));
   } catch (err) {
     console.error('GET /orders error:', err);
     res.status(500).json({ error: 'Internal server error' });
@@ -235,8 +262,13 @@ async function deleteOrderProduct(req, res) {
   }
 }
 
+async function listOrderIds(req, res) {
+  return listIds('orders', req, res);
+}
+
 module.exports = {
   listOrders,
+  listOrderIds,
   getOrder,
   createOrder,
   updateOrder,
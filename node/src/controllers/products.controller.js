@@ -1,7 +1,20 @@
 const pool = require('../config/db');
 const { isNonEmptyString, isPrice, isStock, isProviderId } = require('../middleware/validation');
+const { listChangedSince, listIds } = require('./sync');
 
+const MAX_BULK_ITEMS = 1000;
+
+// Creates may carry an idempotency_key (the client's nonce and temporary id). A create whose
+// response was lost is re-sent with the same key; it must not insert a second row, so the key is
+// mapped to the id it created and a repeat updates that row instead. In memory and per process:
+// the most recent IDEMPOTENCY_KEYS keys, forgotten on restart.
+const IDEMPOTENCY_KEYS = 10000;
+const createdByKey = new Map();
+
+// GET /products               -> every product, newest first
+// GET /products?since=<ISO>    -> only rows with updated_at >= since (see listChangedSince)
 async function listProducts(req, res) {
+  if (req.query.since !== undefined) return listChangedSince('products', req, res);
   try {
     const [rows] = await pool.query('SELECT * FROM products ORDER BY id DESC');
     res.json(rows);
@@ -24,38 +37,105 @@ async function getProduct(req, res) {
   }
 }
 
-async function createProduct(req, res) {
-  const { name, description, price, stock, provider_id } = req.body;
+// Validated, coerced column values for a full product, or an error message
+function productColumns(body) {
+  const { name, description, price, stock, provider_id } = body;
 
   if (!isNonEmptyString(name, 100)) {
-    return res.status(400).json({ error: 'Invalid name' });
+    return { error: 'Invalid name' };
   }
   if (description && typeof description !== 'string') {
-    return res.status(400).json({ error: 'Invalid description' });
+    return { error: 'Invalid description' };
   }
 
   const numPrice = Number(price);
   if (!isPrice(numPrice)) {
-    return res.status(400).json({ error: 'Invalid price' });
+    return { error: 'Invalid price' };
   }
 
   const numStock = Number(stock);
   if (!isStock(numStock)) {
-    return res.status(400).json({ error: 'Invalid stock' });
+    return { error: 'Invalid stock' };
   }
 
   const numProvider = provider_id !== undefined ? Number(provider_id) : null;
   if (!isProviderId(numProvider)) {
-    return res.status(400).json({ error: 'Invalid provider_id' });
+    return { error: 'Invalid provider_id' };
   }
 
-  try {
-    const [result] = await pool.query(
-      'INSERT INTO products (name, description, price, stock, provider_id) VALUES (?, ?, ?, ?, ?)',
-      [name.trim(), description || null, numPrice, numStock, numProvider]
+  return { values: [name.trim(), description || null, numPrice, numStock, numProvider] };
+}
+
+// Optional optimistic-concurrency check on updates: the updated_at the client's edit was based
+// on. { version: null } when absent; the UPDATE then only applies if the row still has it.
+// TIMESTAMP has one-second resolution, so two edits within the same second are not told apart.
+function versionOf(body) {
+  if (body.updated_at === undefined || body.updated_at === null) return { version: null };
+  const version = new Date(body.updated_at);
+  if (isNaN(version.getTime())) return { error: 'Invalid updated_at' };
+  return { version };
+}
+
+// UPDATE by id, guarded by version when given. Returns { status: 200 } when a row matched,
+// otherwise 404, or 409 with the row as it is now when it exists but has changed since version.
+async function updateProductRow(conn, id, values, version) {
+  const [result] = version
+    ? await conn.query(
+      'UPDATE products SET name = ?, description = ?, price = ?, stock = ?, provider_id = ? WHERE id = ? AND updated_at = ?',
+      [...values, id, version]
+    )
+    : await conn.query(
+      'UPDATE products SET name = ?, description = ?, price = ?, stock = ?, provider_id = ? WHERE id = ?',
+      [...values, id]
+    );
+  if (result.affectedRows > 0) return { status: 200 };
+  if (version) {
+    const [current] = await conn.query('SELECT * FROM products WHERE id = ?', [id]);
+    if (current.length > 0) return { status: 409, error: 'Modified since updated_at', product: current[0] };
+  }
+  return { status: 404, error: 'Not found' };
+}
+
+// Id of the product created for body: a new row, or the one an earlier create with the same
+// idempotency_key made, set to values (the retry may carry later edits). Concurrent repeats wait
+// for the first; a failed insert forgets its key so it can be retried.
+async function insertProduct(conn, body, values) {
+  const key = typeof body.idempotency_key === 'string' && body.idempotency_key.length > 0
+    ? body.idempotency_key : null;
+  if (key && createdByKey.has(key)) {
+    const id = await createdByKey.get(key);
+    await conn.query(
+      'UPDATE products SET name = ?, description = ?, price = ?, stock = ?, provider_id = ? WHERE id = ?',
+      [...values, id]
     );
+    return id;
+  }
+  const insert = conn.query(
+    'INSERT INTO products (name, description, price, stock, provider_id) VALUES (?, ?, ?, ?, ?)',
+    values
+  ).then(([result]) => result.insertId);
+  if (key) {
+    createdByKey.set(key, insert);
+    if (createdByKey.size > IDEMPOTENCY_KEYS) createdByKey.delete(createdByKey.keys().next().value);
+    insert.catch(() => {
+      if (createdByKey.get(key) === insert) createdByKey.delete(key);
+    });
+  }
+  return insert;
+}
+
+async function createProduct(req, res) {
+  const columns = productColumns(req.body);
+  if (columns.error) {
+    return res.status(400).json({ error: columns.error });
+  }
+
+  try {
+    const id = await insertProduct(pool, req.body, columns.values);
 
-    const [rows] = await pool.query('SELECT * FROM products WHERE id = ?', [result.insertId]);
+    const [rows] = await pool.query('SELECT * FROM products WHERE id = ?', [id]);
+    // A repeated create whose product has been deleted since
+    if (rows.length === 0) return res.status(404).json({ error: 'Not found' });
     res.status(201).json(rows[0]);
   } catch (err) {
     console.error('POST /products error:', err);
@@ -63,6 +143,79 @@ async function createProduct(req, res) {
   }
 }
 
+// POST /products/bulk  body: [product, ...]
+// Items with a positive id replace that product, the others are created (deduplicated by
+// idempotency_key, see insertProduct); a replace that carries
+// updated_at only applies if the row still has it (409 with the current row otherwise). The whole batch runs
+// on one DB connection and the rows come back in one SELECT; each item gets its own
+// { status, product } or { status, error }, so one bad row does not fail the rest.
+async function bulkProducts(req, res) {
+  const items = req.body;
+  if (!Array.isArray(items) || items.length === 0 || items.length > MAX_BULK_ITEMS) {
+    return res.status(400).json({ error: `Expected an array of 1..${MAX_BULK_ITEMS} products` });
+  }
+
+  let conn;
+  try {
+    conn = await pool.getConnection();
+    const results = [];
+    const ids = [];
+
+    for (const item of items) {
+      const columns = productColumns(item || {});
+      if (columns.error) {
+        results.push({ status: 400, error: columns.error });
+        continue;
+      }
+      const id = Number(item.id);
+      try {
+        if (Number.isInteger(id) && id > 0) {
+          const { version, error } = versionOf(item);
+          if (error) {
+            results.push({ status: 400, error });
+            continue;
+          }
+          const updated = await updateProductRow(conn, id, columns.values, version);
+          if (updated.status !== 200) {
+            results.push(updated);
+            continue;
+          }
+          results.push({ status: 200, id });
+        } else {
+          results.push({ status: 201, id: await insertProduct(conn, item, columns.values) });
+        }
+        ids.push(results[results.length - 1].id);
+      } catch (err) {
+        console.error('POST /products/bulk item error:', err);
+        results.push({ status: 500, error: 'Internal server error' });
+      }
+    }
+
+    if (ids.length > 0) {
+      const [rows] = await conn.query('SELECT * FROM products WHERE id IN (?)', [ids]);
+      const byId = new Map(rows.map(row => [row.id, row]));
+      for (const result of results) {
+        if (result.id !== undefined) {
+          result.product = byId.get(result.id);
+          delete result.id;
+          if (!result.product) {
+            // A repeated create whose product has been deleted since
+            result.status = 404;
+            result.error = 'Not found';
+            delete result.product;
+          }
+        }
+      }
+    }
+    res.json(results);
+  } catch (err) {
+    console.error('POST /products/bulk error:', err);
+    res.status(500).json({ error: 'Internal server error' });
+  } finally {
+    if (conn) conn.release();
+  }
+}
+
 async function updateProduct(req, res) {
   const id = Number(req.params.id);
   if (!Number.isInteger(id)) {
@@ -90,6 +243,10 @@ async function updateProduct(req, res) {
   if (numProvider !== undefined && !isProviderId(numProvider)) {
     return res.status(400).json({ error: 'Invalid provider_id' });
   }
+  const { version, error } = versionOf(req.body);
+  if (error) {
+    return res.status(400).json({ error });
+  }
 
   try {
     const [existing] = await pool.query('SELECT * FROM products WHERE id = ?', [id]);
@@ -105,10 +262,11 @@ async function updateProduct(req, res) {
       provider_id: numProvider !== undefined ? numProvider : existing[0].provider_id
     };
 
-    await pool.query(
-      'UPDATE products SET name = ?, description = ?, price = ?, stock = ?, provider_id = ? WHERE id = ?',
-      [updated.name, updated.description, updated.price, updated.stock, updated.provider_id, id]
-    );
+    const result = await updateProductRow(pool,
+      id, [updated.name, updated.description, updated.price, updated.stock, updated.provider_id], version);
+    if (result.status !== 200) {
+      return res.status(result.status).json({ error: result.error, product: result.product });
+    }
 
     const [rows] = await pool.query('SELECT * FROM products WHERE id = ?', [id]);
     res.json(rows[0]);
@@ -131,4 +289,8 @@ async function deleteProduct(req, res) {
   }
 }
 
-module.exports = { listProducts, getProduct, createProduct, updateProduct, deleteProduct };
+async function listProductIds(req, res) {
+  return listIds('products', req, res);
+}
+
+module.exports = { listProducts, listProductIds, getProduct, createProduct, bulkProducts, updateProduct, deleteProduct };
@@ -0,0 +1,50 @@
+// src/controllers/sync.js
+// Incremental sync support shared by the list endpoints.
+//
+// GET /<table>?since=<ISO timestamp>
+//   Rows with updated_at >= since, newest first. `>=` because TIMESTAMP has one-second
+//   resolution: a row changed later in the same second as the client's high-water mark must
+//   come back again (the client upserts by id, so repeats are harmless).
+//   X-Total-Count carries the table's row count so the client can tell whether anything was
+//   deleted without downloading ids.
+//
+// GET /<table>/ids
+//   Every id, newest first, as a bare JSON array: the id-set the client diffs against to find
+//   deletions, only needed when the counts disagree.
+const pool = require('../config/db');
+
+// Table names are fixed by the callers, never taken from the request
+const TABLES = new Set(['products', 'clients', 'orders']);
+
+async function listChangedSince(table, req, res) {
+  if (!TABLES.has(table)) throw new Error(`Unknown table ${table}`);
+  const since = new Date(req.query.since);
+  if (isNaN(since.getTime())) {
+    return res.status(400).json({ error: 'Invalid since' });
+  }
+  try {
+    const [rows] = await pool.query(
+      `SELECT * FROM ${table} WHERE updated_at >= ? ORDER BY id DESC`,
+      [since]
+    );
+    const [[{ total }]] = await pool.query(`SELECT COUNT(*) AS total FROM ${table}`);
+    res.set('X-Total-Count', String(total));
+    res.json(rows);
+  } catch (err) {
+    console.error(`GET /${table}?since error:`, err);
+    res.status(500).json({ error: 'Internal server error' });
+  }
+}
+
+async function listIds(table, req, res) {
+  if (!TABLES.has(table)) throw new Error(`Unknown table ${table}`);
+  try {
+    const [rows] = await pool.query(`SELECT id FROM ${table} ORDER BY id DESC`);
+    res.json(rows.map(row => row.id));
+  } catch (err) {
+    console.error(`GET /${table}/ids error:`, err);
+    res.status(500).json({ error: 'Internal server error' });
+  }
+}
+
+module.exports = { listChangedSince, listIds };
@@ -0,0 +1,111 @@
+// CBOR (RFC 8949) responses for clients that rank it above JSON.
+// When Accept prefers application/cbor, successful res.json bodies go out as CBOR instead: the
+// same values JSON.stringify would send (DECIMALs stay the strings mysql2 returns, dates become
+// ISO strings through toJSON) but with binary lengths and integers, so the Java client binds
+// them without scanning text. Errors stay JSON. No dependency: rows only hold JSON-like values.
+
+const MEDIA_TYPE = 'application/cbor';
+const INITIAL_SIZE = 64 * 1024;
+
+class Writer {
+  constructor() {
+    this.buf = Buffer.allocUnsafe(INITIAL_SIZE);
+    this.pos = 0;
+  }
+
+  ensure(n) {
+    if (this.pos + n <= this.buf.length) return;
+    const next = Buffer.allocUnsafe(Math.max(this.buf.length * 2, this.pos + n));
+    this.buf.copy(next, 0, 0, this.pos);
+    this.buf = next;
+  }
+
+  byte(b) {
+    this.ensure(1);
+    this.buf[this.pos++] = b;
+  }
+
+  // Major type + argument (a length or an unsigned integer up to 2^53)
+  head(major, n) {
+    const m = major << 5;
+    this.ensure(9);
+    if (n < 24) {
+      this.buf[this.pos++] = m | n;
+    } else if (n < 0x100) {
+      this.buf[this.pos++] = m | 24;
+      this.buf[this.pos++] = n;
+    } else if (n < 0x10000) {
+      this.buf[this.pos++] = m | 25;
+      this.pos = this.buf.writeUInt16BE(n, this.pos);
+    } else if (n < 0x100000000) {
+      this.buf[this.pos++] = m | 26;
+      this.pos = this.buf.writeUInt32BE(n, this.pos);
+    } else {
+      this.buf[this.pos++] = m | 27;
+      this.pos = this.buf.writeBigUInt64BE(BigInt(n), this.pos);
+    }
+  }
+
+  string(s) {
+    const len = Buffer.byteLength(s);
+    this.head(3, len);
+    this.ensure(len);
+    this.pos += this.buf.write(s, this.pos, len, 'utf8');
+  }
+
+  value(v) {
+    if (v !== null && v !== undefined && typeof v.toJSON === 'function') v = v.toJSON();
+    if (v === null || v === undefined) return this.byte(0xf6);
+    switch (typeof v) {
+      case 'boolean':
+        return this.byte(v ? 0xf5 : 0xf4);
+      case 'number':
+        if (Number.isSafeInteger(v)) return v >= 0 ? this.head(0, v) : this.head(1, -1 - v);
+        if (!Number.isFinite(v)) return this.byte(0xf6); // JSON sends null
+        this.ensure(9);
+        this.buf[this.pos++] = 0xfb;
+        this.pos = this.buf.writeDoubleBE(v, this.pos);
+        return;
+      case 'string':
+        return this.string(v);
+      case 'object':
+        if (Array.isArray(v)) {
+          this.head(4, v.length);
+          for (const item of v) this.value(typeof item === 'function' ? null : item);
+          return;
+        }
+        return this.object(v);
+      default:
+        return this.byte(0xf6);
+    }
+  }
+
+  // Keys JSON.stringify would drop (undefined or function values) are left out too
+  object(o) {
+    const keys = Object.keys(o).filter((k) => o[k] !== undefined && typeof o[k] !== 'function');
+    this.head(5, keys.length);
+    for (const k of keys) {
+      this.string(k);
+      this.value(o[k]);
+    }
+  }
+}
+
+function encode(value) {
+  const w = new Writer();
+  w.value(value);
+  return w.buf.subarray(0, w.pos);
+}
+
+function cbor(req, res, next) {
+  const json = res.json.bind(res);
+  res.json = (body) => {
+    res.vary('Accept');
+    if (res.statusCode >= 300 || req.accepts(['json', MEDIA_TYPE]) !== MEDIA_TYPE) return json(body);
+    res.type(MEDIA_TYPE);
+    return res.send(encode(body));
+  };
+  next();
+}
+
+module.exports = { cbor, encode };
@@ -0,0 +1,38 @@
+// Response compression for JSON and CBOR bodies.
+// Bodies of at least COMPRESS_MIN_BYTES (default 1 KB) are gzip- or deflate-encoded when the
+// client offers it in Accept-Encoding; smaller ones are not worth the CPU. zlib runs on the
+// libuv thread pool, so a 10 MB order list does not stall the event loop while it compresses.
+// Express computes the ETag afterwards over the encoded bytes, so each encoding revalidates
+// on its own (and Vary tells caches the same).
+const zlib = require('zlib');
+
+const MIN_BYTES = Number(process.env.COMPRESS_MIN_BYTES || 1024);
+const ENCODERS = {
+  gzip: zlib.gzip,
+  deflate: zlib.deflate,
+};
+
+function compress(req, res, next) {
+  const send = res.send.bind(res);
+  res.send = (body) => {
+    res.vary('Accept-Encoding');
+    const encoding = req.acceptsEncodings('gzip', 'deflate', 'identity');
+    const encode = ENCODERS[encoding];
+    if (!encode || (typeof body !== 'string' && !Buffer.isBuffer(body)) || body.length < MIN_BYTES
+        || req.method === 'HEAD' || res.statusCode === 204 || res.statusCode === 304
+        || res.get('Content-Encoding')) {
+      return send(body);
+    }
+    encode(body, (err, encoded) => {
+      if (err) return send(body);
+      res.set('Content-Encoding', encoding);
+      // What send would have picked for the original body; the encoded one is always a Buffer
+      if (!res.get('Content-Type')) res.type(typeof body === 'string' ? 'html' : 'bin');
+      send(encoded);
+    });
+    return res;
+  };
+  next();
+}
+
+module.exports = { compress };
@@ -0,0 +1,26 @@
+// Conditional GET support.
+// Express already answers 304 when If-None-Match matches the ETag it computes for res.json;
+// this adds Last-Modified (from updated_at) to single-row responses so If-Modified-Since works too.
+// Lists only get an ETag: a deleted row does not move max(updated_at), so a date alone would lie.
+
+function toDate(value) {
+  if (!value) return null;
+  const d = value instanceof Date ? value : new Date(value);
+  return isNaN(d.getTime()) ? null : d;
+}
+
+function lastModified(req, res, next) {
+  if (req.method !== 'GET') return next();
+
+  const json = res.json.bind(res);
+  res.json = (body) => {
+    if (res.statusCode === 200 && body && !Array.isArray(body)) {
+      const updated = toDate(body.updated_at) || toDate(body.created_at);
+      if (updated) res.set('Last-Modified', updated.toUTCString());
+    }
+    return json(body);
+  };
+  next();
+}
+
+module.exports = { lastModified };
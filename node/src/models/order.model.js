@@ -17,6 +17,16 @@ const Order = {
     return rows;
   },
 
+  // Keyset page in id DESC order; afterId = last id of the previous page (null for the first page).
+  // Pages walk the primary key downwards, so each one is an index range scan no matter how deep
+  // the operator has scrolled (no OFFSET).
+  getPage: async (afterId, limit) => {
+    const [rows] = afterId !== null && afterId !== undefined
+      ? await db.query('SELECT * FROM orders WHERE id < ? ORDER BY id DESC LIMIT ?', [afterId, limit])
+      : await db.query('SELECT * FROM orders ORDER BY id DESC LIMIT ?', [limit]);
+    return rows;
+  },
+
   getById: async (id) => {
     const [rows] = await db.query('SELECT * FROM orders WHERE id = ?', [id]);
     return rows[0];
@@ -3,6 +3,7 @@ const express = require('express');
 const router = express.Router();
 const {
   listClients,
+  listClientIds,
   getClient,
   createClient,
   updateClient,
@@ -12,6 +13,9 @@ const {
 // GET all clients
 router.get('/', listClients);
 
+// GET every client id (for incremental sync deletions)
+router.get('/ids', listClientIds);
+
 // GET one client by ID
 router.get('/:id', getClient);
 
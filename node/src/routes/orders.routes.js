@@ -2,6 +2,7 @@ const express = require('express');
 const router = express.Router();
 const {
   listOrders,
+  listOrderIds,
   getOrder,
   createOrder,
   updateOrder,
@@ -15,6 +16,9 @@ const {
 // GET all orders
 router.get('/', listOrders);
 
+// GET every order id (for incremental sync deletions)
+router.get('/ids', listOrderIds);
+
 // GET one order by ID
 router.get('/:id', getOrder);
 
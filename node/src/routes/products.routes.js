@@ -3,8 +3,10 @@ const router = express.Router();
 const controller = require('../controllers/products.controller');
 
 router.get('/', controller.listProducts);
+router.get('/ids', controller.listProductIds);
 router.get('/:id', controller.getProduct);
 router.post('/', controller.createProduct);
+router.post('/bulk', controller.bulkProducts);
 router.put('/:id', controller.updateProduct);
 router.delete('/:id', controller.deleteProduct);
 
@@ -1,14 +1,25 @@
 require('dotenv').config();
 const express = require('express');
 const cors = require('cors');
+const { lastModified } = require('./middleware/conditional');
+const { compress } = require('./middleware/compress');
+const { cbor } = require('./middleware/cbor');
 
 const productsRouter = require('./routes/products.routes');
 const clientsRouter = require('./routes/clients.routes');
 const ordersRouter = require('./routes/orders.routes'); // <-- add this
 
 const app = express();
-app.use(cors());
-app.use(express.json());
+// Strong ETags (hash of the body) let clients revalidate list/detail GETs and get 304s
+app.set('etag', 'strong');
+app.use(cors({ exposedHeaders: ['ETag', 'Last-Modified', 'X-Total-Count'] }));
+// Bulk endpoints take up to 1000 rows per request, past express.json's 100kb default
+app.use(express.json({ limit: '2mb' }));
+// gzip/deflate for large list responses (COMPRESS_MIN_BYTES)
+app.use(compress);
+// CBOR instead of JSON for clients that prefer it (before lastModified, which wraps res.json)
+app.use(cbor);
+app.use(lastModified);
 
 // Health check
 app.get('/health', (req, res) => res.json({ status: 'ok' }));